@@ -0,0 +1,37 @@
+package com.tota.eccom.adapters.dto.cache.response;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class CacheStatsRespDTO {
+
+    private String name;
+    private Long size;
+    private Long hitCount;
+    private Long missCount;
+    private Double hitRate;
+    private Long loadSuccessCount;
+    private Long loadFailureCount;
+    private Double averageLoadPenaltyMillis;
+    private Long evictionCount;
+
+
+    public CacheStatsRespDTO(String name, long size, CacheStats stats) {
+        this.name = name;
+        this.size = size;
+        this.hitCount = stats.hitCount();
+        this.missCount = stats.missCount();
+        this.hitRate = stats.hitRate();
+        this.loadSuccessCount = stats.loadSuccessCount();
+        this.loadFailureCount = stats.loadFailureCount();
+        this.averageLoadPenaltyMillis = stats.averageLoadPenalty() / 1_000_000D;
+        this.evictionCount = stats.evictionCount();
+    }
+}
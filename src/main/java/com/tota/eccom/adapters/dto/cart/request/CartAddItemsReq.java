@@ -1,14 +1,24 @@
 package com.tota.eccom.adapters.dto.cart.request;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.List;
 
 @Data
 @Builder
+@AllArgsConstructor
+@NoArgsConstructor
 public class CartAddItemsReq {
 
+    @Valid
+    @NotEmpty(message = "Items are required")
+    @Size(max = 100, message = "At most 100 items per request")
     List<CartItemReqDTO> items;
 
 }
@@ -1,11 +1,15 @@
 package com.tota.eccom.adapters.dto.cart.request;
 
 import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
 @Builder
+@AllArgsConstructor
+@NoArgsConstructor
 public class CartItemReqDTO {
 
     @NotNull(message = "Product ID is required")
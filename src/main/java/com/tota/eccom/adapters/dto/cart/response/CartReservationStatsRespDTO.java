@@ -0,0 +1,27 @@
+package com.tota.eccom.adapters.dto.cart.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class CartReservationStatsRespDTO {
+
+    private Long runs;
+    private Long expiredCarts;
+    private Long releasedUnits;
+    private Long failedCarts;
+    private Date lastRunAt;
+    private Long lastRunMillis;
+    private Long lastRunExpiredCarts;
+    private Double lastRunCartsPerSecond;
+    // How long the oldest expired reservation had been overdue when the last run started
+    private Long lagMillis;
+
+}
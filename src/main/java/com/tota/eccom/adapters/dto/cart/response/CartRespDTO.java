@@ -35,6 +35,7 @@ public class CartRespDTO {
     private Date createdAt;
     private Date updatedAt;
     private Status status;
+    private Date reservationExpiresAt;
 
     public CartRespDTO(Cart cart) {
         this.id = cart.getId();
@@ -43,10 +44,11 @@ public class CartRespDTO {
         this.totalItems = cart.getTotalItems();
         this.itemsCount = cart.getItemsCount();
         this.totalOrder = cart.getTotalOrder();
-        this.items = cart.getItems().stream().map(CartItemRespDTO::new).toList();
+        this.items = cart.getItems() != null ? cart.getItems().stream().map(CartItemRespDTO::new).toList() : List.of();
         this.createdAt = cart.getCreatedAt();
         this.updatedAt = cart.getUpdatedAt();
         this.status = cart.getStatus();
+        this.reservationExpiresAt = cart.getReservationExpiresAt();
     }
 
 
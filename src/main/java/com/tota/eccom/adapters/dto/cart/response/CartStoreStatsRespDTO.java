@@ -0,0 +1,30 @@
+package com.tota.eccom.adapters.dto.cart.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class CartStoreStatsRespDTO {
+
+    private Long size;
+    private Long hitCount;
+    private Long missCount;
+    // Changes only held in memory, lost if the instance dies before the next flush
+    private Long dirtyCarts;
+    private Long dirtyItems;
+    // Age of the oldest change not flushed yet
+    private Long flushLagMillis;
+    private Long flushes;
+    private Long flushedCarts;
+    private Long failedFlushes;
+    private Date lastFlushAt;
+    private Long lastFlushMillis;
+
+}
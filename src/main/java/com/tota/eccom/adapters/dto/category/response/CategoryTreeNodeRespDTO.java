@@ -0,0 +1,26 @@
+package com.tota.eccom.adapters.dto.category.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class CategoryTreeNodeRespDTO {
+
+    private final Long id;
+    private final String name;
+    private final String slug;
+    private final Long parentId;
+    private final int depth;
+
+    // Sellable products of the category and of its whole subtree
+    private final long productCount;
+
+    // Ids of the subcategories, ordered by name
+    private final List<Long> children;
+
+    // Breadcrumb ids from the root category down to this one, itself included
+    private final List<Long> path;
+}
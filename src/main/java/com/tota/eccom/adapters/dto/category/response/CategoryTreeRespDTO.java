@@ -0,0 +1,49 @@
+package com.tota.eccom.adapters.dto.category.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Immutable snapshot of the active category tree, shared between requests. Nodes are keyed by id and reference
+    each other by id, so a menu is rendered from the roots down and a breadcrumb from a node path.
+
+    The ETag is a hash of the content, so rebuilding an unchanged tree keeps it and clients keep revalidating for free.
+ */
+@Getter
+public class CategoryTreeRespDTO {
+
+    private final List<Long> roots;
+    private final Map<Long, CategoryTreeNodeRespDTO> nodes;
+
+    @JsonIgnore
+    private final String etag;
+
+    public CategoryTreeRespDTO(List<Long> roots, Map<Long, CategoryTreeNodeRespDTO> nodes) {
+        this.roots = List.copyOf(roots);
+        this.nodes = Collections.unmodifiableMap(new LinkedHashMap<>(nodes));
+        this.etag = etagOf(this.roots, this.nodes);
+    }
+
+    private static String etagOf(List<Long> roots, Map<Long, CategoryTreeNodeRespDTO> nodes) {
+
+        StringBuilder content = new StringBuilder(roots.toString());
+
+        for (CategoryTreeNodeRespDTO node : nodes.values()) {
+            content.append('\n').append(node.getId())
+                    .append('|').append(node.getName())
+                    .append('|').append(node.getSlug())
+                    .append('|').append(node.getParentId())
+                    .append('|').append(node.getProductCount())
+                    .append('|').append(node.getChildren());
+        }
+
+        return "\"" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
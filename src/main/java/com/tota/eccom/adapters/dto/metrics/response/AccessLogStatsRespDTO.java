@@ -0,0 +1,23 @@
+package com.tota.eccom.adapters.dto.metrics.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class AccessLogStatsRespDTO {
+
+    private Double sampleRate;
+    private Integer queueDepth;
+    private Integer queueCapacity;
+    private Long written;
+    // Left out of the log by the sample rate, still counted in the latency histograms
+    private Long sampledOut;
+    // Lost because the writer fell behind and the buffer was full
+    private Long dropped;
+
+}
@@ -0,0 +1,22 @@
+package com.tota.eccom.adapters.dto.metrics.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class RequestStatsRespDTO {
+
+    // Latencies are recorded since then
+    private Date since;
+    private AccessLogStatsRespDTO accessLog;
+    private List<RouteLatencyRespDTO> routes;
+
+}
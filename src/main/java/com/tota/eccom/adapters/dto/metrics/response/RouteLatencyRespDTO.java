@@ -0,0 +1,26 @@
+package com.tota.eccom.adapters.dto.metrics.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class RouteLatencyRespDTO {
+
+    private String method;
+    // Route template of the handler, such as /product/{id}, not the requested URI
+    private String route;
+    private Integer status;
+    private Long count;
+    private Double meanMillis;
+    private Double p50Millis;
+    private Double p90Millis;
+    private Double p99Millis;
+    private Double p999Millis;
+    private Double maxMillis;
+
+}
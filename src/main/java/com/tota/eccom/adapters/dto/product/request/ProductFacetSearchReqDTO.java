@@ -0,0 +1,33 @@
+package com.tota.eccom.adapters.dto.product.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductFacetSearchReqDTO {
+
+    private String term;
+    private List<String> brands;
+    private List<String> categories;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+
+
+    public void validate() {
+        if ((minPrice != null && minPrice.signum() < 0) || (maxPrice != null && maxPrice.signum() < 0)) {
+            throw new IllegalArgumentException("Price range must not be negative");
+        }
+
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) >= 0) {
+            throw new IllegalArgumentException("Minimum price must be lower than maximum price");
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.tota.eccom.adapters.dto.product.request;
+
+import com.tota.eccom.domain.product.model.Product;
+import com.tota.eccom.util.enums.Status;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/*
+    One product of a bulk import. On NDJSON every line is one of these as JSON. On CSV the header names the same
+    fields, with prices as "quantity:price" pairs and category slugs separated by "|", e.g. "1:10.50|12:9.90".
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductImportRowDTO {
+
+    private static final String LIST_SEPARATOR = "\\|";
+
+    private String name;
+    private String description;
+    private String sku;
+    private String familyCode;
+    private String materialGroup;
+    private String packageType;
+    private Double conversionFactor;
+    private Double height;
+    private Double width;
+    private Double length;
+    private Double grossWeight;
+    private Integer wholesaleQuantity;
+    private String ean;
+    private Status status;
+    private List<ProductPriceDTO> prices;
+    private Integer stockQuantity;
+    private String brandSlug;
+    private List<String> categorySlugs;
+
+
+    public Product toProduct() {
+
+        Product product = ProductDTO.builder()
+                .name(name)
+                .description(description)
+                .sku(sku)
+                .familyCode(familyCode)
+                .materialGroup(materialGroup)
+                .packageType(packageType)
+                .conversionFactor(conversionFactor)
+                .height(height)
+                .width(width)
+                .length(length)
+                .grossWeight(grossWeight)
+                .wholesaleQuantity(wholesaleQuantity)
+                .ean(ean)
+                .build()
+                .toProduct();
+
+        if (status != null) {
+            product.setStatus(status);
+        }
+
+        if (prices != null) {
+            prices.forEach(price -> price.addProductPriceToProduct(product));
+        }
+
+        if (stockQuantity != null) {
+            new ProductStockDTO(stockQuantity).addProductStockToProduct(product);
+        }
+
+        return product;
+    }
+
+    public static ProductImportRowDTO fromCsv(Map<String, String> columns) {
+
+        return ProductImportRowDTO.builder()
+                .name(text(columns, "name"))
+                .description(text(columns, "description"))
+                .sku(text(columns, "sku"))
+                .familyCode(text(columns, "familyCode"))
+                .materialGroup(text(columns, "materialGroup"))
+                .packageType(text(columns, "packageType"))
+                .conversionFactor(parse(columns, "conversionFactor", Double::valueOf))
+                .height(parse(columns, "height", Double::valueOf))
+                .width(parse(columns, "width", Double::valueOf))
+                .length(parse(columns, "length", Double::valueOf))
+                .grossWeight(parse(columns, "grossWeight", Double::valueOf))
+                .wholesaleQuantity(parse(columns, "wholesaleQuantity", Integer::valueOf))
+                .ean(text(columns, "ean"))
+                .status(parse(columns, "status", Status::valueOf))
+                .prices(list(columns, "prices").stream().map(ProductImportRowDTO::price).toList())
+                .stockQuantity(parse(columns, "stockQuantity", Integer::valueOf))
+                .brandSlug(text(columns, "brandSlug"))
+                .categorySlugs(list(columns, "categorySlugs"))
+                .build();
+    }
+
+    private static ProductPriceDTO price(String pair) {
+
+        String[] parts = pair.split(":");
+
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid price, expected quantity:price but got: " + pair);
+        }
+
+        try {
+            return new ProductPriceDTO(Double.valueOf(parts[1].trim()), Integer.valueOf(parts[0].trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid price, expected quantity:price but got: " + pair);
+        }
+    }
+
+    private static String text(Map<String, String> columns, String column) {
+        String value = columns.get(column);
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static <T> T parse(Map<String, String> columns, String column, Function<String, T> parser) {
+
+        String value = text(columns, column);
+
+        try {
+            return value == null ? null : parser.apply(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Invalid value for column %s: %s", column, value));
+        }
+    }
+
+    private static List<String> list(Map<String, String> columns, String column) {
+
+        String value = text(columns, column);
+
+        if (value == null) {
+            return new ArrayList<>();
+        }
+
+        return Arrays.stream(value.split(LIST_SEPARATOR))
+                .map(String::trim)
+                .filter(v -> !v.isEmpty())
+                .toList();
+    }
+}
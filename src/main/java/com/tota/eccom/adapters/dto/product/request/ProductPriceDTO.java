@@ -8,7 +8,6 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
 import java.util.Objects;
 
 @Data
@@ -25,15 +24,11 @@ public class ProductPriceDTO {
 
         validate();
 
-        if (product.getProductPrices() == null) {
-            product.setProductPrices(new ArrayList<>());
-        }
-
-        if (product.getProductPrices().stream().anyMatch(pp -> Objects.equals(pp.getQuantity(), quantity))) {
+        if (product.getProductPrices() != null && product.getProductPrices().stream().anyMatch(pp -> Objects.equals(pp.getQuantity(), quantity))) {
             throw new IllegalArgumentException("Product price with given quantity already exists");
         }
 
-        product.getProductPrices().add(ProductPrice.builder()
+        product.addProductPrice(ProductPrice.builder()
                 .price(BigDecimal.valueOf(price))
                 .quantity(quantity)
                 .build());
@@ -30,7 +30,7 @@ public class ProductStockDTO {
 
     }
 
-    private void validate() {
+    public void validate() {
         if (quantity == null || quantity < 0) {
             throw new IllegalArgumentException("Quantity is required");
         }
@@ -0,0 +1,30 @@
+package com.tota.eccom.adapters.dto.product.response;
+
+import com.tota.eccom.domain.brand.model.Brand;
+import com.tota.eccom.domain.category.model.Category;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class FacetCountRespDTO {
+
+    private Long id;
+    private String slug;
+    private String name;
+    private long count;
+    private boolean selected;
+
+
+    public FacetCountRespDTO(Brand brand, long count, boolean selected) {
+        this(brand.getId(), brand.getSlug(), brand.getName(), count, selected);
+    }
+
+    public FacetCountRespDTO(Category category, long count, boolean selected) {
+        this(category.getId(), category.getSlug(), category.getName(), count, selected);
+    }
+}
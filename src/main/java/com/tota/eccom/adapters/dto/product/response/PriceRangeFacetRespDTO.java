@@ -0,0 +1,26 @@
+package com.tota.eccom.adapters.dto.product.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class PriceRangeFacetRespDTO {
+
+    // From inclusive, to exclusive, open when null
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private BigDecimal from;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private BigDecimal to;
+
+    private long count;
+    private boolean selected;
+}
@@ -0,0 +1,131 @@
+package com.tota.eccom.adapters.dto.product.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.tota.eccom.adapters.dto.product.request.ProductPriceDTO;
+import com.tota.eccom.domain.brand.model.Brand;
+import com.tota.eccom.domain.category.model.Category;
+import com.tota.eccom.domain.product.model.Product;
+import com.tota.eccom.domain.product.model.ProductStock;
+import com.tota.eccom.util.enums.Status;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/*
+    One product of a catalog export. Carries the same fields as ProductImportRowDTO, plus identifiers and
+    timestamps, so an export can be imported back. On CSV prices and category slugs are written as the import reads them.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class ProductExportRowDTO {
+
+    public static final List<String> CSV_COLUMNS = List.of(
+            "id", "name", "slug", "description", "sku", "familyCode", "materialGroup", "packageType",
+            "conversionFactor", "height", "width", "length", "grossWeight", "wholesaleQuantity", "ean", "status",
+            "prices", "stockQuantity", "reservedQuantity", "brandSlug", "categorySlugs", "createdAt", "updatedAt");
+
+    private Long id;
+    private String name;
+    private String slug;
+    private String description;
+    private String sku;
+    private String familyCode;
+    private String materialGroup;
+    private String packageType;
+    private Double conversionFactor;
+    private Double height;
+    private Double width;
+    private Double length;
+    private Double grossWeight;
+    private Integer wholesaleQuantity;
+    private String ean;
+    private Status status;
+    private List<ProductPriceDTO> prices;
+    private Integer stockQuantity;
+    private Integer reservedQuantity;
+    private String brandSlug;
+    private List<String> categorySlugs;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Date createdAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Date updatedAt;
+
+
+    public ProductExportRowDTO(Product p) {
+
+        ProductStock stock = p.getProductStock();
+        Brand brand = p.getBrand();
+
+        this.id = p.getId();
+        this.name = p.getName();
+        this.slug = p.getSlug();
+        this.description = p.getDescription();
+        this.sku = p.getSku();
+        this.familyCode = p.getFamilyCode();
+        this.materialGroup = p.getMaterialGroup();
+        this.packageType = p.getPackageType();
+        this.conversionFactor = p.getConversionFactor();
+        this.height = p.getHeight();
+        this.width = p.getWidth();
+        this.length = p.getLength();
+        this.grossWeight = p.getGrossWeight();
+        this.wholesaleQuantity = p.getWholesaleQuantity();
+        this.ean = p.getEan();
+        this.status = p.getStatus();
+        this.prices = p.getPriceTable().getTiers().stream()
+                .map(pp -> new ProductPriceDTO(pp.getPrice().doubleValue(), pp.getQuantity()))
+                .toList();
+        this.stockQuantity = stock != null ? stock.getQuantity() : null;
+        this.reservedQuantity = stock != null ? stock.getReservedQuantity() : null;
+        this.brandSlug = brand != null ? brand.getSlug() : null;
+        this.categorySlugs = p.getProductCategories() == null ? List.of() : p.getProductCategories().stream()
+                .map(Category::getSlug)
+                .toList();
+        this.createdAt = p.getCreatedAt();
+        this.updatedAt = p.getUpdatedAt();
+    }
+
+    public Map<String, Object> toCsvColumns() {
+
+        Map<String, Object> columns = new LinkedHashMap<>();
+
+        columns.put("id", id);
+        columns.put("name", name);
+        columns.put("slug", slug);
+        columns.put("description", description);
+        columns.put("sku", sku);
+        columns.put("familyCode", familyCode);
+        columns.put("materialGroup", materialGroup);
+        columns.put("packageType", packageType);
+        columns.put("conversionFactor", conversionFactor);
+        columns.put("height", height);
+        columns.put("width", width);
+        columns.put("length", length);
+        columns.put("grossWeight", grossWeight);
+        columns.put("wholesaleQuantity", wholesaleQuantity);
+        columns.put("ean", ean);
+        columns.put("status", status);
+        columns.put("prices", prices.stream()
+                .map(pp -> pp.getQuantity() + ":" + pp.getPrice())
+                .collect(Collectors.joining("|")));
+        columns.put("stockQuantity", stockQuantity);
+        columns.put("reservedQuantity", reservedQuantity);
+        columns.put("brandSlug", brandSlug);
+        columns.put("categorySlugs", String.join("|", categorySlugs));
+        columns.put("createdAt", createdAt != null ? createdAt.toInstant().toString() : null);
+        columns.put("updatedAt", updatedAt != null ? updatedAt.toInstant().toString() : null);
+
+        return columns;
+    }
+}
@@ -0,0 +1,21 @@
+package com.tota.eccom.adapters.dto.product.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class ProductFacetSearchRespDTO {
+
+    private Page<ProductRespDTO> products;
+    private List<FacetCountRespDTO> brands;
+    private List<FacetCountRespDTO> categories;
+    private List<PriceRangeFacetRespDTO> priceRanges;
+}
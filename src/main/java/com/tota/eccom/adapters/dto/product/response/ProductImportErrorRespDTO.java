@@ -0,0 +1,17 @@
+package com.tota.eccom.adapters.dto.product.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class ProductImportErrorRespDTO {
+
+    private Long line;
+    private String sku;
+    private String message;
+}
@@ -0,0 +1,47 @@
+package com.tota.eccom.adapters.dto.product.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class ProductImportReportRespDTO {
+
+    // Only the first errors are listed, so a badly formatted file can not grow the report without bound
+    public static final int MAX_ERRORS = 1000;
+
+    private long received;
+    private long imported;
+    private long failed;
+    private boolean errorsTruncated;
+
+    @Builder.Default
+    private List<ProductImportErrorRespDTO> errors = new ArrayList<>();
+
+
+    public void addReceived(long count) {
+        received += count;
+    }
+
+    public void addImported(long count) {
+        imported += count;
+    }
+
+    public void addError(Long line, String sku, String message) {
+
+        failed++;
+
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new ProductImportErrorRespDTO(line, sku, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+}
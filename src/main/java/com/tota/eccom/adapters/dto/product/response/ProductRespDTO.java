@@ -62,10 +62,10 @@ public class ProductRespDTO {
         this.sku = p.getSku();
         this.createdAt = p.getCreatedAt();
         this.updatedAt = p.getUpdatedAt();
-        this.productPrices = p.getProductPrices().stream().map(ProductPriceRespDTO::new).toList();
-        this.productStock = new ProductStockRespDTO(p.getProductStock());
-        this.productBrand = new BrandRespDTO(p.getBrand());
-        this.productCategories = p.getProductCategories().stream().map(CategoryRespDTO::new).toList();
+        this.productPrices = p.getPriceTable().getTiers().stream().map(ProductPriceRespDTO::new).toList();
+        this.productStock = p.getProductStock() != null ? new ProductStockRespDTO(p.getProductStock()) : null;
+        this.productBrand = p.getBrand() != null ? new BrandRespDTO(p.getBrand()) : null;
+        this.productCategories = p.getProductCategories() != null ? p.getProductCategories().stream().map(CategoryRespDTO::new).toList() : List.of();
     }
 
 }
@@ -15,10 +15,12 @@ public class ProductStockRespDTO {
 
     private Long id;
     private Integer available;
+    private boolean hot;
 
 
     public ProductStockRespDTO(ProductStock productStock) {
         this.id = productStock.getId();
         this.available = productStock.getQuantity() - productStock.getReservedQuantity();
+        this.hot = productStock.isHot();
     }
 }
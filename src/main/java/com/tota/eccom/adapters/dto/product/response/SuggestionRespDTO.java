@@ -0,0 +1,19 @@
+package com.tota.eccom.adapters.dto.product.response;
+
+import com.tota.eccom.domain.product.model.enums.SuggestionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class SuggestionRespDTO {
+
+    private SuggestionType type;
+    private Long id;
+    private String name;
+    private String slug;
+}
@@ -40,13 +40,15 @@ public class UserCreateDTO {
         PasswordUtil.validatePasswordsEx(password, confirmPassword);
     }
 
-    public User toUser() {
-        validate();
-
+    /**
+     * Builds the user with the given hash of its password, hashing runs on PasswordHasher. Validate first, the
+     * password is hashed from this DTO before it is built.
+     */
+    public User toUser(String passwordHash) {
         return User.builder()
                 .name(name)
                 .email(email)
-                .password(PasswordUtil.hashPassword(password))
+                .password(passwordHash)
                 .roles(new HashSet<>())
                 .status(Status.ACTIVE)
                 .build();
@@ -0,0 +1,30 @@
+package com.tota.eccom.adapters.dto.user.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class PasswordHashingStatsRespDTO {
+
+    private Integer cost;
+    private Long calibrationMillis;
+    private Integer threads;
+    private Integer activeThreads;
+    private Integer queueDepth;
+    private Integer queueCapacity;
+    private Long hashes;
+    private Long verifications;
+    private Long rehashes;
+    // Turned away with 503 because the queue was full or the wait timed out
+    private Long rejected;
+    private Double averageMillis;
+    private Long maxMillis;
+    // Time spent queued before a thread picked the work up
+    private Double averageWaitMillis;
+
+}
@@ -5,6 +5,7 @@ import com.tota.eccom.adapters.dto.brand.request.BrandDTO;
 import com.tota.eccom.adapters.dto.brand.response.BrandRespDTO;
 import com.tota.eccom.adapters.dto.product.response.ProductRespDTO;
 import com.tota.eccom.domain.brand.IBrandService;
+import com.tota.eccom.util.pagination.CursorPage;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -115,5 +116,25 @@ public class BrandController {
         return new ResponseEntity<>(brandDomain.getProductsByBrand(slug, pageable).map(ProductRespDTO::new), HttpStatus.OK);
     }
 
+    @GetMapping("/{slug}/products/cursor")
+    @Operation(
+            summary = "Get products by brand using a cursor",
+            description = "Retrieves a page of products with the specified brand, continuing after the given cursor. " +
+                    "No total count is computed unless an estimate is requested."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Products retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor"),
+            @ApiResponse(responseCode = "404", description = "Brand not found")
+    })
+    public ResponseEntity<CursorPage<ProductRespDTO>> getProductsByBrandCursor(
+            @PathVariable String slug,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean estimateTotal
+    ) {
+        return new ResponseEntity<>(brandDomain.getProductsByBrand(slug, cursor, size, estimateTotal).map(ProductRespDTO::new), HttpStatus.OK);
+    }
+
 
 }
@@ -1,8 +1,14 @@
 package com.tota.eccom.adapters.in;
 
+import com.tota.eccom.adapters.dto.cart.request.CartAddItemsReq;
 import com.tota.eccom.adapters.dto.cart.request.CartItemReqDTO;
+import com.tota.eccom.adapters.dto.cart.response.CartReservationStatsRespDTO;
 import com.tota.eccom.adapters.dto.cart.response.CartRespDTO;
+import com.tota.eccom.adapters.dto.cart.response.CartStoreStatsRespDTO;
 import com.tota.eccom.domain.cart.ICartService;
+import com.tota.eccom.domain.cart.reservation.CartReservationExpiry;
+import com.tota.eccom.domain.cart.store.CartStore;
+import com.tota.eccom.exceptions.generic.ResourceNotFoundException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -15,6 +21,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Optional;
+
 @RestController
 @RequestMapping("/cart")
 @RequiredArgsConstructor
@@ -22,6 +30,8 @@ import org.springframework.web.bind.annotation.*;
 public class CartController {
 
     private final ICartService cartDomain;
+    private final CartReservationExpiry cartReservationExpiry;
+    private final Optional<CartStore> cartStore;
 
 
     // Cart n Cart Item Operations
@@ -53,12 +63,31 @@ public class CartController {
             @ApiResponse(responseCode = "200", description = "Cart updated successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid input"),
             @ApiResponse(responseCode = "404", description = "Cart not found"),
+            @ApiResponse(responseCode = "409", description = "Not enough stock"),
             @ApiResponse(responseCode = "401", description = "Unauthorized")
     })
     public ResponseEntity<CartRespDTO> updateCartById(@PathVariable Long id, @RequestBody @Valid CartItemReqDTO cartItemReqDTO) {
         return new ResponseEntity<>(new CartRespDTO(cartDomain.updateCartById(id, cartItemReqDTO)), HttpStatus.OK);
     }
 
+    @PostMapping("/{id}/items")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(
+            summary = "Add items to cart by id",
+            description = "Adds, updates or removes (quantity 0) several items of the cart with the specified ID at once.",
+            security = @SecurityRequirement(name = "Authorization")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cart updated successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input"),
+            @ApiResponse(responseCode = "404", description = "Cart or product not found"),
+            @ApiResponse(responseCode = "409", description = "Not enough stock"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<CartRespDTO> addItemsToCartById(@PathVariable Long id, @RequestBody @Valid CartAddItemsReq cartAddItemsReq) {
+        return new ResponseEntity<>(new CartRespDTO(cartDomain.addItemsToCartById(id, cartAddItemsReq)), HttpStatus.OK);
+    }
+
 
     // Cart Operations
     @GetMapping
@@ -105,5 +134,34 @@ public class CartController {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    @GetMapping("/reservation/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Get cart reservation expiry statistics",
+            description = "Retrieves lag and throughput counters of the cart reservation expiry.",
+            security = @SecurityRequirement(name = "Authorization")
+    )
+    public ResponseEntity<CartReservationStatsRespDTO> getCartReservationStats() {
+        return new ResponseEntity<>(cartReservationExpiry.getStats(), HttpStatus.OK);
+    }
+
+    @GetMapping("/store/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Get cart store statistics",
+            description = "Retrieves flush lag and the changes not flushed yet of the write-behind cart store.",
+            security = @SecurityRequirement(name = "Authorization")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cart store statistics retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Write-behind cart store not enabled"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<CartStoreStatsRespDTO> getCartStoreStats() {
+        return cartStore
+                .map(store -> new ResponseEntity<>(store.getStats(), HttpStatus.OK))
+                .orElseThrow(() -> new ResourceNotFoundException("Write-behind cart store not enabled"));
+    }
+
 
 }
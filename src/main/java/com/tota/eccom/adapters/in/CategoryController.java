@@ -2,8 +2,10 @@ package com.tota.eccom.adapters.in;
 
 import com.tota.eccom.adapters.dto.category.request.CategoryDTO;
 import com.tota.eccom.adapters.dto.category.response.CategoryRespDTO;
+import com.tota.eccom.adapters.dto.category.response.CategoryTreeRespDTO;
 import com.tota.eccom.adapters.dto.product.response.ProductRespDTO;
 import com.tota.eccom.domain.category.ICategoryService;
+import com.tota.eccom.util.pagination.CursorPage;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -15,6 +17,8 @@ import org.springdoc.core.converters.models.PageableAsQueryParam;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -127,6 +131,28 @@ public class CategoryController {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    @GetMapping("/tree")
+    @Operation(
+            summary = "Get category tree",
+            description = "Retrieves the active category tree for menus and breadcrumbs, served from an in-memory snapshot. " +
+                    "Send the returned ETag in If-None-Match to get a 304 while the tree is unchanged."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Category tree retrieved successfully"),
+            @ApiResponse(responseCode = "304", description = "Category tree not modified")
+    })
+    public ResponseEntity<CategoryTreeRespDTO> getCategoryTree() {
+
+        CategoryTreeRespDTO tree = categoryDomain.getCategoryTree();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(tree.getEtag());
+        headers.setCacheControl(CacheControl.noCache().cachePublic());
+
+        // Spring answers 304 without a body when the request If-None-Match matches the ETag
+        return new ResponseEntity<>(tree, headers, HttpStatus.OK);
+    }
+
     // Category n Product Operations
     @GetMapping("/{slug}/products")
     @Operation(
@@ -142,6 +168,26 @@ public class CategoryController {
         return new ResponseEntity<>(categoryDomain.getProductsByCategory(slug, pageable).map(ProductRespDTO::new), HttpStatus.OK);
     }
 
+    @GetMapping("/{slug}/products/cursor")
+    @Operation(
+            summary = "Get products by category using a cursor",
+            description = "Retrieves a page of products with the specified category, continuing after the given cursor. " +
+                    "No total count is computed unless an estimate is requested."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Products retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor"),
+            @ApiResponse(responseCode = "404", description = "Category not found")
+    })
+    public ResponseEntity<CursorPage<ProductRespDTO>> getProductsByCategoryCursor(
+            @PathVariable String slug,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean estimateTotal
+    ) {
+        return new ResponseEntity<>(categoryDomain.getProductsByCategory(slug, cursor, size, estimateTotal).map(ProductRespDTO::new), HttpStatus.OK);
+    }
+
 
 
 
@@ -7,6 +7,10 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.HealthComponent;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.health.Status;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,9 +21,12 @@ import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping
+@RequiredArgsConstructor
 @Tag(name = "Health", description = "Endpoints for health check")
 public class HealthController {
 
+    private final HealthEndpoint healthEndpoint;
+
     @GetMapping("/")
     @Operation(summary = "Hello World")
     @ApiResponses(value = {
@@ -30,16 +37,21 @@ public class HealthController {
     }
 
     @GetMapping("/health")
-    @Operation(summary = "Health Check")
+    @Operation(summary = "Health Check", description = "Reports the readiness of the service, database included.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Service is running", content = @Content(schema = @Schema(implementation = HealthResp.class)))
+            @ApiResponse(responseCode = "200", description = "Service is running", content = @Content(schema = @Schema(implementation = HealthResp.class))),
+            @ApiResponse(responseCode = "503", description = "Service is not ready", content = @Content(schema = @Schema(implementation = HealthResp.class)))
     })
     public ResponseEntity<HealthResp> healthCheck() {
 
+        HealthComponent readiness = healthEndpoint.healthForPath("readiness");
+        Status status = readiness != null ? readiness.getStatus() : Status.UNKNOWN;
+        boolean up = Status.UP.equals(status);
+
         return new ResponseEntity<>(HealthResp.builder()
-                .status("UP")
-                .message("Service is running")
+                .status(status.getCode())
+                .message(up ? "Service is running" : "Service is not ready")
                 .timestamp(LocalDateTime.now())
-                .build(), HttpStatus.OK);
+                .build(), up ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE);
     }
 }
@@ -1,10 +1,21 @@
 package com.tota.eccom.adapters.in;
 
+import com.tota.eccom.adapters.dto.cache.response.CacheStatsRespDTO;
 import com.tota.eccom.adapters.dto.product.request.ProductDTO;
+import com.tota.eccom.adapters.dto.product.request.ProductFacetSearchReqDTO;
 import com.tota.eccom.adapters.dto.product.request.ProductPriceDTO;
 import com.tota.eccom.adapters.dto.product.request.ProductStockDTO;
+import com.tota.eccom.adapters.dto.product.response.ProductImportReportRespDTO;
+import com.tota.eccom.adapters.dto.product.response.ProductFacetSearchRespDTO;
 import com.tota.eccom.adapters.dto.product.response.ProductRespDTO;
+import com.tota.eccom.adapters.dto.product.response.SuggestionRespDTO;
+import com.tota.eccom.domain.product.IProductExportService;
+import com.tota.eccom.domain.product.IProductImportService;
 import com.tota.eccom.domain.product.IProductService;
+import com.tota.eccom.domain.product.cache.ProductViewCache;
+import com.tota.eccom.domain.product.model.enums.ProductFileFormat;
+import com.tota.eccom.domain.product.suggest.ProductSuggestIndex;
+import com.tota.eccom.util.pagination.CursorPage;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -12,14 +23,24 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springdoc.core.converters.models.PageableAsQueryParam;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/product")
@@ -28,6 +49,9 @@ import org.springframework.web.bind.annotation.*;
 public class ProductController {
 
     private final IProductService productDomain;
+    private final ProductViewCache productViewCache;
+    private final IProductImportService productImportDomain;
+    private final IProductExportService productExportDomain;
 
     // Product Admin Operations
     @PostMapping
@@ -46,6 +70,60 @@ public class ProductController {
         return new ResponseEntity<>(new ProductRespDTO(productDomain.createProduct(productDTO)), HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Import products in bulk",
+            description = "Imports products with prices, stock, brand and categories from a NDJSON or CSV stream. " +
+                    "Rows are imported in chunks and rows that fail are reported by line without stopping the import.",
+            security = @SecurityRequirement(name = "Authorization")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import finished, see the report for rows that failed"),
+            @ApiResponse(responseCode = "400", description = "Unsupported content type"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<ProductImportReportRespDTO> importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                                     InputStream body) throws IOException {
+        return new ResponseEntity<>(productImportDomain.importProducts(body, ProductFileFormat.fromContentType(contentType)), HttpStatus.OK);
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Export all products",
+            description = "Streams every product with prices, stock, brand and categories as NDJSON or CSV, " +
+                    "optionally gzip compressed. The file uses the same columns as the import.",
+            security = @SecurityRequirement(name = "Authorization")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Products streamed successfully"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(defaultValue = "NDJSON") ProductFileFormat format,
+            @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        String filename = "products." + format.getExtension() + (gzip ? ".gz" : "");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.getContentType()));
+        headers.setContentDisposition(ContentDisposition.attachment().filename(filename).build());
+
+        StreamingResponseBody body = output -> {
+            if (!gzip) {
+                productExportDomain.exportProducts(output, format);
+                return;
+            }
+
+            GZIPOutputStream gzipOutput = new GZIPOutputStream(output, 64 * 1024);
+            productExportDomain.exportProducts(gzipOutput, format);
+            gzipOutput.finish();
+        };
+
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(
@@ -54,7 +132,7 @@ public class ProductController {
             security = @SecurityRequirement(name = "Authorization")
     )
     public ResponseEntity<ProductRespDTO> getProductById(@PathVariable Long id) {
-        return new ResponseEntity<>(new ProductRespDTO(productDomain.getProductById(id)), HttpStatus.OK);
+        return new ResponseEntity<>(productDomain.getProductViewById(id), HttpStatus.OK);
     }
 
     @DeleteMapping("/{id}")
@@ -108,6 +186,19 @@ public class ProductController {
         return new ResponseEntity<>(new ProductRespDTO(productDomain.patchProductById(id, productDTO)), HttpStatus.OK);
     }
 
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Get product cache statistics",
+            description = "Retrieves size, hit and miss counters of the product view caches.",
+            security = @SecurityRequirement(name = "Authorization")
+    )
+    public ResponseEntity<List<CacheStatsRespDTO>> getProductCacheStats() {
+        return new ResponseEntity<>(List.of(
+                new CacheStatsRespDTO("product-by-slug", productViewCache.getSlugSize(), productViewCache.getSlugStats()),
+                new CacheStatsRespDTO("product-by-id", productViewCache.getIdSize(), productViewCache.getIdStats())
+        ), HttpStatus.OK);
+    }
 
     //Product Price Admin Operations
     @PostMapping("/{id}/price")
@@ -163,6 +254,41 @@ public class ProductController {
         return new ResponseEntity<>(new ProductRespDTO(productDomain.addProductStockToProduct(id, productStockDTO)), HttpStatus.CREATED);
     }
 
+    @PostMapping("/{id}/stock/hot")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Enable hot stock mode",
+            description = "Serves the stock reservations of the product with the specified ID from striped in-memory " +
+                    "counters, for flash sales where many carts reserve the same product at once.",
+            security = @SecurityRequirement(name = "Authorization")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Hot stock mode enabled successfully"),
+            @ApiResponse(responseCode = "404", description = "Product or product stock not found"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<ProductRespDTO> enableProductStockHot(@PathVariable Long id) {
+        return new ResponseEntity<>(new ProductRespDTO(productDomain.setProductStockHot(id, true)), HttpStatus.OK);
+    }
+
+    @DeleteMapping("/{id}/stock/hot")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Disable hot stock mode",
+            description = "Gives the unsold in-memory stock of the product with the specified ID back to its stock row " +
+                    "and reserves on it again.",
+            security = @SecurityRequirement(name = "Authorization")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Hot stock mode disabled successfully"),
+            @ApiResponse(responseCode = "404", description = "Product or product stock not found"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<Void> disableProductStockHot(@PathVariable Long id) {
+        productDomain.setProductStockHot(id, false);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
     // Product n Category Operations
     @PostMapping("/{id}/category/{categoryId}")
     @PreAuthorize("hasRole('ADMIN')")
@@ -210,7 +336,7 @@ public class ProductController {
             @ApiResponse(responseCode = "404", description = "Product not found")
     })
     public ResponseEntity<ProductRespDTO> getProductBySlug(@PathVariable String slug) {
-        return new ResponseEntity<>(new ProductRespDTO(productDomain.getProductBySlug(slug)), HttpStatus.OK);
+        return new ResponseEntity<>(productDomain.getProductViewBySlug(slug), HttpStatus.OK);
     }
 
 
@@ -230,4 +356,59 @@ public class ProductController {
         return new ResponseEntity<>(productDomain.searchProductsByTerm(term, pageable).map(ProductRespDTO::new), HttpStatus.OK);
     }
 
+    @GetMapping("/search/{term}/cursor")
+    @Operation(
+            summary = "Search products by term using a cursor",
+            description = "Retrieves a page of products that match the specified term, continuing after the given cursor. " +
+                    "No total count is computed unless an estimate is requested."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Products retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    })
+    public ResponseEntity<CursorPage<ProductRespDTO>> searchProductsByTermCursor(
+            @PathVariable String term,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean estimateTotal
+    ) {
+        return new ResponseEntity<>(productDomain.searchProductsByTerm(term, cursor, size, estimateTotal).map(ProductRespDTO::new), HttpStatus.OK);
+    }
+
+    @GetMapping("/search")
+    @Operation(
+            summary = "Search products with facets",
+            description = "Retrieves a page of products filtered by term, brands, categories and price range, " +
+                    "along with product counts per brand, category and price range. " +
+                    "Each facet is counted with every filter applied except its own."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Products retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid price range"),
+            @ApiResponse(responseCode = "404", description = "Brand or category not found")
+    })
+    @PageableAsQueryParam
+    public ResponseEntity<ProductFacetSearchRespDTO> searchProductsWithFacets(
+            @ParameterObject ProductFacetSearchReqDTO request,
+            @PageableDefault(size = 20, page = 0) Pageable pageable
+    ) {
+        return new ResponseEntity<>(productDomain.searchProductsWithFacets(request, pageable), HttpStatus.OK);
+    }
+
+    @GetMapping("/suggest")
+    @Operation(
+            summary = "Suggest products, brands and categories by prefix",
+            description = "Retrieves type-ahead suggestions whose name has a word starting with the given prefix, most popular first. " +
+                    "Prefixes shorter than " + ProductSuggestIndex.MIN_PREFIX_LENGTH + " characters return no suggestions."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Suggestions retrieved successfully")
+    })
+    public ResponseEntity<List<SuggestionRespDTO>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return new ResponseEntity<>(productDomain.suggest(prefix, limit), HttpStatus.OK);
+    }
+
 }
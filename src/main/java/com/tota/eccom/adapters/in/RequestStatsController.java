@@ -0,0 +1,61 @@
+package com.tota.eccom.adapters.in;
+
+import com.tota.eccom.adapters.dto.metrics.response.RequestStatsRespDTO;
+import com.tota.eccom.metrics.AccessLog;
+import com.tota.eccom.metrics.RouteLatencyRegistry;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/request")
+@RequiredArgsConstructor
+@Tag(name = "Request", description = "Endpoints for request latency and access log statistics")
+public class RequestStatsController {
+
+    private final RouteLatencyRegistry routeLatencyRegistry;
+    private final AccessLog accessLog;
+
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Get request statistics",
+            description = "Retrieves latency percentiles per route, method and status, and the access log counters.",
+            security = @SecurityRequirement(name = "Authorization")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Request statistics retrieved successfully"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<RequestStatsRespDTO> getRequestStats() {
+        return new ResponseEntity<>(RequestStatsRespDTO.builder()
+                .since(routeLatencyRegistry.getSince())
+                .accessLog(accessLog.getStats())
+                .routes(routeLatencyRegistry.getStats())
+                .build(), HttpStatus.OK);
+    }
+
+    @DeleteMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Reset request latency statistics",
+            description = "Starts the latency histograms of every route over.",
+            security = @SecurityRequirement(name = "Authorization")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Request latency statistics reset successfully"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<Void> resetRequestStats() {
+        routeLatencyRegistry.reset();
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+}
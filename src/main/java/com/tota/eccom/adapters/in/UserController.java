@@ -3,6 +3,7 @@ package com.tota.eccom.adapters.in;
 import com.tota.eccom.adapters.dto.user.request.UserCreateDTO;
 import com.tota.eccom.adapters.dto.user.request.UserLoginDTO;
 import com.tota.eccom.adapters.dto.user.request.UserUpdateDTO;
+import com.tota.eccom.adapters.dto.user.response.PasswordHashingStatsRespDTO;
 import com.tota.eccom.adapters.dto.user.response.UserLoginRespDTO;
 import com.tota.eccom.adapters.dto.user.response.UserRespDTO;
 import com.tota.eccom.domain.user.IUserService;
@@ -34,7 +35,8 @@ public class UserController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "User created successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid input"),
-            @ApiResponse(responseCode = "500", description = "Internal server error")
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "503", description = "Too many password operations in progress")
     })
     public ResponseEntity<UserRespDTO> createUser(@RequestBody @Valid UserCreateDTO userCreateDTO) {
         return new ResponseEntity<>(new UserRespDTO(userDomain.createUser(userCreateDTO)), HttpStatus.CREATED);
@@ -121,6 +123,18 @@ public class UserController {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    @GetMapping("/admin/password-hashing/stats")
+    @Operation(summary = "Get password hashing stats", description = "Fetches the BCrypt cost, queue depth and hash latency of password hashing.", security = @SecurityRequirement(name = "Authorization"))
+    @PreAuthorize("hasRole('ADMIN')")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully fetched password hashing stats"),
+            @ApiResponse(responseCode = "403", description = "Forbidden"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+    })
+    public ResponseEntity<PasswordHashingStatsRespDTO> getPasswordHashingStats() {
+        return new ResponseEntity<>(userDomain.getPasswordHashingStats(), HttpStatus.OK);
+    }
+
     // Login and Logout Operations
 
     @PostMapping("/login")
@@ -129,7 +143,8 @@ public class UserController {
             @ApiResponse(responseCode = "200", description = "User logged in successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid input"),
             @ApiResponse(responseCode = "401", description = "Unauthorized"),
-            @ApiResponse(responseCode = "500", description = "Internal server error")
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "503", description = "Too many password operations in progress")
     })
     public ResponseEntity<UserLoginRespDTO> loginUser(@RequestBody @Valid UserLoginDTO userLoginDTO) {
         return new ResponseEntity<>(userDomain.loginUser(userLoginDTO), HttpStatus.OK);
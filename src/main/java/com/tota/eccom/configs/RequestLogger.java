@@ -1,48 +1,92 @@
 package com.tota.eccom.configs;
 
+import com.tota.eccom.metrics.AccessLog;
+import com.tota.eccom.metrics.RouteLatencyRegistry;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
-import lombok.extern.slf4j.Slf4j;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
 
 import java.io.IOException;
 
+/*
+    Times every request in nanoseconds and records it in the latency histogram of its route, then hands it to the
+    async access log. Nothing here formats or does I/O on the request thread. An async request is recorded when it
+    completes, not when its first dispatch returns.
+ */
 @Component
-@Slf4j
+@RequiredArgsConstructor
 public class RequestLogger implements Filter {
 
+    private final RouteLatencyRegistry routeLatencyRegistry;
+    private final AccessLog accessLog;
+
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
 
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
+        boolean failed = true;
 
-        chain.doFilter(request, response);
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && httpRequest.isAsyncStarted()) {
+                httpRequest.getAsyncContext().addListener(new CompletionListener(httpRequest, httpResponse, startTime));
+            } else {
+                record(httpRequest, failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : httpResponse.getStatus(),
+                        System.nanoTime() - startTime);
+            }
+        }
+    }
 
-        long duration = System.currentTimeMillis() - startTime;
+    private void record(HttpServletRequest request, int status, long nanos) {
 
-        String remoteAddr = getClientIp(httpRequest);
+        String route = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
 
-        log.info("[{}] {}{} | IP: {} | Duration: {} ms",
-                httpRequest.getMethod(),
-                httpRequest.getRequestURI(),
-                httpRequest.getQueryString() != null ? "?" + httpRequest.getQueryString() : "",
-                remoteAddr,
-                duration);
+        routeLatencyRegistry.record(request.getMethod(), route, status, nanos);
+        accessLog.offer(request.getMethod(),
+                request.getRequestURI(),
+                request.getQueryString(),
+                status,
+                nanos,
+                request.getHeader("X-Forwarded-For"),
+                request.getHeader("X-Real-IP"),
+                request.getRemoteAddr());
     }
 
-    private String getClientIp(HttpServletRequest request) {
-        String ipAddress = request.getHeader("X-Forwarded-For");
-        if (ipAddress == null || ipAddress.isEmpty() || "unknown".equalsIgnoreCase(ipAddress)) {
-            ipAddress = request.getHeader("X-Real-IP");
+    private final class CompletionListener implements AsyncListener {
+
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final long startTime;
+
+        private CompletionListener(HttpServletRequest request, HttpServletResponse response, long startTime) {
+            this.request = request;
+            this.response = response;
+            this.startTime = startTime;
         }
-        if (ipAddress == null || ipAddress.isEmpty() || "unknown".equalsIgnoreCase(ipAddress)) {
-            ipAddress = request.getRemoteAddr();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            record(request, response.getStatus(), System.nanoTime() - startTime);
         }
-        if (ipAddress != null && ipAddress.contains(",")) {
-            ipAddress = ipAddress.split(",")[0];
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
         }
-        return ipAddress;
     }
 }
@@ -3,6 +3,7 @@ package com.tota.eccom.domain.brand;
 import com.tota.eccom.adapters.dto.brand.request.BrandDTO;
 import com.tota.eccom.domain.product.model.Product;
 import com.tota.eccom.domain.brand.model.Brand;
+import com.tota.eccom.util.pagination.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
@@ -22,4 +23,6 @@ public interface IBrandService {
     Brand getBrandBySlug(String slug);
 
     Page<Product> getProductsByBrand(String slug, Pageable pageable);
+
+    CursorPage<Product> getProductsByBrand(String slug, String cursor, int size, boolean estimateTotal);
 }
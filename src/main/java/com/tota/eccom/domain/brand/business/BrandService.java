@@ -4,19 +4,29 @@ import com.tota.eccom.adapters.dto.brand.request.BrandDTO;
 import com.tota.eccom.domain.brand.IBrandService;
 import com.tota.eccom.domain.brand.model.Brand;
 import com.tota.eccom.domain.brand.repository.BrandRepository;
+import com.tota.eccom.domain.product.cache.ProductViewCache;
 import com.tota.eccom.domain.product.model.Product;
+import com.tota.eccom.domain.product.model.ProductListing;
+import com.tota.eccom.domain.product.repository.ProductFetchPlan;
+import com.tota.eccom.domain.product.repository.ProductListingRepository;
 import com.tota.eccom.domain.product.repository.ProductRepository;
+import com.tota.eccom.domain.product.repository.ProductSearchRepository;
+import com.tota.eccom.domain.product.suggest.ProductSuggestIndex;
 import com.tota.eccom.exceptions.generic.ResourceAlreadyExistsException;
 import com.tota.eccom.exceptions.generic.ResourceNotFoundException;
 import com.tota.eccom.util.SlugUtil;
 import com.tota.eccom.util.enums.Status;
+import com.tota.eccom.util.pagination.Cursor;
+import com.tota.eccom.util.pagination.CursorPage;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.Optional;
 
 @Component
@@ -27,6 +37,10 @@ public class BrandService implements IBrandService {
 
     private final BrandRepository brandRepository;
     private final ProductRepository productRepository;
+    private final ProductListingRepository productListingRepository;
+    private final ProductSearchRepository productSearchRepository;
+    private final ProductViewCache productViewCache;
+    private final ProductSuggestIndex productSuggestIndex;
 
 
     @Override
@@ -41,7 +55,10 @@ public class BrandService implements IBrandService {
 
         log.info("Creating brand: {}", brand);
 
-        return brandRepository.save(brand);
+        Brand savedBrand = brandRepository.save(brand);
+        productSuggestIndex.putBrand(savedBrand, 0L);
+
+        return savedBrand;
     }
 
     @Override
@@ -60,6 +77,8 @@ public class BrandService implements IBrandService {
         brand.setStatus(Status.DELETED);
 
         brandRepository.save(brand);
+        productViewCache.evictAll();
+        productSuggestIndex.putBrand(brand, 0L);
     }
 
     @Override
@@ -76,7 +95,12 @@ public class BrandService implements IBrandService {
 
         log.info("Updating brand: {}", brand);
 
-        return brandRepository.save(brand);
+        productViewCache.evictAll();
+
+        Brand savedBrand = brandRepository.save(brand);
+        productSuggestIndex.putBrand(savedBrand, productListingRepository.countSellableByBrandId(id));
+
+        return savedBrand;
     }
 
     @Override
@@ -85,11 +109,40 @@ public class BrandService implements IBrandService {
     }
 
     @Override
+    @Transactional
     public Page<Product> getProductsByBrand(String slug, Pageable pageable) {
 
         Brand brand = getBrandBySlug(slug);
 
-        return productRepository.findByProductsByBrandId(brand.getId(), pageable);
+        Page<ProductListing> listings = productListingRepository.findSellableByBrandId(brand.getId(), pageable);
+
+        return new PageImpl<>(findAllByIdInOrder(listings.getContent()), pageable, listings.getTotalElements());
+    }
+
+    @Override
+    @Transactional
+    public CursorPage<Product> getProductsByBrand(String slug, String cursor, int size, boolean estimateTotal) {
+
+        Brand brand = getBrandBySlug(slug);
+
+        Cursor after = Cursor.decodeOrStart(cursor);
+
+        List<ProductListing> listings = productListingRepository.findSellableByBrandIdAfter(
+                brand.getId(), after.sortKey(), after.id(), CursorPage.limitOf(size));
+
+        Long estimatedTotal = estimateTotal
+                ? productSearchRepository.estimateProductsByBrandId(brand.getId())
+                .orElseGet(() -> productListingRepository.countSellableByBrandId(brand.getId()))
+                : null;
+
+        CursorPage<ProductListing> page = CursorPage.of(listings, size, l -> new Cursor(l.getName(), l.getProductId()), estimatedTotal);
+
+        return page.withContent(findAllByIdInOrder(page.getContent()));
+    }
+
+    private List<Product> findAllByIdInOrder(List<ProductListing> listings) {
+        return ProductFetchPlan.initializeAll(productRepository.findAllByIdInOrder(
+                listings.stream().map(ProductListing::getProductId).toList()));
     }
 
     private void validateExistingSlug(String slug, Long id) {
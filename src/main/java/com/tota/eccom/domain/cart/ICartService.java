@@ -1,5 +1,6 @@
 package com.tota.eccom.domain.cart;
 
+import com.tota.eccom.adapters.dto.cart.request.CartAddItemsReq;
 import com.tota.eccom.adapters.dto.cart.request.CartItemReqDTO;
 import com.tota.eccom.domain.cart.model.Cart;
 import org.springframework.stereotype.Component;
@@ -16,4 +17,9 @@ public interface ICartService {
     void deleteCartItemById(Long id, Long itemId);
 
     Cart updateCartById(Long id, CartItemReqDTO cartItemReqDTO);
+
+    /**
+     * Applies every item change in one transaction, the same way {@link #updateCartById} applies one.
+     */
+    Cart addItemsToCartById(Long id, CartAddItemsReq cartAddItemsReq);
 }
@@ -1,5 +1,6 @@
 package com.tota.eccom.domain.cart.business;
 
+import com.tota.eccom.adapters.dto.cart.request.CartAddItemsReq;
 import com.tota.eccom.adapters.dto.cart.request.CartItemReqDTO;
 import com.tota.eccom.domain.cart.ICartService;
 import com.tota.eccom.domain.cart.model.Cart;
@@ -7,22 +8,27 @@ import com.tota.eccom.domain.cart.model.CartItem;
 import com.tota.eccom.domain.cart.model.enums.CartStatus;
 import com.tota.eccom.domain.cart.repository.CartItemRepository;
 import com.tota.eccom.domain.cart.repository.CartRepository;
-import com.tota.eccom.domain.cart.repository.spec.CartSpecification;
+import com.tota.eccom.domain.cart.repository.CurrentCartRepository;
+import com.tota.eccom.domain.cart.reservation.CartReservationExpiry;
 import com.tota.eccom.domain.product.IProductService;
 import com.tota.eccom.domain.product.model.Product;
 import com.tota.eccom.domain.product.model.ProductPrice;
+import com.tota.eccom.domain.product.repository.ProductFetchPlan;
 import com.tota.eccom.domain.user.IUserService;
-import com.tota.eccom.domain.user.model.User;
 import com.tota.eccom.exceptions.generic.ResourceNotFoundException;
 import com.tota.eccom.util.enums.Status;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
@@ -31,82 +37,206 @@ public class CartService implements ICartService {
 
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
+    private final CurrentCartRepository currentCartRepository;
     private final IUserService userDomain;
     private final IProductService productDomain;
+    private final CartReservationExpiry cartReservationExpiry;
+
+    // A current cart nobody changed for this long is retired and a new one is started
+    private static final long CURRENT_CART_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    // Checks every incremental total against a full recompute, for tests
+    @Value("${CART_TOTALS_VERIFY:false}")
+    private boolean verifyTotals;
+
+    // A cart line as it was before a change
+    private record Line(int quantity, BigDecimal price) {
+
+        BigDecimal total() {
+            return price.multiply(BigDecimal.valueOf(quantity));
+        }
+    }
 
 
     @Override
     @Transactional
     public Cart getCartByUser() {
-        return getOrCreateCartByUserId(userDomain.getUserLogged())
+        return getOrCreateCartByUserId(userDomain.getUserLoggedId())
+                .map(this::initializeCart)
                 .orElseThrow(() -> new ResourceNotFoundException("Unable to get cart"));
     }
 
     @Override
+    @Transactional
     public Cart getCartById(Long id) {
-        return cartRepository.findByIdAndCartStatusAndUserId(id, CartStatus.CART, userDomain.getUserLogged().getId())
+        return cartRepository.findByIdAndCartStatusAndUserId(id, CartStatus.CART, userDomain.getUserLoggedId())
+                .map(this::initializeCart)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart not found with given id: " + id));
     }
 
     @Override
     @Transactional
     public void deleteCartById(Long id) {
-        Cart cart = getCartById(id);
+        Cart cart = getCartForUpdate(id);
+        Map<Long, Integer> held = heldQuantitiesOf(cart);
+
         cart.setStatus(Status.DELETED);
+
+        if (!held.isEmpty()) {
+            productDomain.releaseStock(held);
+        }
+
+        cart.setReservationExpiresAt(null);
         cartRepository.save(cart);
     }
 
     @Override
     @Transactional
     public void deleteCartItemById(Long id, Long itemId) {
-        Cart cart = getCartById(id);
+        Cart cart = getCartForUpdate(id);
 
-        if (cart.getItems() == null || cart.getItems().stream().noneMatch(ci -> ci.getId().equals(itemId))) {
-            throw new ResourceNotFoundException(String.format("Cart item with id %s not found", itemId));
-        }
-
-        cart.getItems().removeIf(ci -> ci.getId().equals(itemId));
+        removeItem(cart, itemId);
         cartRepository.save(cart);
     }
 
     @Override
     @Transactional
     public Cart updateCartById(Long id, CartItemReqDTO cartItemReqDTO) {
-        Cart cart = getCartById(id);
+        Cart cart = getCartForUpdate(id);
+
+        applyItemChanges(cart, changesOf(List.of(cartItemReqDTO)));
+
+        return initializeCart(cartRepository.save(cart));
+    }
+
+    @Override
+    @Transactional
+    public Cart addItemsToCartById(Long id, CartAddItemsReq cartAddItemsReq) {
+        Cart cart = getCartForUpdate(id);
+
+        applyItemChanges(cart, changesOf(cartAddItemsReq.getItems()));
+
+        return initializeCart(cartRepository.save(cart));
+    }
 
-        processCartItem(cartItemReqDTO, cart);
-        sumCartItems(cart);
+    // The last change of a product wins
+    static Map<Long, Integer> changesOf(List<CartItemReqDTO> items) {
 
-        return cartRepository.save(cart);
+        Map<Long, Integer> changes = new LinkedHashMap<>();
+        items.forEach(item -> changes.put(item.getProductId(), item.getQuantity()));
+
+        return changes;
     }
 
-    private Product getProductById(Long id) {
-        return productDomain.getProductById(id);
+    /**
+     * Applies quantity changes by product id to a loaded cart, 0 or less removes the line, without saving the cart.
+     * Prices the changed lines, updates the totals and the stock reservation. Runs in the caller's transaction.
+     */
+    void applyItemChanges(Cart cart, Map<Long, Integer> changes) {
+
+        Map<Long, Integer> held = heldQuantitiesOf(cart);
+        Map<Long, Line> lines = linesOf(cart);
+
+        Map<Long, Product> products = productDomain.getProductsByIds(changes.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        if (cart.getItems() == null) {
+            cart.setItems(new ArrayList<>());
+        }
+
+        Map<Long, CartItem> itemsByProductId = cart.getItems().stream()
+                .collect(Collectors.toMap(ci -> ci.getProduct().getId(), Function.identity()));
+
+        List<CartItem> added = new ArrayList<>();
+
+        changes.forEach((productId, quantity) -> {
+
+            Product product = products.get(productId);
+            CartItem cartItem = itemsByProductId.get(productId);
+
+            if (cartItem == null) {
+                if (quantity > 0) {
+                    added.add(CartItem.builder()
+                            .product(product)
+                            .quantity(quantity)
+                            .price(getProductPriceByQuantity(product, quantity).getPrice())
+                            .build());
+                }
+            } else if (quantity <= 0) {
+                log.info("Removing cart item id {}, product id {}", cartItem.getId(), productId);
+                cart.getItems().remove(cartItem);
+            } else {
+                cartItem.setQuantity(quantity);
+                cartItem.setPrice(getProductPriceByQuantity(product, quantity).getPrice());
+            }
+        });
+
+        log.info("Applying {} item changes to cart id {}, {} new items", changes.size(), cart.getId(), added.size());
+
+        // New items go out in JDBC batches (hibernate.jdbc.batch_size), totals are updated once
+        cart.getItems().addAll(cartItemRepository.saveAll(added));
+        updateTotals(cart, lines);
+        updateReservation(cart, held);
     }
 
-    private void processCartItem(CartItemReqDTO cartItemReqDTO, Cart cart) {
+    /**
+     * Removes a line of a loaded cart without saving the cart, keeping its totals and reservation in step.
+     */
+    void removeItem(Cart cart, Long itemId) {
+
+        if (cart.getItems() == null || cart.getItems().stream().noneMatch(ci -> ci.getId().equals(itemId))) {
+            throw new ResourceNotFoundException(String.format("Cart item with id %s not found", itemId));
+        }
 
-        Product product = getProductById(cartItemReqDTO.getProductId());
+        Map<Long, Integer> held = heldQuantitiesOf(cart);
+        Map<Long, Line> lines = linesOf(cart);
 
-        if (cart.getItems() == null || cart.getItems().stream().noneMatch(ci -> ci.getProduct().getId().equals(product.getId()))) {
-            addItemToCart(product, cartItemReqDTO.getQuantity(), cart);
-            return;
+        cart.getItems().removeIf(ci -> ci.getId().equals(itemId));
+        updateTotals(cart, lines);
+        updateReservation(cart, held);
+    }
+
+    // Locks the cart row, so an update never runs while the expiry releases its reservation
+    private Cart getCartForUpdate(Long id) {
+        return cartRepository.findForUpdateByIdAndCartStatusAndUserId(id, CartStatus.CART, userDomain.getUserLoggedId())
+                .map(this::initializeCart)
+                .orElseThrow(() -> new ResourceNotFoundException("Cart not found with given id: " + id));
+    }
+
+    // What the cart has reserved, nothing once its reservation expired
+    private Map<Long, Integer> heldQuantitiesOf(Cart cart) {
+        return cart.getReservationExpiresAt() == null ? Map.of() : cart.getProductQuantities();
+    }
+
+    // Reserves or releases the difference between what the cart held and what it holds now, and pushes its deadline
+    private void updateReservation(Cart cart, Map<Long, Integer> held) {
+
+        Map<Long, Integer> wanted = cart.getProductQuantities();
+        Map<Long, Integer> reserve = new HashMap<>();
+        Map<Long, Integer> release = new HashMap<>();
+
+        Set<Long> productIds = new HashSet<>(held.keySet());
+        productIds.addAll(wanted.keySet());
+
+        for (Long productId : productIds) {
+            int delta = wanted.getOrDefault(productId, 0) - held.getOrDefault(productId, 0);
+
+            if (delta > 0) {
+                reserve.put(productId, delta);
+            } else if (delta < 0) {
+                release.put(productId, -delta);
+            }
         }
 
-        if (cartItemReqDTO.getQuantity() == 0 || cartItemReqDTO.getQuantity() < 0) {
-            log.info("Removing cart item id {}, product id {}", cart.getId(), product.getId());
-            cart.getItems().removeIf(ci -> ci.getProduct().getId().equals(product.getId()));
-            return;
+        if (!release.isEmpty()) {
+            productDomain.releaseStock(release);
         }
 
-        cart.getItems().stream()
-                .filter(ci -> ci.getProduct().getId().equals(product.getId()))
-                .findFirst()
-                .ifPresent(cartItem -> {
-                    log.info("Updating cart item id {}, product id {}, quantity {}", cartItem.getId(), product.getId(), cartItemReqDTO.getQuantity());
-                    cartItem.setQuantity(cartItemReqDTO.getQuantity());
-                    cartItem.setPrice(getProductPriceByQuantity(product, cartItem.getQuantity()).getPrice());
-                });
+        if (!reserve.isEmpty()) {
+            productDomain.reserveStock(reserve);
+        }
+
+        cart.setReservationExpiresAt(wanted.isEmpty() ? null : cartReservationExpiry.deadlineFromNow());
     }
 
     private ProductPrice getProductPriceByQuantity(Product product, Integer quantity) {
@@ -117,23 +247,101 @@ public class CartService implements ICartService {
                 });
     }
 
-    private void addItemToCart(Product product, Integer quantity, Cart cart) {
+    private Map<Long, Line> linesOf(Cart cart) {
 
-        CartItem cartItem = CartItem.builder()
-                .product(product)
-                .quantity(quantity)
-                .price(getProductPriceByQuantity(product, quantity).getPrice())
-                .build();
+        Map<Long, Line> lines = new HashMap<>();
 
-        log.info("Adding item to cart id {}, product id {}, quantity {}", cartItem.getId(), product.getId(), quantity);
+        if (cart.getItems() != null) {
+            cart.getItems().forEach(ci -> lines.put(ci.getProduct().getId(), new Line(ci.getQuantity(), ci.getPrice())));
+        }
 
-        if (cart.getItems() == null) {
-            cart.setItems(new ArrayList<>());
+        return lines;
+    }
+
+    // Applies the lines that changed since the given ones to the totals, changed lines are already priced. Every line
+    // is repriced instead when the price of a line left as it was changed since the cart was last priced.
+    private void updateTotals(Cart cart, Map<Long, Line> before) {
+
+        if (isPricingStale(cart, before.keySet())) {
+            log.info("Repricing every line of cart id {}", cart.getId());
+            sumCartItems(cart);
+            cart.setPricedAt(new Date());
+        } else {
+            Map<Long, Line> removed = new HashMap<>(before);
+            int itemsCount = cart.getItemsCount();
+            BigDecimal totalItems = cart.getTotalItems();
+
+            for (CartItem ci : cart.getItems()) {
+
+                Line previous = removed.remove(ci.getProduct().getId());
+
+                if (previous != null && previous.quantity() == ci.getQuantity() && previous.price().compareTo(ci.getPrice()) == 0) {
+                    continue;
+                }
+
+                if (previous != null) {
+                    itemsCount -= previous.quantity();
+                    totalItems = totalItems.subtract(previous.total());
+                }
+
+                itemsCount += ci.getQuantity();
+                totalItems = totalItems.add(ci.getPrice().multiply(BigDecimal.valueOf(ci.getQuantity())));
+            }
+
+            for (Line line : removed.values()) {
+                itemsCount -= line.quantity();
+                totalItems = totalItems.subtract(line.total());
+            }
+
+            cart.setItemsCount(itemsCount);
+            cart.setTotalItems(totalItems);
+        }
+
+        if (verifyTotals) {
+            verifyTotals(cart);
+        }
+    }
+
+    private boolean isPricingStale(Cart cart, Set<Long> pricedProductIds) {
+
+        Date pricedAt = cart.getPricedAt();
+
+        if (pricedAt == null || cart.getItemsCount() == null || cart.getTotalItems() == null) {
+            return true;
+        }
+
+        return cart.getItems().stream()
+                .map(CartItem::getProduct)
+                .filter(product -> pricedProductIds.contains(product.getId()))
+                .map(Product::getPricesChangedAt)
+                .anyMatch(changedAt -> changedAt != null && !changedAt.before(pricedAt));
+    }
+
+    // Full recompute, the way totals were kept before they became incremental. Any difference is a bug.
+    private void verifyTotals(Cart cart) {
+
+        int itemsCount = 0;
+        BigDecimal totalItems = BigDecimal.ZERO;
+
+        for (CartItem ci : cart.getItems()) {
+
+            BigDecimal price = getProductPriceByQuantity(ci.getProduct(), ci.getQuantity()).getPrice();
+
+            if (price.compareTo(ci.getPrice()) != 0) {
+                throw new IllegalStateException(String.format("Cart item id %s priced %s, expected %s", ci.getId(), ci.getPrice(), price));
+            }
+
+            itemsCount += ci.getQuantity();
+            totalItems = totalItems.add(price.multiply(BigDecimal.valueOf(ci.getQuantity())));
         }
 
-        cart.getItems().add(cartItemRepository.save(cartItem));
+        if (itemsCount != cart.getItemsCount() || totalItems.compareTo(cart.getTotalItems()) != 0) {
+            throw new IllegalStateException(String.format("Cart id %s totals drifted: %s items, %s total, expected %s items, %s total",
+                    cart.getId(), cart.getItemsCount(), cart.getTotalItems(), itemsCount, totalItems));
+        }
     }
 
+    // Reprices every line and recomputes the totals from scratch
     private void sumCartItems(Cart cart) {
 
         cart.getItems().forEach(ci -> ci.setPrice(getProductPriceByQuantity(ci.getProduct(), ci.getQuantity()).getPrice()));
@@ -147,24 +355,57 @@ public class CartService implements ICartService {
                 .reduce(BigDecimal.ZERO, BigDecimal::add));
     }
 
-    private Optional<Cart> getOrCreateCartByUserId(User user) {
+    private Cart initializeCart(Cart cart) {
 
-        Optional<Cart> cart = cartRepository.findAll(
-                        CartSpecification.findLastCarts(user.getId())).stream()
-                .findFirst();
+        Hibernate.initialize(cart.getUser());
+        Hibernate.initialize(cart.getItems());
 
-        if (cart.isEmpty()) {
-            cart = Optional.of(Cart.builder()
-                    .user(user)
-                    .cartStatus(CartStatus.CART)
-                    .totalItems(BigDecimal.ZERO)
-                    .totalOrder(BigDecimal.ZERO)
-                    .status(Status.ACTIVE)
-                    .build());
-
-            cartRepository.save(cart.get());
+        if (cart.getItems() != null) {
+            ProductFetchPlan.initializeAll(cart.getItems().stream().map(CartItem::getProduct).toList());
         }
 
         return cart;
     }
+
+    private Optional<Cart> getOrCreateCartByUserId(Long userId) {
+
+        Optional<Cart> cart = findCurrentCart(userId)
+                .filter(this::isCurrent);
+
+        if (cart.isPresent()) {
+            return cart;
+        }
+
+        if (currentCartRepository.isUpsertEnabled()) {
+            currentCartRepository.insertIfAbsent(userId);
+            return findCurrentCart(userId);
+        }
+
+        return Optional.of(cartRepository.save(Cart.builder()
+                .user(userDomain.getUserLogged())
+                .cartStatus(CartStatus.CART)
+                .totalItems(BigDecimal.ZERO)
+                .itemsCount(0)
+                .totalOrder(BigDecimal.ZERO)
+                .pricedAt(new Date())
+                .status(Status.ACTIVE)
+                .build()));
+    }
+
+    private Optional<Cart> findCurrentCart(Long userId) {
+        return cartRepository.findFirstByUserIdAndCartStatusAndStatusOrderByUpdatedAtDesc(userId, CartStatus.CART, Status.ACTIVE);
+    }
+
+    // Retires a stale current cart, its reservation expired long ago and was released by the expiry
+    private boolean isCurrent(Cart cart) {
+
+        if (cart.getUpdatedAt() == null || cart.getUpdatedAt().getTime() >= System.currentTimeMillis() - CURRENT_CART_MAX_AGE_MILLIS) {
+            return true;
+        }
+
+        cart.setStatus(Status.INACTIVE);
+        cartRepository.save(cart);
+
+        return false;
+    }
 }
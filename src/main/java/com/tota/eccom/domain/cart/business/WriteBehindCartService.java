@@ -0,0 +1,224 @@
+package com.tota.eccom.domain.cart.business;
+
+import com.tota.eccom.adapters.dto.cart.request.CartAddItemsReq;
+import com.tota.eccom.adapters.dto.cart.request.CartItemReqDTO;
+import com.tota.eccom.domain.cart.ICartService;
+import com.tota.eccom.domain.cart.model.Cart;
+import com.tota.eccom.domain.cart.model.CartItem;
+import com.tota.eccom.domain.cart.model.enums.CartStatus;
+import com.tota.eccom.domain.cart.repository.CartItemRepository;
+import com.tota.eccom.domain.cart.repository.CartRepository;
+import com.tota.eccom.domain.cart.store.CartStore;
+import com.tota.eccom.domain.product.IProductService;
+import com.tota.eccom.domain.product.model.Product;
+import com.tota.eccom.domain.user.IUserService;
+import com.tota.eccom.exceptions.generic.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/*
+    Write-behind cart mode (CART_STORE=write-behind): the current cart of the user is read from and changed in
+    CartStore, which writes it to the database asynchronously.
+
+    A change runs the same CartService logic on a copy of the stored cart, in a transaction of its own, and the copy
+    replaces the stored cart once it commits: stock is still reserved synchronously, and a change that fails leaves
+    the stored cart as it was. The change holds the cart row lock, like CartService.getCartForUpdate, and writes what
+    the cart reserves before it commits: the deadline, the items and their quantities. Only the totals are written
+    behind. Other carts of the user and cart deletion go to the database, the latter after the pending change of the
+    cart was flushed.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "CART_STORE", havingValue = "write-behind")
+@RequiredArgsConstructor
+@Slf4j
+public class WriteBehindCartService implements ICartService {
+
+    private final CartService cartService;
+    private final CartStore cartStore;
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final IUserService userDomain;
+    private final IProductService productDomain;
+    private final TransactionTemplate transactionTemplate;
+
+
+    @Override
+    public Cart getCartByUser() {
+        Long userId = userDomain.getUserLoggedId();
+
+        synchronized (cartStore.lockOf(userId)) {
+            return cartStore.getOrLoad(userId, cartService::getCartByUser);
+        }
+    }
+
+    @Override
+    public Cart getCartById(Long id) {
+        Long userId = userDomain.getUserLoggedId();
+
+        synchronized (cartStore.lockOf(userId)) {
+            Cart cart = cartStore.get(userId);
+
+            if (cart != null && cart.getId().equals(id)) {
+                return cart;
+            }
+        }
+
+        return cartService.getCartById(id);
+    }
+
+    @Override
+    public void deleteCartById(Long id) {
+        Long userId = userDomain.getUserLoggedId();
+
+        synchronized (cartStore.lockOf(userId)) {
+            Cart cart = cartStore.get(userId);
+
+            if (cart != null && cart.getId().equals(id)) {
+                cartStore.flushAndEvict(userId);
+            }
+
+            cartService.deleteCartById(id);
+        }
+    }
+
+    @Override
+    public void deleteCartItemById(Long id, Long itemId) {
+        change(id, cart -> cartService.removeItem(cart, itemId), () -> {
+            cartService.deleteCartItemById(id, itemId);
+            return null;
+        });
+    }
+
+    @Override
+    public Cart updateCartById(Long id, CartItemReqDTO cartItemReqDTO) {
+        return change(id, cart -> cartService.applyItemChanges(cart, CartService.changesOf(List.of(cartItemReqDTO))),
+                () -> cartService.updateCartById(id, cartItemReqDTO));
+    }
+
+    @Override
+    public Cart addItemsToCartById(Long id, CartAddItemsReq cartAddItemsReq) {
+        return change(id, cart -> cartService.applyItemChanges(cart, CartService.changesOf(cartAddItemsReq.getItems())),
+                () -> cartService.addItemsToCartById(id, cartAddItemsReq));
+    }
+
+    private Cart change(Long id, Consumer<Cart> change, Supplier<Cart> inDatabase) {
+        Long userId = userDomain.getUserLoggedId();
+
+        synchronized (cartStore.lockOf(userId)) {
+            Cart stored = cartStore.getOrLoad(userId, cartService::getCartByUser);
+
+            if (!stored.getId().equals(id)) {
+                return inDatabase.get();
+            }
+
+            boolean writeThrough = cartStore.isDirtyFull(userId);
+
+            Cart changed = transactionTemplate.execute(status -> {
+
+                // The deadline in the database is the one that counts, the expiry may have released the cart since
+                Cart locked = cartRepository.findForUpdateByIdAndCartStatusAndUserId(id, CartStatus.CART, userId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Cart not found with given id: " + id));
+
+                Cart copy = copyOf(stored);
+                copy.setReservationExpiresAt(locked.getReservationExpiresAt());
+                copy.setUpdatedAt(new Date());
+
+                change.accept(copy);
+                writeReservation(stored, copy);
+
+                if (writeThrough) {
+                    cartStore.writeTotals(copy);
+                }
+
+                return copy;
+            });
+
+            if (writeThrough) {
+                cartStore.putFlushed(userId, changed);
+            } else {
+                cartStore.put(userId, changed);
+            }
+
+            return changed;
+        }
+    }
+
+    // What the expiry releases: the deadline, the items linked to the cart and their quantities
+    private void writeReservation(Cart before, Cart after) {
+
+        Map<Long, CartItem> itemsBefore = (before.getItems() != null ? before.getItems() : List.<CartItem>of()).stream()
+                .collect(Collectors.toMap(CartItem::getId, Function.identity()));
+
+        List<Long> added = new ArrayList<>();
+
+        for (CartItem item : after.getItems()) {
+
+            CartItem previous = itemsBefore.remove(item.getId());
+
+            if (previous == null) {
+                added.add(item.getId());
+            } else if (!previous.getQuantity().equals(item.getQuantity()) || previous.getPrice().compareTo(item.getPrice()) != 0) {
+                cartItemRepository.updateQuantityAndPrice(item.getId(), item.getQuantity(), item.getPrice(), after.getUpdatedAt());
+            }
+        }
+
+        if (!added.isEmpty()) {
+            cartItemRepository.flush();
+            cartItemRepository.linkToCart(after.getId(), added);
+        }
+
+        if (!itemsBefore.isEmpty()) {
+            cartItemRepository.deleteAllByIdInBatch(itemsBefore.keySet());
+        }
+
+        cartRepository.updateReservationExpiresAtAndUpdatedAt(after.getId(), after.getReservationExpiresAt(), after.getUpdatedAt());
+    }
+
+    // Stored carts are never changed in place. The copy links its lines to freshly loaded products, so price changes
+    // made since the cart was stored are seen.
+    private Cart copyOf(Cart cart) {
+
+        List<CartItem> items = cart.getItems() != null ? cart.getItems() : List.of();
+
+        Map<Long, Product> products = productDomain.getProductsByIds(items.stream().map(ci -> ci.getProduct().getId()).toList()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        return Cart.builder()
+                .id(cart.getId())
+                .user(cart.getUser())
+                .cartStatus(cart.getCartStatus())
+                .totalItems(cart.getTotalItems())
+                .itemsCount(cart.getItemsCount())
+                .totalOrder(cart.getTotalOrder())
+                .items(items.stream()
+                        .map(ci -> CartItem.builder()
+                                .id(ci.getId())
+                                .product(products.get(ci.getProduct().getId()))
+                                .quantity(ci.getQuantity())
+                                .price(ci.getPrice())
+                                .createdAt(ci.getCreatedAt())
+                                .updatedAt(ci.getUpdatedAt())
+                                .build())
+                        .collect(Collectors.toCollection(ArrayList::new)))
+                .createdAt(cart.getCreatedAt())
+                .updatedAt(cart.getUpdatedAt())
+                .status(cart.getStatus())
+                .pricedAt(cart.getPricedAt())
+                .reservationExpiresAt(cart.getReservationExpiresAt())
+                .build();
+    }
+}
@@ -10,9 +10,7 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
+import java.util.*;
 
 @Getter
 @Setter
@@ -29,6 +27,7 @@ import java.util.List;
         @Index(name = "idx_cart_created_at", columnList = "createdAt"),
         @Index(name = "idx_cart_updated_at", columnList = "updatedAt"),
         @Index(name = "idx_cart_status", columnList = "status"),
+        @Index(name = "idx_cart_reservation_expires_at", columnList = "reservation_expires_at"),
 })
 public class Cart {
 
@@ -53,9 +52,11 @@ public class Cart {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal totalOrder;
 
+    // Never null, a new cart has no lines whether it is served from the database or from CartStore
+    @Builder.Default
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @JoinColumn(name = "cart_id")
-    private List<CartItem> items;
+    private List<CartItem> items = new ArrayList<>();
 
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
@@ -70,6 +71,30 @@ public class Cart {
     @Column(name = "status", nullable = false)
     private Status status;
 
+    // Last time every line was priced, totals are only kept up to date by per-line deltas after it
+    @Column(name = "priced_at")
+    private Date pricedAt;
+
+    // Stock of every item stays reserved until then, null when the cart holds no reservation
+    @Column(name = "reservation_expires_at")
+    private Date reservationExpiresAt;
+
+    /**
+     * Quantity of every product in the cart, what its reservation holds while it has one.
+     */
+    public Map<Long, Integer> getProductQuantities() {
+
+        Map<Long, Integer> quantities = new HashMap<>();
+
+        if (items != null) {
+            items.stream()
+                    .filter(item -> item.getQuantity() != null && item.getQuantity() > 0)
+                    .forEach(item -> quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum));
+        }
+
+        return quantities;
+    }
+
     @PrePersist
     public void prePersist() {
         this.setCreatedAt(new Date());
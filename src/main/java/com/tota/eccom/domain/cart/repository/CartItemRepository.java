@@ -3,6 +3,21 @@ package com.tota.eccom.domain.cart.repository;
 import com.tota.eccom.domain.cart.model.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Date;
 
 public interface CartItemRepository extends JpaRepository<CartItem, Long>, JpaSpecificationExecutor<CartItem> {
+
+    // cart_id is owned by Cart.items, this links items saved on their own without loading the cart
+    @Modifying
+    @Query(value = "UPDATE cart_item SET cart_id = :cartId WHERE id IN (:ids)", nativeQuery = true)
+    int linkToCart(Long cartId, Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.quantity = :quantity, ci.price = :price, ci.updatedAt = :updatedAt WHERE ci.id = :id")
+    int updateQuantityAndPrice(Long id, Integer quantity, BigDecimal price, Date updatedAt);
 }
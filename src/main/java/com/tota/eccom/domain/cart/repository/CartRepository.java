@@ -2,12 +2,72 @@ package com.tota.eccom.domain.cart.repository;
 
 import com.tota.eccom.domain.cart.model.Cart;
 import com.tota.eccom.domain.cart.model.enums.CartStatus;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import com.tota.eccom.util.enums.Status;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart, Long>, JpaSpecificationExecutor<Cart> {
 
+    @EntityGraph(attributePaths = {"user", "items", "items.product"})
     Optional<Cart> findByIdAndCartStatusAndUserId(Long id, CartStatus cartStatus, Long id1);
+
+    // A single index probe on PostgreSQL, where uidx_cart_current_user keeps at most one current cart per user
+    @EntityGraph(attributePaths = {"user"})
+    Optional<Cart> findFirstByUserIdAndCartStatusAndStatusOrderByUpdatedAtDesc(Long userId, CartStatus cartStatus, Status status);
+
+    // Cart writes hold the row lock, so the expiry skips a cart while its owner changes it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Cart> findForUpdateByIdAndCartStatusAndUserId(Long id, CartStatus cartStatus, Long userId);
+
+    /**
+     * Locks the carts whose reservation expired before the given date, oldest deadline first, skipping the ones
+     * another transaction holds (lock timeout -2 is Hibernate's SKIP LOCKED). PostgreSQL only.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT c FROM Cart c WHERE c.reservationExpiresAt < :now ORDER BY c.reservationExpiresAt")
+    List<Cart> findExpiredReservations(Date now, Pageable pageable);
+
+    // A plain FOR UPDATE, which waits for the carts another transaction holds, on databases without SKIP LOCKED.
+    // Native, as the PostgreSQL dialect renders any write lock as FOR NO KEY UPDATE.
+    @Query(value = "SELECT * FROM cart WHERE reservation_expires_at < :now ORDER BY reservation_expires_at LIMIT :limit FOR UPDATE",
+            nativeQuery = true)
+    List<Cart> findExpiredReservationsForUpdate(Date now, int limit);
+
+    @Query("SELECT c.id FROM Cart c WHERE c.reservationExpiresAt < :now ORDER BY c.reservationExpiresAt")
+    List<Long> findExpiredReservationIds(Date now, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT c FROM Cart c WHERE c.id = :id AND c.reservationExpiresAt < :now")
+    Optional<Cart> findExpiredReservationById(Long id, Date now);
+
+    @Query(value = "SELECT * FROM cart WHERE id = :id AND reservation_expires_at < :now FOR UPDATE", nativeQuery = true)
+    Optional<Cart> findExpiredReservationForUpdateById(Long id, Date now);
+
+    @Modifying
+    @Query("UPDATE Cart c SET c.reservationExpiresAt = :deadline WHERE c.id = :id")
+    int updateReservationExpiresAt(Long id, Date deadline);
+
+    // A bulk update, so an expired cart keeps its updated_at: Cart's @PreUpdate would restart its retirement clock
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Cart c SET c.reservationExpiresAt = NULL WHERE c.id IN :ids")
+    int clearReservationExpiresAt(Collection<Long> ids);
+
+    // Write-behind carts: a change writes its deadline right away, the totals follow on the next flush
+    @Modifying
+    @Query("UPDATE Cart c SET c.reservationExpiresAt = :deadline, c.updatedAt = :updatedAt WHERE c.id = :id")
+    int updateReservationExpiresAtAndUpdatedAt(Long id, Date deadline, Date updatedAt);
+
+    @Modifying
+    @Query("UPDATE Cart c SET c.itemsCount = :itemsCount, c.totalItems = :totalItems, c.totalOrder = :totalOrder, c.pricedAt = :pricedAt WHERE c.id = :id")
+    int updateTotals(Long id, Integer itemsCount, BigDecimal totalItems, BigDecimal totalOrder, Date pricedAt);
 }
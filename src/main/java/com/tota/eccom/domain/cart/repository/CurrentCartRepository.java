@@ -0,0 +1,87 @@
+package com.tota.eccom.domain.cart.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/*
+    The current cart of a user is its only cart with cart_status CART and status ACTIVE. On PostgreSQL a partial
+    unique index on cart (user_id) enforces it, so the lookup is a single index probe and the first cart of a user
+    is created by an INSERT ... ON CONFLICT DO NOTHING, which two concurrent first requests can't both win. Partial
+    indexes live outside the JPA mapping, so the schema is prepared by CurrentCartIndexInitializer on startup. On any
+    other database (H2 on tests) the upsert stays disabled and carts are created through JPA.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class CurrentCartRepository {
+
+    // Keeps the most recently updated current cart of every user. Retired carts keep their reservation deadline,
+    // so the reservation expiry still releases their stock.
+    private static final String RETIRE_DUPLICATES = """
+            UPDATE cart c SET status = 'INACTIVE'
+            WHERE c.cart_status = 'CART' AND c.status = 'ACTIVE'
+              AND EXISTS (SELECT 1 FROM cart n
+                          WHERE n.user_id = c.user_id AND n.cart_status = 'CART' AND n.status = 'ACTIVE'
+                            AND (n.updated_at > c.updated_at OR (n.updated_at = c.updated_at AND n.id > c.id)))
+            """;
+
+    private static final String INSERT_IF_ABSENT = """
+            INSERT INTO cart (id, user_id, cart_status, total_items, items_count, total_order, created_at, updated_at, status, priced_at)
+            VALUES (nextval('cart_seq'), :userId, 'CART', 0, 0, 0, now(), now(), 'ACTIVE', now())
+            ON CONFLICT (user_id) WHERE cart_status = 'CART' AND status = 'ACTIVE' DO NOTHING
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    private volatile boolean upsertEnabled = false;
+
+    public boolean isUpsertEnabled() {
+        return upsertEnabled;
+    }
+
+    public void prepareSchema() {
+
+        if (!isPostgres()) {
+            log.info("Database is not PostgreSQL, current cart upsert disabled");
+            return;
+        }
+
+        try {
+            int retired = jdbcTemplate.update(RETIRE_DUPLICATES, new MapSqlParameterSource());
+            jdbcTemplate.getJdbcTemplate().execute("CREATE UNIQUE INDEX IF NOT EXISTS uidx_cart_current_user ON cart (user_id)" +
+                    " WHERE cart_status = 'CART' AND status = 'ACTIVE'");
+
+            upsertEnabled = true;
+            log.info("Current cart upsert enabled, duplicate current carts retired: {}", retired);
+        } catch (DataAccessException e) {
+            log.warn("Unable to prepare the current cart index, creating carts through JPA: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Creates an empty current cart for the user unless it already has one. Returns true when this call created it.
+     */
+    public boolean insertIfAbsent(Long userId) {
+
+        // The conflict is checked against the stored rows, so pending entity changes must reach the database first
+        if (entityManager.isJoinedToTransaction()) {
+            entityManager.flush();
+        }
+
+        return jdbcTemplate.update(INSERT_IF_ABSENT, new MapSqlParameterSource("userId", userId)) > 0;
+    }
+
+    private boolean isPostgres() {
+        String databaseName = jdbcTemplate.getJdbcTemplate().execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+
+        return "PostgreSQL".equalsIgnoreCase(databaseName);
+    }
+}
@@ -0,0 +1,270 @@
+package com.tota.eccom.domain.cart.reservation;
+
+import com.tota.eccom.adapters.dto.cart.response.CartReservationStatsRespDTO;
+import com.tota.eccom.domain.cart.model.Cart;
+import com.tota.eccom.domain.cart.repository.CartRepository;
+import com.tota.eccom.domain.product.IProductService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Releases the stock held by carts nobody touched for a while. Every cart write pushes the reservation deadline of
+    its cart, kept in an indexed column, so finding what expired is a range scan on that index.
+
+    Expired carts are claimed in bounded batches, oldest deadline first, with SELECT ... FOR UPDATE SKIP LOCKED: each
+    instance takes the carts no other one holds, and a cart being changed by its owner is left for the next run. On
+    any other database than PostgreSQL (H2 on tests) a plain FOR UPDATE is used, which waits for those carts. The
+    stock of a whole batch is released in one call, one conditional update per product, and the deadlines are cleared
+    with a bulk update, which leaves updated_at and so the retirement clock of abandoned carts alone. When a batch
+    fails, its carts are retried one by one and the ones that still fail are put off by a full reservation time. A
+    query the database rejects fails every cart alike, so it fails the run instead. The counters only count what
+    committed.
+ */
+@Component
+@Slf4j
+public class CartReservationExpiry {
+
+    private final CartRepository cartRepository;
+    private final IProductService productDomain;
+    private final TransactionTemplate transaction;
+    private final DataSource dataSource;
+
+    private final long ttlMillis;
+    private final int batchSize;
+    private final int maxBatches;
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder expiredCarts = new LongAdder();
+    private final LongAdder releasedUnits = new LongAdder();
+    private final LongAdder failedCarts = new LongAdder();
+
+    private record Batch(int size, Date oldestDeadline, long releasedUnits) {
+        static final Batch EMPTY = new Batch(0, null, 0);
+    }
+
+    private volatile Date lastRunAt;
+    private volatile long lastRunMillis;
+    private volatile long lastRunExpiredCarts;
+    private volatile long lagMillis;
+    private volatile Boolean skipLocked;
+
+    public CartReservationExpiry(CartRepository cartRepository,
+                                 IProductService productDomain,
+                                 PlatformTransactionManager transactionManager,
+                                 DataSource dataSource,
+                                 @Value("${CART_RESERVATION_TTL_MINUTES:30}") long ttlMinutes,
+                                 @Value("${CART_RESERVATION_EXPIRY_BATCH_SIZE:200}") int batchSize,
+                                 @Value("${CART_RESERVATION_EXPIRY_MAX_BATCHES:50}") int maxBatches) {
+
+        this.cartRepository = cartRepository;
+        this.productDomain = productDomain;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.dataSource = dataSource;
+        this.ttlMillis = ttlMinutes * 60_000;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+
+    /**
+     * Deadline of a reservation made or changed now.
+     */
+    public Date deadlineFromNow() {
+        return new Date(System.currentTimeMillis() + ttlMillis);
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${CART_RESERVATION_EXPIRY_MS:10000}")
+    public void expire() {
+
+        long startedAt = System.currentTimeMillis();
+        Date now = new Date(startedAt);
+        long expired = 0;
+        long lag = 0;
+
+        for (int i = 0; i < maxBatches; i++) {
+
+            Batch batch;
+
+            try {
+                batch = transaction.execute(status -> expireBatch(now));
+                count(batch);
+            } catch (RuntimeException e) {
+                if (isQueryRejected(e)) {
+                    throw e;
+                }
+
+                log.warn("Cart reservation expiry batch failed, expiring its carts one by one", e);
+                batch = expireOneByOne(now);
+            }
+
+            if (batch == null || batch.size() == 0) {
+                break;
+            }
+
+            if (i == 0) {
+                lag = now.getTime() - batch.oldestDeadline().getTime();
+            }
+
+            expired += batch.size();
+
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+
+        runs.increment();
+        lastRunAt = now;
+        lastRunMillis = System.currentTimeMillis() - startedAt;
+        lastRunExpiredCarts = expired;
+        lagMillis = lag;
+
+        if (expired > 0) {
+            log.info("Expired {} cart reservations in {} ms, oldest overdue by {} ms", expired, lastRunMillis, lag);
+        }
+    }
+
+    public CartReservationStatsRespDTO getStats() {
+
+        long millis = lastRunMillis;
+        long expired = lastRunExpiredCarts;
+
+        return CartReservationStatsRespDTO.builder()
+                .runs(runs.sum())
+                .expiredCarts(expiredCarts.sum())
+                .releasedUnits(releasedUnits.sum())
+                .failedCarts(failedCarts.sum())
+                .lastRunAt(lastRunAt)
+                .lastRunMillis(millis)
+                .lastRunExpiredCarts(expired)
+                .lastRunCartsPerSecond(millis > 0 ? expired * 1000D / millis : (double) expired)
+                .lagMillis(lagMillis)
+                .build();
+    }
+
+    private Batch expireBatch(Date now) {
+
+        List<Cart> carts = isSkipLocked()
+                ? cartRepository.findExpiredReservations(now, PageRequest.of(0, batchSize))
+                : cartRepository.findExpiredReservationsForUpdate(now, batchSize);
+
+        if (carts.isEmpty()) {
+            return Batch.EMPTY;
+        }
+
+        Date oldestDeadline = carts.get(0).getReservationExpiresAt();
+        Map<Long, Integer> quantities = new HashMap<>();
+
+        carts.forEach(cart -> cart.getProductQuantities().forEach((productId, quantity) -> quantities.merge(productId, quantity, Integer::sum)));
+
+        if (!quantities.isEmpty()) {
+            productDomain.releaseStock(quantities);
+        }
+
+        cartRepository.clearReservationExpiresAt(carts.stream().map(Cart::getId).toList());
+
+        return new Batch(carts.size(), oldestDeadline, unitsOf(quantities));
+    }
+
+    private Batch expireOneByOne(Date now) {
+
+        List<Long> cartIds = cartRepository.findExpiredReservationIds(now, PageRequest.of(0, batchSize));
+        Date oldestDeadline = null;
+
+        for (Long cartId : cartIds) {
+            try {
+                Batch expired = transaction.execute(status -> findExpiredReservationById(cartId, now)
+                        .map(cart -> {
+                            Date expiredAt = cart.getReservationExpiresAt();
+                            Map<Long, Integer> quantities = cart.getProductQuantities();
+
+                            if (!quantities.isEmpty()) {
+                                productDomain.releaseStock(quantities);
+                            }
+
+                            cartRepository.clearReservationExpiresAt(List.of(cartId));
+
+                            return new Batch(1, expiredAt, unitsOf(quantities));
+                        })
+                        .orElse(Batch.EMPTY));
+
+                count(expired);
+
+                if (oldestDeadline == null && expired != null) {
+                    oldestDeadline = expired.oldestDeadline();
+                }
+            } catch (RuntimeException e) {
+                if (isQueryRejected(e)) {
+                    throw e;
+                }
+
+                log.error("Failed to expire the reservation of cart id {}, retrying later", cartId, e);
+                transaction.executeWithoutResult(status -> cartRepository.updateReservationExpiresAt(cartId, deadlineFromNow()));
+                failedCarts.increment();
+            }
+        }
+
+        return oldestDeadline == null ? Batch.EMPTY : new Batch(cartIds.size(), oldestDeadline, 0);
+    }
+
+    private Optional<Cart> findExpiredReservationById(Long cartId, Date now) {
+        return isSkipLocked()
+                ? cartRepository.findExpiredReservationById(cartId, now)
+                : cartRepository.findExpiredReservationForUpdateById(cartId, now);
+    }
+
+    // Looked up on the first run rather than on startup, like CurrentCartRepository it asks the database itself
+    private boolean isSkipLocked() {
+
+        Boolean enabled = skipLocked;
+
+        if (enabled == null) {
+            try {
+                enabled = "PostgreSQL".equalsIgnoreCase(JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+            } catch (MetaDataAccessException e) {
+                throw new IllegalStateException("Unable to read the database product name", e);
+            }
+
+            skipLocked = enabled;
+            log.info("Cart reservation expiry claims carts with {}", enabled ? "FOR UPDATE SKIP LOCKED" : "FOR UPDATE");
+        }
+
+        return enabled;
+    }
+
+    // Bad SQL, an unknown table or column: retrying cart by cart would only put every cart off
+    private static boolean isQueryRejected(RuntimeException e) {
+        return e instanceof InvalidDataAccessResourceUsageException;
+    }
+
+    // Called once the transaction of the batch returned, so a batch that rolled back is not counted
+    private void count(Batch batch) {
+        if (batch != null) {
+            expiredCarts.add(batch.size());
+            releasedUnits.add(batch.releasedUnits());
+        }
+    }
+
+    private static long unitsOf(Map<Long, Integer> quantities) {
+        return quantities.values().stream().mapToLong(Integer::longValue).sum();
+    }
+}
@@ -0,0 +1,323 @@
+package com.tota.eccom.domain.cart.store;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tota.eccom.adapters.dto.cart.response.CartStoreStatsRespDTO;
+import com.tota.eccom.domain.cart.model.Cart;
+import com.tota.eccom.domain.cart.repository.CartRepository;
+import com.tota.eccom.domain.cart.reservation.CartReservationExpiry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/*
+    Bounded in-process store of the current cart of active users, for the write-behind cart mode (CART_STORE=write-behind).
+
+    Changed carts are kept apart from the bounded cache until they are flushed, so a size or time eviction never drops
+    a change. The flush writes their totals to cart in batches, one transaction per batch, so many clicks on
+    the same cart cost a single write. Every access to the cart of a user holds the lock stripe of that user, so a
+    cart is never loaded twice, and a change replaces the stored cart instead of changing it in place.
+
+    Only the totals of the cart row are written behind. A change writes what the cart reserved right away, under the
+    row lock: the reservation deadline, which items belong to the cart and their quantities. The expiry and a restart
+    always release what the cart actually holds, and the flush never puts back a deadline the expiry cleared.
+
+    Entries expire a while after their last change, well before the cart reservation does. At most maximumSize carts
+    are held dirty: past it, WriteBehindCartService writes changes through instead, so a flush that keeps failing
+    doesn't grow memory without limit. Requires instance affinity per user, another instance would read the cart as of
+    the last flush.
+ */
+@Component
+@ConditionalOnProperty(name = "CART_STORE", havingValue = "write-behind")
+@Slf4j
+public class CartStore {
+
+    private static final int LOCK_STRIPES = 256;
+
+    private final CartRepository cartRepository;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+    private final long maximumSize;
+
+    private final Cache<Long, Entry> carts;
+    private final Map<Long, Entry> dirty = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedCarts = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+
+    private volatile Date lastFlushAt;
+    private volatile long lastFlushMillis;
+
+    // Guarded by the lock of its user
+    private static final class Entry {
+
+        final Long userId;
+        volatile Cart cart;
+        long version;
+        volatile long dirtySince;
+
+        Entry(Long userId, Cart cart) {
+            this.userId = userId;
+            this.cart = cart;
+        }
+    }
+
+    public CartStore(CartRepository cartRepository,
+                     PlatformTransactionManager transactionManager,
+                     CartReservationExpiry cartReservationExpiry,
+                     @Value("${CART_STORE_MAXIMUM_SIZE:10000}") long maximumSize,
+                     @Value("${CART_STORE_IDLE_SECONDS:300}") long idleSeconds,
+                     @Value("${CART_STORE_FLUSH_BATCH_SIZE:100}") int batchSize) {
+
+        if (idleSeconds * 1000 >= cartReservationExpiry.getTtlMillis()) {
+            throw new IllegalArgumentException("CART_STORE_IDLE_SECONDS must be shorter than the cart reservation time");
+        }
+
+        this.cartRepository = cartRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maximumSize = maximumSize;
+        this.carts = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(idleSeconds))
+                .recordStats()
+                .build();
+
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Lock every read and change of the cart of the user must hold.
+     */
+    public Object lockOf(Long userId) {
+        return locks[Math.floorMod(userId.hashCode(), LOCK_STRIPES)];
+    }
+
+    /**
+     * The stored cart of the user, loaded with the given loader on a miss. Caller holds the lock of the user.
+     */
+    public Cart getOrLoad(Long userId, Supplier<Cart> loader) {
+
+        Entry entry = entryOf(userId);
+
+        if (entry == null) {
+            entry = new Entry(userId, loader.get());
+            carts.put(userId, entry);
+        }
+
+        return entry.cart;
+    }
+
+    public Cart get(Long userId) {
+        Entry entry = entryOf(userId);
+        return entry != null ? entry.cart : null;
+    }
+
+    /**
+     * Replaces the cart of the user with its changed version, written on the next flush. Caller holds the lock.
+     */
+    public void put(Long userId, Cart cart) {
+
+        Entry entry = entryOf(userId);
+
+        if (entry == null) {
+            entry = new Entry(userId, cart);
+        }
+
+        entry.cart = cart;
+        entry.version++;
+
+        if (entry.dirtySince == 0) {
+            entry.dirtySince = System.currentTimeMillis();
+        }
+
+        dirty.put(userId, entry);
+        carts.put(userId, entry);
+    }
+
+    /**
+     * Keeps the cart of the user as it is in the database, nothing left to write. Caller holds the lock.
+     */
+    public void putFlushed(Long userId, Cart cart) {
+
+        Entry entry = dirty.remove(userId);
+
+        if (entry == null) {
+            entry = new Entry(userId, cart);
+        }
+
+        entry.cart = cart;
+        entry.version++;
+        entry.dirtySince = 0;
+
+        carts.put(userId, entry);
+    }
+
+    /**
+     * True when a new change of the user can't be held dirty, the dirty carts already reached the maximum size.
+     */
+    public boolean isDirtyFull(Long userId) {
+        return !dirty.containsKey(userId) && dirty.size() >= maximumSize;
+    }
+
+    /**
+     * Writes the pending change of the user now and drops the cart from memory. Caller holds the lock.
+     */
+    public void flushAndEvict(Long userId) {
+
+        Entry entry = dirty.get(userId);
+
+        if (entry != null) {
+            transaction.executeWithoutResult(status -> writeTotals(entry.cart));
+            dirty.remove(userId);
+            flushedCarts.increment();
+        }
+
+        carts.invalidate(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${CART_STORE_FLUSH_MS:1000}")
+    public void flush() {
+
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        long startedAt = System.currentTimeMillis();
+        List<Long> userIds = new ArrayList<>(dirty.keySet());
+
+        for (int from = 0; from < userIds.size(); from += batchSize) {
+
+            List<Long> batch = userIds.subList(from, Math.min(from + batchSize, userIds.size()));
+
+            try {
+                flushBatch(batch);
+            } catch (RuntimeException e) {
+                log.warn("Cart store flush batch failed, flushing its carts one by one", e);
+                batch.forEach(userId -> {
+                    try {
+                        flushBatch(List.of(userId));
+                    } catch (RuntimeException ex) {
+                        failedFlushes.increment();
+                        log.error("Failed to flush the cart of user id {}, retrying on the next flush", userId, ex);
+                    }
+                });
+            }
+        }
+
+        flushes.increment();
+        lastFlushAt = new Date(startedAt);
+        lastFlushMillis = System.currentTimeMillis() - startedAt;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+
+        flush();
+
+        if (!dirty.isEmpty()) {
+            log.error("Cart store shut down with {} carts not flushed", dirty.size());
+        }
+    }
+
+    public CartStoreStatsRespDTO getStats() {
+
+        long now = System.currentTimeMillis();
+        long oldest = now;
+        long dirtyItems = 0;
+
+        for (Entry entry : dirty.values()) {
+
+            long dirtySince = entry.dirtySince;
+            Cart cart = entry.cart;
+
+            if (dirtySince != 0) {
+                oldest = Math.min(oldest, dirtySince);
+            }
+
+            dirtyItems += cart.getItems() != null ? cart.getItems().size() : 0;
+        }
+
+        return CartStoreStatsRespDTO.builder()
+                .size(carts.estimatedSize())
+                .hitCount(carts.stats().hitCount())
+                .missCount(carts.stats().missCount())
+                .dirtyCarts((long) dirty.size())
+                .dirtyItems(dirtyItems)
+                .flushLagMillis(now - oldest)
+                .flushes(flushes.sum())
+                .flushedCarts(flushedCarts.sum())
+                .failedFlushes(failedFlushes.sum())
+                .lastFlushAt(lastFlushAt)
+                .lastFlushMillis(lastFlushMillis)
+                .build();
+    }
+
+    // A changed cart evicted from the cache is still served until it is flushed
+    private Entry entryOf(Long userId) {
+
+        Entry entry = carts.getIfPresent(userId);
+
+        if (entry == null) {
+            entry = dirty.get(userId);
+
+            if (entry != null) {
+                carts.put(userId, entry);
+            }
+        }
+
+        return entry;
+    }
+
+    // Writes the batch in one transaction, a cart changed meanwhile stays dirty for the next flush. Stored carts are
+    // replaced on every change and never changed in place, so they are written without holding the lock of their user.
+    private void flushBatch(List<Long> userIds) {
+
+        Map<Entry, Long> versions = new HashMap<>();
+        List<Cart> pending = new ArrayList<>();
+
+        for (Long userId : userIds) {
+            synchronized (lockOf(userId)) {
+                Entry entry = dirty.get(userId);
+
+                if (entry != null) {
+                    versions.put(entry, entry.version);
+                    pending.add(entry.cart);
+                }
+            }
+        }
+
+        transaction.executeWithoutResult(status -> pending.forEach(this::writeTotals));
+
+        versions.forEach((entry, version) -> {
+            synchronized (lockOf(entry.userId)) {
+                if (entry.version == version && dirty.remove(entry.userId, entry)) {
+                    entry.dirtySince = 0;
+                    flushedCarts.increment();
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the totals of the cart row, the only part of a stored cart written behind.
+     */
+    public void writeTotals(Cart cart) {
+        cartRepository.updateTotals(cart.getId(), cart.getItemsCount(), cart.getTotalItems(), cart.getTotalOrder(), cart.getPricedAt());
+    }
+}
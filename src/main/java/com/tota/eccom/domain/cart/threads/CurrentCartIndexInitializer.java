@@ -0,0 +1,19 @@
+package com.tota.eccom.domain.cart.threads;
+
+import com.tota.eccom.domain.cart.repository.CurrentCartRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class CurrentCartIndexInitializer {
+
+    private final CurrentCartRepository currentCartRepository;
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void initializeCurrentCartIndex() {
+        currentCartRepository.prepareSchema();
+    }
+}
@@ -1,8 +1,10 @@
 package com.tota.eccom.domain.category;
 
 import com.tota.eccom.adapters.dto.category.request.CategoryDTO;
+import com.tota.eccom.adapters.dto.category.response.CategoryTreeRespDTO;
 import com.tota.eccom.domain.product.model.Product;
 import com.tota.eccom.domain.category.model.Category;
+import com.tota.eccom.util.pagination.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
@@ -19,7 +21,11 @@ public interface ICategoryService {
 
     Page<Product> getProductsByCategory(String slug, Pageable pageable);
 
+    CursorPage<Product> getProductsByCategory(String slug, String cursor, int size, boolean estimateTotal);
+
     Category setParentCategoryById(Long id, Long parentId);
 
     void removeParentCategoryById(Long id);
+
+    CategoryTreeRespDTO getCategoryTree();
 }
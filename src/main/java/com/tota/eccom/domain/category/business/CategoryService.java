@@ -1,24 +1,38 @@
 package com.tota.eccom.domain.category.business;
 
 import com.tota.eccom.adapters.dto.category.request.CategoryDTO;
+import com.tota.eccom.adapters.dto.category.response.CategoryTreeNodeRespDTO;
+import com.tota.eccom.adapters.dto.category.response.CategoryTreeRespDTO;
 import com.tota.eccom.domain.category.ICategoryService;
+import com.tota.eccom.domain.category.cache.CategoryTreeCache;
 import com.tota.eccom.domain.category.model.Category;
+import com.tota.eccom.domain.category.model.CategoryClosure;
+import com.tota.eccom.domain.category.repository.CategoryClosureRepository;
+import com.tota.eccom.domain.category.repository.CategoryFetchPlan;
 import com.tota.eccom.domain.category.repository.CategoryRepository;
+import com.tota.eccom.domain.product.cache.ProductViewCache;
 import com.tota.eccom.domain.product.model.Product;
+import com.tota.eccom.domain.product.model.ProductListing;
+import com.tota.eccom.domain.product.repository.ProductFetchPlan;
+import com.tota.eccom.domain.product.repository.ProductListingRepository;
 import com.tota.eccom.domain.product.repository.ProductRepository;
+import com.tota.eccom.domain.product.repository.ProductSearchRepository;
+import com.tota.eccom.domain.product.suggest.ProductSuggestIndex;
 import com.tota.eccom.exceptions.generic.ResourceAlreadyExistsException;
 import com.tota.eccom.exceptions.generic.ResourceNotFoundException;
 import com.tota.eccom.util.SlugUtil;
 import com.tota.eccom.util.enums.Status;
+import com.tota.eccom.util.pagination.Cursor;
+import com.tota.eccom.util.pagination.CursorPage;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
 
 @Component
 @RequiredArgsConstructor
@@ -27,6 +41,12 @@ public class CategoryService implements ICategoryService {
 
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
+    private final ProductListingRepository productListingRepository;
+    private final ProductSearchRepository productSearchRepository;
+    private final CategoryClosureRepository categoryClosureRepository;
+    private final ProductViewCache productViewCache;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final CategoryTreeCache categoryTreeCache;
 
 
     @Override
@@ -41,13 +61,21 @@ public class CategoryService implements ICategoryService {
 
         log.info("Creating category: {}", category);
 
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        categoryClosureRepository.save(CategoryClosure.self(savedCategory.getId()));
+        productSuggestIndex.putCategory(savedCategory, 0L);
+        categoryTreeCache.invalidate();
+
+        return savedCategory;
     }
 
     @Override
+    @Transactional
     public Category getCategoryById(Long id) {
 
-        return categoryRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Category not found with given id: " + id));
+        return categoryRepository.findById(id)
+                .map(CategoryFetchPlan::initialize)
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found with given id: " + id));
     }
 
     @Override
@@ -61,6 +89,9 @@ public class CategoryService implements ICategoryService {
         category.setStatus(Status.DELETED);
 
         categoryRepository.save(category);
+        productViewCache.evictAll();
+        productSuggestIndex.putCategory(category, 0L);
+        categoryTreeCache.invalidate();
     }
 
     @Override
@@ -77,10 +108,17 @@ public class CategoryService implements ICategoryService {
 
         log.info("Updating category: {}", category);
 
-        return categoryRepository.save(category);
+        productViewCache.evictAll();
+
+        Category savedCategory = categoryRepository.save(category);
+        productSuggestIndex.putCategory(savedCategory, productListingRepository.countSellableByCategoryId(id));
+        categoryTreeCache.invalidate();
+
+        return CategoryFetchPlan.initialize(savedCategory);
     }
 
     @Override
+    @Transactional
     public Page<Product> getProductsByCategory(String slug, Pageable pageable) {
 
         Optional<Category> category = findCategoryBySlug(slug);
@@ -89,10 +127,35 @@ public class CategoryService implements ICategoryService {
             throw new ResourceNotFoundException("Category not found with given slug: " + slug);
         }
 
-        return productRepository.findProductsByCategoryId(category.get().getId(), pageable);
+        Page<ProductListing> listings = productListingRepository.findSellableByCategoryId(category.get().getId(), pageable);
+
+        return new PageImpl<>(findAllByIdInOrder(listings.getContent()), pageable, listings.getTotalElements());
     }
 
     @Override
+    @Transactional
+    public CursorPage<Product> getProductsByCategory(String slug, String cursor, int size, boolean estimateTotal) {
+
+        Category category = findCategoryBySlug(slug)
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found with given slug: " + slug));
+
+        Cursor after = Cursor.decodeOrStart(cursor);
+
+        List<ProductListing> listings = productListingRepository.findSellableByCategoryIdAfter(
+                category.getId(), after.sortKey(), after.id(), CursorPage.limitOf(size));
+
+        Long estimatedTotal = estimateTotal
+                ? productSearchRepository.estimateProductsByCategoryId(category.getId())
+                .orElseGet(() -> productListingRepository.countSellableByCategoryId(category.getId()))
+                : null;
+
+        CursorPage<ProductListing> page = CursorPage.of(listings, size, l -> new Cursor(l.getName(), l.getProductId()), estimatedTotal);
+
+        return page.withContent(findAllByIdInOrder(page.getContent()));
+    }
+
+    @Override
+    @Transactional
     public Category setParentCategoryById(Long id, Long parentId) {
 
         if (Objects.equals(id, parentId)) {
@@ -102,20 +165,95 @@ public class CategoryService implements ICategoryService {
         Category category = getCategoryById(id);
         Category parentCategory = getCategoryById(parentId);
 
+        if (categoryClosureRepository.existsByAncestorIdAndDescendantId(id, parentId)) {
+            throw new IllegalArgumentException("Category cannot have one of its subcategories as parent category");
+        }
+
         log.info("Setting parent category id {} to category id {}", parentId, id);
         category.setParentCategory(parentCategory);
 
-        return categoryRepository.save(category);
+        categoryClosureRepository.detachSubtree(id);
+        categoryClosureRepository.attachSubtree(id, parentId);
+
+        productViewCache.evictAll();
+        categoryTreeCache.invalidate();
+
+        return CategoryFetchPlan.initialize(categoryRepository.save(category));
     }
 
     @Override
+    @Transactional
     public void removeParentCategoryById(Long id) {
         Category category = getCategoryById(id);
 
         log.info("Removing parent category from category id {}", id);
         category.setParentCategory(null);
 
+        categoryClosureRepository.detachSubtree(id);
+
         categoryRepository.save(category);
+        productViewCache.evictAll();
+        categoryTreeCache.invalidate();
+    }
+
+    @Override
+    @Transactional
+    public CategoryTreeRespDTO getCategoryTree() {
+        return categoryTreeCache.get(this::buildCategoryTree);
+    }
+
+    // Active categories only, a subcategory of an inactive or deleted category is left out with it
+    private CategoryTreeRespDTO buildCategoryTree() {
+
+        Map<Long, Object[]> rows = new LinkedHashMap<>();
+        Map<Long, List<Long>> children = new HashMap<>();
+        List<Long> roots = new ArrayList<>();
+
+        for (Object[] row : categoryRepository.findTreeRowsByStatus(Status.ACTIVE)) {
+
+            Long id = (Long) row[0];
+            Long parentId = (Long) row[3];
+
+            rows.put(id, row);
+
+            if (parentId == null) {
+                roots.add(id);
+            } else {
+                children.computeIfAbsent(parentId, k -> new ArrayList<>()).add(id);
+            }
+        }
+
+        Map<Long, Long> productCounts = new HashMap<>();
+        productListingRepository.countSellableGroupBySubtreeCategoryId().forEach(row -> productCounts.put((Long) row[0], (Long) row[1]));
+
+        Map<Long, CategoryTreeNodeRespDTO> nodes = new LinkedHashMap<>();
+        Deque<List<Long>> paths = new ArrayDeque<>();
+
+        roots.forEach(id -> paths.push(List.of(id)));
+
+        while (!paths.isEmpty()) {
+
+            List<Long> path = paths.pop();
+            Long id = path.get(path.size() - 1);
+            Object[] row = rows.get(id);
+            List<Long> childIds = children.getOrDefault(id, List.of()).stream().filter(rows::containsKey).toList();
+
+            nodes.put(id, new CategoryTreeNodeRespDTO(id, (String) row[1], (String) row[2], (Long) row[3], path.size() - 1,
+                    productCounts.getOrDefault(id, 0L), childIds, path));
+
+            for (Long childId : childIds) {
+                List<Long> childPath = new ArrayList<>(path);
+                childPath.add(childId);
+                paths.push(List.copyOf(childPath));
+            }
+        }
+
+        return new CategoryTreeRespDTO(roots, nodes);
+    }
+
+    private List<Product> findAllByIdInOrder(List<ProductListing> listings) {
+        return ProductFetchPlan.initializeAll(productRepository.findAllByIdInOrder(
+                listings.stream().map(ProductListing::getProductId).toList()));
     }
 
     private void validateExistingSlug(String slug, Long id) {
@@ -0,0 +1,66 @@
+package com.tota.eccom.domain.category.cache;
+
+import com.tota.eccom.adapters.dto.category.response.CategoryTreeRespDTO;
+import com.tota.eccom.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/*
+    Holds the current category tree snapshot. Readers get it with a volatile read; it is rebuilt by a single loader
+    when a category changed or when it is older than the TTL, which bounds how stale its product counts can get.
+
+    Invalidations bump a generation after the transaction commits. A rebuild remembers the generation it started
+    from, so one that raced with a commit is not taken as current and the next reader builds again.
+ */
+@Component
+public class CategoryTreeCache {
+
+    private record Snapshot(CategoryTreeRespDTO tree, long generation, long builtAt) {
+    }
+
+    private final long ttlNanos;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public CategoryTreeCache(@Value("${CATEGORY_TREE_TTL_SECONDS:60}") long ttlSeconds) {
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+    }
+
+    public CategoryTreeRespDTO get(Supplier<CategoryTreeRespDTO> loader) {
+
+        Snapshot current = snapshot;
+
+        if (isCurrent(current)) {
+            return current.tree();
+        }
+
+        synchronized (this) {
+            current = snapshot;
+
+            if (isCurrent(current)) {
+                return current.tree();
+            }
+
+            long building = generation.get();
+            CategoryTreeRespDTO tree = loader.get();
+
+            snapshot = new Snapshot(tree, building, System.nanoTime());
+
+            return tree;
+        }
+    }
+
+    public void invalidate() {
+        TransactionUtil.afterCommit(generation::incrementAndGet);
+    }
+
+    private boolean isCurrent(Snapshot current) {
+        return current != null
+                && current.generation() == generation.get()
+                && System.nanoTime() - current.builtAt() < ttlNanos;
+    }
+}
@@ -0,0 +1,48 @@
+package com.tota.eccom.domain.category.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/*
+    Closure table of the category tree: one row for every (ancestor, descendant) pair, including each category as
+    its own ancestor at depth 0. "Category or any descendant" is then an indexed equality lookup on ancestor_id,
+    whatever the depth of the tree. Kept in sync by CategoryService when a parent is set or removed.
+ */
+@Entity
+@Table(name = "category_closure", indexes = {
+        @Index(name = "idx_category_closure_descendant_id", columnList = "descendant_id, ancestor_id"),
+})
+@IdClass(CategoryClosure.Key.class)
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryClosure {
+
+    @Id
+    @Column(name = "ancestor_id")
+    private Long ancestorId;
+
+    @Id
+    @Column(name = "descendant_id")
+    private Long descendantId;
+
+    @Column(name = "depth", nullable = false)
+    private Integer depth;
+
+    public static CategoryClosure self(Long categoryId) {
+        return new CategoryClosure(categoryId, categoryId, 0);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private Long ancestorId;
+        private Long descendantId;
+    }
+}
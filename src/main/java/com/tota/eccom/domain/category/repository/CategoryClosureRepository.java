@@ -0,0 +1,39 @@
+package com.tota.eccom.domain.category.repository;
+
+import com.tota.eccom.domain.category.model.CategoryClosure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CategoryClosureRepository extends JpaRepository<CategoryClosure, CategoryClosure.Key> {
+
+    boolean existsByAncestorIdAndDescendantId(Long ancestorId, Long descendantId);
+
+    /**
+     * Cuts the subtree rooted at the given category from its current ancestors, keeping the paths inside it.
+     */
+    @Modifying
+    @Query(value = """
+            DELETE FROM category_closure
+            WHERE descendant_id IN (SELECT s.descendant_id FROM category_closure s WHERE s.ancestor_id = :categoryId)
+              AND ancestor_id NOT IN (SELECT s.descendant_id FROM category_closure s WHERE s.ancestor_id = :categoryId)
+            """, nativeQuery = true)
+    int detachSubtree(Long categoryId);
+
+    /**
+     * Links every ancestor of the parent, the parent included, to every node of the subtree rooted at the category.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO category_closure (ancestor_id, descendant_id, depth)
+            SELECT a.ancestor_id, s.descendant_id, a.depth + s.depth + 1
+            FROM category_closure a CROSS JOIN category_closure s
+            WHERE a.descendant_id = :parentId AND s.ancestor_id = :categoryId
+            """, nativeQuery = true)
+    int attachSubtree(Long categoryId, Long parentId);
+
+    @Query("SELECT count(c) FROM Category c WHERE NOT EXISTS (SELECT 1 FROM CategoryClosure cc WHERE cc.ancestorId = c.id AND cc.descendantId = c.id)")
+    long countCategoriesWithoutClosure();
+}
@@ -0,0 +1,32 @@
+package com.tota.eccom.domain.category.repository;
+
+import com.tota.eccom.domain.category.model.Category;
+import org.hibernate.Hibernate;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/*
+    Loads what CategoryRespDTO reads while the persistence context is still open. Parents are lazy proxies and
+    are loaded in batches (hibernate.default_batch_fetch_size), so walking the chain costs one query per tree level
+    for every category in the session, not one per category.
+ */
+public class CategoryFetchPlan {
+
+    private CategoryFetchPlan() {
+    }
+
+    public static Category initialize(Category category) {
+
+        Set<Category> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Category current = category;
+
+        while (current != null && visited.add(current)) {
+            Hibernate.initialize(current);
+            current = current.getParentCategory();
+        }
+
+        return category;
+    }
+}
@@ -1,10 +1,14 @@
 package com.tota.eccom.domain.category.repository;
 
 import com.tota.eccom.domain.category.model.Category;
+import com.tota.eccom.util.enums.Status;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +16,14 @@ public interface CategoryRepository extends JpaRepository<Category, Long>, JpaSp
 
     Optional<Category> findBySlug(String slug);
 
+    List<Category> findBySlugIn(Collection<String> slugs);
+
+    // Rows are [category id, parent category id or null], for rebuilding the closure table
+    @Query("SELECT c.id, p.id FROM Category c LEFT JOIN c.parentCategory p")
+    List<Object[]> findAllParentIds();
+
+    // Rows are [id, name, slug, parent category id or null], for building the navigation tree
+    @Query("SELECT c.id, c.name, c.slug, p.id FROM Category c LEFT JOIN c.parentCategory p WHERE c.status = :status ORDER BY c.name, c.id")
+    List<Object[]> findTreeRowsByStatus(Status status);
+
 }
@@ -0,0 +1,68 @@
+package com.tota.eccom.domain.category.threads;
+
+import com.tota.eccom.domain.category.model.CategoryClosure;
+import com.tota.eccom.domain.category.repository.CategoryClosureRepository;
+import com.tota.eccom.domain.category.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+    Builds the category closure table for trees written before it existed. When any category is missing from it,
+    the whole table is rebuilt from the parent references, in one transaction.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryClosureInitializer {
+
+    private final CategoryRepository categoryRepository;
+    private final CategoryClosureRepository categoryClosureRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void initializeClosure() {
+
+        if (categoryClosureRepository.countCategoriesWithoutClosure() == 0) {
+            return;
+        }
+
+        Integer built = transactionTemplate.execute(status -> {
+
+            Map<Long, Long> parents = new HashMap<>();
+            categoryRepository.findAllParentIds().forEach(row -> parents.put((Long) row[0], (Long) row[1]));
+
+            List<CategoryClosure> closure = new ArrayList<>();
+
+            for (Long categoryId : parents.keySet()) {
+
+                Set<Long> visited = new HashSet<>();
+                Long ancestorId = categoryId;
+                int depth = 0;
+
+                // The visited guard stops at a cycle left by older data instead of looping forever
+                while (ancestorId != null && visited.add(ancestorId)) {
+                    closure.add(new CategoryClosure(ancestorId, categoryId, depth++));
+                    ancestorId = parents.get(ancestorId);
+                }
+            }
+
+            categoryClosureRepository.deleteAllInBatch();
+            categoryClosureRepository.saveAll(closure);
+
+            return closure.size();
+        });
+
+        log.info("Category closure rows built on initialize: {}", built);
+    }
+}
@@ -0,0 +1,12 @@
+package com.tota.eccom.domain.product;
+
+import com.tota.eccom.domain.product.model.enums.ProductFileFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+
+public interface IProductExportService {
+
+    long exportProducts(OutputStream output, ProductFileFormat format) throws IOException;
+}
@@ -0,0 +1,13 @@
+package com.tota.eccom.domain.product;
+
+import com.tota.eccom.adapters.dto.product.response.ProductImportReportRespDTO;
+import com.tota.eccom.domain.product.model.enums.ProductFileFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+
+public interface IProductImportService {
+
+    ProductImportReportRespDTO importProducts(InputStream input, ProductFileFormat format) throws IOException;
+}
@@ -1,12 +1,21 @@
 package com.tota.eccom.domain.product;
 
 import com.tota.eccom.adapters.dto.product.request.ProductDTO;
+import com.tota.eccom.adapters.dto.product.request.ProductFacetSearchReqDTO;
 import com.tota.eccom.adapters.dto.product.request.ProductPriceDTO;
 import com.tota.eccom.adapters.dto.product.request.ProductStockDTO;
+import com.tota.eccom.adapters.dto.product.response.ProductFacetSearchRespDTO;
+import com.tota.eccom.adapters.dto.product.response.ProductRespDTO;
+import com.tota.eccom.adapters.dto.product.response.SuggestionRespDTO;
 import com.tota.eccom.domain.product.model.Product;
+import com.tota.eccom.util.pagination.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 
 public interface IProductService {
 
@@ -14,6 +23,13 @@ public interface IProductService {
 
     Product getProductById(Long id);
 
+    /**
+     * Loads every given product with its prices and stock in one query, throwing when any of them does not exist.
+     */
+    List<Product> getProductsByIds(Collection<Long> ids);
+
+    ProductRespDTO getProductViewById(Long id);
+
     void deleteProductById(Long id);
 
     Product updateProductById(Long id, ProductDTO productDTO);
@@ -28,9 +44,33 @@ public interface IProductService {
 
     Product getProductBySlug(String slug);
 
+    ProductRespDTO getProductViewBySlug(String slug);
+
+    List<SuggestionRespDTO> suggest(String prefix, int limit);
+
     Page<Product> searchProductsByTerm(String term, Pageable pageable);
 
+    CursorPage<Product> searchProductsByTerm(String term, String cursor, int size, boolean estimateTotal);
+
+    ProductFacetSearchRespDTO searchProductsWithFacets(ProductFacetSearchReqDTO request, Pageable pageable);
+
     Product addProductCategoryToProduct(Long id, Long categoryId);
 
     Product addProductBrandToProduct(Long id, Long brandId);
+
+    Product setProductStockHot(Long id, boolean hot);
+
+    void reserveStock(Long productId, int quantity);
+
+    /**
+     * Reserves all the given quantities, by product id, or none of them.
+     */
+    void reserveStock(Map<Long, Integer> quantities);
+
+    void releaseStock(Long productId, int quantity);
+
+    /**
+     * Releases all the given quantities, by product id, or none of them.
+     */
+    void releaseStock(Map<Long, Integer> quantities);
 }
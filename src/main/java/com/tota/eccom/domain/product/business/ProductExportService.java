@@ -0,0 +1,104 @@
+package com.tota.eccom.domain.product.business;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.tota.eccom.adapters.dto.product.response.ProductExportRowDTO;
+import com.tota.eccom.domain.product.IProductExportService;
+import com.tota.eccom.domain.product.model.enums.ProductFileFormat;
+import com.tota.eccom.domain.product.repository.ProductFetchPlan;
+import com.tota.eccom.domain.product.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/*
+    Catalog export written straight to the given stream. Products are read forward by id in chunks, each chunk in its
+    own short read-only transaction, so heap usage stays at one chunk and no connection is held while a slow client
+    reads the response. Products changed during the export are written as they are when their chunk is read.
+ */
+@Component
+@Slf4j
+public class ProductExportService implements IProductExportService {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private static final ObjectWriter NDJSON_WRITER = new JsonMapper().writerFor(ProductExportRowDTO.class);
+
+    // The caller owns the stream, it may still have to finish a compression trailer after the export
+    private static final CsvMapper CSV_MAPPER = CsvMapper.builder()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private static final CsvSchema CSV_SCHEMA = CsvSchema.builder()
+            .addColumns(ProductExportRowDTO.CSV_COLUMNS, CsvSchema.ColumnType.STRING)
+            .setUseHeader(true)
+            .build();
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ProductExportService(ProductRepository productRepository, PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+
+    @Override
+    public long exportProducts(OutputStream output, ProductFileFormat format) throws IOException {
+
+        long startTime = System.currentTimeMillis();
+        long exported = 0;
+        long lastId = 0L;
+
+        try (SequenceWriter csvWriter = format == ProductFileFormat.CSV ? CSV_MAPPER.writer(CSV_SCHEMA).writeValues(output) : null) {
+
+            List<ProductExportRowDTO> rows = readChunk(lastId);
+
+            while (!rows.isEmpty()) {
+
+                for (ProductExportRowDTO row : rows) {
+                    if (csvWriter != null) {
+                        csvWriter.write(row.toCsvColumns());
+                    } else {
+                        output.write(NDJSON_WRITER.writeValueAsBytes(row));
+                        output.write('\n');
+                    }
+                }
+
+                exported += rows.size();
+                lastId = rows.get(rows.size() - 1).getId();
+
+                if (csvWriter != null) {
+                    csvWriter.flush();
+                }
+                output.flush();
+
+                rows = readChunk(lastId);
+            }
+        }
+
+        log.info("Product export finished, format: {}, exported: {}, duration: {} ms",
+                format, exported, System.currentTimeMillis() - startTime);
+
+        return exported;
+    }
+
+    private List<ProductExportRowDTO> readChunk(long afterId) {
+        return readOnlyTransaction.execute(status -> ProductFetchPlan.initializeAll(
+                        productRepository.findProductsAfter(afterId, PageRequest.of(0, CHUNK_SIZE)))
+                .stream()
+                .map(ProductExportRowDTO::new)
+                .toList());
+    }
+}
@@ -0,0 +1,312 @@
+package com.tota.eccom.domain.product.business;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.tota.eccom.adapters.dto.product.request.ProductImportRowDTO;
+import com.tota.eccom.adapters.dto.product.response.ProductImportReportRespDTO;
+import com.tota.eccom.domain.brand.model.Brand;
+import com.tota.eccom.domain.brand.repository.BrandRepository;
+import com.tota.eccom.domain.category.model.Category;
+import com.tota.eccom.domain.category.repository.CategoryRepository;
+import com.tota.eccom.domain.product.IProductImportService;
+import com.tota.eccom.domain.product.model.Product;
+import com.tota.eccom.domain.product.model.ProductListing;
+import com.tota.eccom.domain.product.model.enums.ProductFileFormat;
+import com.tota.eccom.domain.product.repository.ProductRepository;
+import com.tota.eccom.domain.product.repository.ProductSearchRepository;
+import com.tota.eccom.domain.product.suggest.ProductSuggestIndex;
+import com.tota.eccom.util.TransactionUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+    Bulk product import. The input is read as a stream and imported in chunks, one transaction per chunk, so memory
+    stays flat and a failing chunk does not roll back the ones already imported.
+
+    Per chunk: rows are validated, SKU and slug conflicts plus brand and category references are resolved with one
+    IN query each, and the products are persisted through the EntityManager so Hibernate batches the inserts
+    (hibernate.jdbc.batch_size) with ids taken from the pooled sequences. Rows that fail are reported by line and
+    never stop the import.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductImportService implements IProductImportService {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final ObjectReader NDJSON_READER = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build()
+            .readerFor(ProductImportRowDTO.class);
+
+    private static final ObjectReader CSV_READER = new CsvMapper()
+            .readerForMapOf(String.class)
+            .with(CsvSchema.emptySchema().withHeader());
+
+    private final ProductRepository productRepository;
+    private final BrandRepository brandRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductSearchRepository productSearchRepository;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+
+    @Override
+    public ProductImportReportRespDTO importProducts(InputStream input, ProductFileFormat format) throws IOException {
+
+        ProductImportReportRespDTO report = new ProductImportReportRespDTO();
+        List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        Consumer<ImportRow> collector = row -> {
+            chunk.add(row);
+            if (chunk.size() == CHUNK_SIZE) {
+                importChunk(chunk, report);
+                chunk.clear();
+            }
+        };
+
+        long startTime = System.currentTimeMillis();
+
+        if (format == ProductFileFormat.CSV) {
+            readCsv(input, collector, report);
+        } else {
+            readNdjson(input, collector, report);
+        }
+
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, report);
+        }
+
+        log.info("Product import finished, received: {}, imported: {}, failed: {}, duration: {} ms",
+                report.getReceived(), report.getImported(), report.getFailed(), System.currentTimeMillis() - startTime);
+
+        return report;
+    }
+
+    private void readNdjson(InputStream input, Consumer<ImportRow> collector, ProductImportReportRespDTO report) throws IOException {
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+
+        String line;
+        long lineNumber = 0;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+
+            if (line.isBlank()) {
+                continue;
+            }
+
+            report.addReceived(1);
+
+            try {
+                collector.accept(new ImportRow(lineNumber, NDJSON_READER.readValue(line)));
+            } catch (JsonProcessingException e) {
+                report.addError(lineNumber, null, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private void readCsv(InputStream input, Consumer<ImportRow> collector, ProductImportReportRespDTO report) throws IOException {
+
+        try (MappingIterator<Map<String, String>> rows = CSV_READER.readValues(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+
+            // Line 1 is the header
+            long lineNumber = 1;
+
+            while (true) {
+                Map<String, String> columns;
+
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    columns = rows.nextValue();
+                } catch (RuntimeJsonMappingException | JsonProcessingException e) {
+                    // The parser can not be trusted to resynchronize after a malformed row, so the rest is not read
+                    report.addReceived(1);
+                    report.addError(lineNumber + 1, null, "Invalid CSV row, import stopped: " + e.getMessage());
+                    break;
+                }
+
+                lineNumber++;
+                report.addReceived(1);
+
+                try {
+                    collector.accept(new ImportRow(lineNumber, ProductImportRowDTO.fromCsv(columns)));
+                } catch (IllegalArgumentException e) {
+                    report.addError(lineNumber, columns.get("sku"), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void importChunk(List<ImportRow> rows, ProductImportReportRespDTO report) {
+
+        List<ImportRow> accepted = new ArrayList<>();
+        List<ImportError> errors = new ArrayList<>();
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> persistChunk(rows, accepted, errors));
+            report.addImported(accepted.size());
+        } catch (DataAccessException | PersistenceException | TransactionException e) {
+            String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            log.warn("Product import chunk starting at line {} rolled back: {}", rows.get(0).line(), cause);
+
+            Set<ImportRow> rejected = errors.stream().map(ImportError::row).collect(Collectors.toSet());
+            rows.stream()
+                    .filter(row -> !rejected.contains(row))
+                    .forEach(row -> errors.add(new ImportError(row, "Not imported, chunk rolled back: " + cause)));
+        }
+
+        errors.stream()
+                .sorted(Comparator.comparingLong(error -> error.row().line()))
+                .forEach(error -> report.addError(error.row().line(), error.row().dto().getSku(), error.message()));
+    }
+
+    private void persistChunk(List<ImportRow> rows, List<ImportRow> accepted, List<ImportError> errors) {
+
+        Map<ImportRow, Product> products = new LinkedHashMap<>();
+        Set<String> chunkSkus = new HashSet<>();
+        Set<String> chunkSlugs = new HashSet<>();
+
+        for (ImportRow row : rows) {
+            try {
+                Product product = row.dto().toProduct();
+
+                if (!chunkSkus.add(product.getSku())) {
+                    errors.add(new ImportError(row, "Duplicated SKU in import: " + product.getSku()));
+                } else if (!chunkSlugs.add(product.getSlug())) {
+                    errors.add(new ImportError(row, "Duplicated slug in import: " + product.getSlug()));
+                } else {
+                    products.put(row, product);
+                }
+            } catch (IllegalArgumentException e) {
+                errors.add(new ImportError(row, e.getMessage()));
+            }
+        }
+
+        if (products.isEmpty()) {
+            return;
+        }
+
+        Set<String> existingSkus = productRepository.findExistingSkus(chunkSkus);
+        Set<String> existingSlugs = productRepository.findExistingSlugs(chunkSlugs);
+        Map<String, Brand> brands = findBrands(products.keySet());
+        Map<String, Category> categories = findCategories(products.keySet());
+
+        List<Long> productIds = new ArrayList<>(products.size());
+        List<ProductListing> listings = new ArrayList<>(products.size());
+
+        for (Map.Entry<ImportRow, Product> entry : products.entrySet()) {
+            ImportRow row = entry.getKey();
+            Product product = entry.getValue();
+
+            Optional<String> conflict = findConflict(row.dto(), product, existingSkus, existingSlugs, brands, categories);
+
+            if (conflict.isPresent()) {
+                errors.add(new ImportError(row, conflict.get()));
+                continue;
+            }
+
+            if (row.dto().getBrandSlug() != null) {
+                product.setBrand(brands.get(row.dto().getBrandSlug()));
+            }
+
+            product.setProductCategories(categorySlugsOf(row.dto()).stream().map(categories::get).collect(Collectors.toCollection(ArrayList::new)));
+
+            entityManager.persist(product);
+
+            ProductListing listing = ProductListing.from(product);
+            entityManager.persist(listing);
+
+            productIds.add(product.getId());
+            listings.add(listing);
+            accepted.add(row);
+        }
+
+        entityManager.flush();
+        productSearchRepository.index(productIds);
+        entityManager.clear();
+
+        // A chunk that rolls back must not leave suggestions for products that were never saved
+        TransactionUtil.afterCommit(() -> productSuggestIndex.putProducts(listings));
+    }
+
+    private Optional<String> findConflict(ProductImportRowDTO dto, Product product, Set<String> existingSkus, Set<String> existingSlugs,
+                                          Map<String, Brand> brands, Map<String, Category> categories) {
+
+        if (existingSkus.contains(product.getSku())) {
+            return Optional.of("Product already exists with given sku: " + product.getSku());
+        }
+
+        if (existingSlugs.contains(product.getSlug())) {
+            return Optional.of("Product with given slug already exists: " + product.getSlug());
+        }
+
+        if (dto.getBrandSlug() != null && !brands.containsKey(dto.getBrandSlug())) {
+            return Optional.of("Brand not found with given slug: " + dto.getBrandSlug());
+        }
+
+        return categorySlugsOf(dto).stream()
+                .filter(slug -> !categories.containsKey(slug))
+                .findFirst()
+                .map(slug -> "Category not found with given slug: " + slug);
+    }
+
+    private Map<String, Brand> findBrands(Collection<ImportRow> rows) {
+
+        Set<String> slugs = rows.stream()
+                .map(row -> row.dto().getBrandSlug())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        return slugs.isEmpty() ? Map.of() : brandRepository.findBySlugIn(slugs).stream()
+                .collect(Collectors.toMap(Brand::getSlug, Function.identity()));
+    }
+
+    private Map<String, Category> findCategories(Collection<ImportRow> rows) {
+
+        Set<String> slugs = rows.stream()
+                .flatMap(row -> categorySlugsOf(row.dto()).stream())
+                .collect(Collectors.toSet());
+
+        return slugs.isEmpty() ? Map.of() : categoryRepository.findBySlugIn(slugs).stream()
+                .collect(Collectors.toMap(Category::getSlug, Function.identity()));
+    }
+
+    private static List<String> categorySlugsOf(ProductImportRowDTO dto) {
+        return dto.getCategorySlugs() == null ? List.of() : dto.getCategorySlugs().stream().distinct().toList();
+    }
+
+    private record ImportRow(long line, ProductImportRowDTO dto) {
+    }
+
+    private record ImportError(ImportRow row, String message) {
+    }
+}
@@ -1,39 +1,84 @@
 package com.tota.eccom.domain.product.business;
 
 import com.tota.eccom.adapters.dto.product.request.ProductDTO;
+import com.tota.eccom.adapters.dto.product.request.ProductFacetSearchReqDTO;
 import com.tota.eccom.adapters.dto.product.request.ProductPriceDTO;
 import com.tota.eccom.adapters.dto.product.request.ProductStockDTO;
+import com.tota.eccom.adapters.dto.product.response.FacetCountRespDTO;
+import com.tota.eccom.adapters.dto.product.response.PriceRangeFacetRespDTO;
+import com.tota.eccom.adapters.dto.product.response.ProductFacetSearchRespDTO;
+import com.tota.eccom.adapters.dto.product.response.ProductRespDTO;
+import com.tota.eccom.adapters.dto.product.response.SuggestionRespDTO;
 import com.tota.eccom.domain.product.IProductService;
+import com.tota.eccom.domain.product.cache.ProductViewCache;
 import com.tota.eccom.domain.product.model.Product;
+import com.tota.eccom.domain.product.model.ProductFacets;
+import com.tota.eccom.domain.product.model.ProductListing;
+import com.tota.eccom.domain.product.model.ProductSearchCriteria;
+import com.tota.eccom.domain.product.model.enums.SuggestionType;
 import com.tota.eccom.domain.brand.model.Brand;
 import com.tota.eccom.domain.category.model.Category;
 import com.tota.eccom.domain.brand.repository.BrandRepository;
 import com.tota.eccom.domain.category.repository.CategoryRepository;
+import com.tota.eccom.domain.product.repository.ProductFacetRepository;
+import com.tota.eccom.domain.product.repository.ProductFetchPlan;
+import com.tota.eccom.domain.product.repository.ProductListingRepository;
 import com.tota.eccom.domain.product.repository.ProductRepository;
-import com.tota.eccom.domain.product.repository.spec.ProductSpecification;
+import com.tota.eccom.domain.product.repository.ProductSearchRepository;
+import com.tota.eccom.domain.product.repository.ProductStockRepository;
+import com.tota.eccom.domain.product.stock.HotStockCounter;
+import com.tota.eccom.domain.product.suggest.ProductSuggestIndex;
 import com.tota.eccom.exceptions.generic.ResourceAlreadyExistsException;
 import com.tota.eccom.exceptions.generic.ResourceNotFoundException;
+import com.tota.eccom.exceptions.product.InsufficientStockException;
 import com.tota.eccom.util.SlugUtil;
 import com.tota.eccom.util.enums.Status;
+import com.tota.eccom.util.pagination.Cursor;
+import com.tota.eccom.util.pagination.CursorPage;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class ProductService implements IProductService {
 
+    private static final Comparator<FacetCountRespDTO> FACET_ORDER = Comparator.comparingLong(FacetCountRespDTO::getCount).reversed()
+            .thenComparing(FacetCountRespDTO::getName);
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final BrandRepository brandRepository;
+    private final ProductSearchRepository productSearchRepository;
+    private final ProductListingRepository productListingRepository;
+    private final ProductStockRepository productStockRepository;
+    private final HotStockCounter hotStockCounter;
+    private final ProductViewCache productViewCache;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final ProductFacetRepository productFacetRepository;
+    private final TransactionTemplate transactionTemplate;
 
 
     @Override
@@ -52,12 +97,36 @@ public class ProductService implements IProductService {
 
         log.info("Creating product: {}", product);
 
-        return productRepository.save(product);
+        return ProductFetchPlan.initialize(saveAndIndex(product));
     }
 
     @Override
+    @Transactional
     public Product getProductById(Long id) {
-        return productRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Product not found with given id: " + id));
+        return productRepository.findWithViewById(id)
+                .map(ProductFetchPlan::initialize)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with given id: " + id));
+    }
+
+    @Override
+    @Transactional
+    public List<Product> getProductsByIds(Collection<Long> ids) {
+
+        List<Product> products = productRepository.findWithViewByIdIn(ids);
+
+        if (products.size() < new HashSet<>(ids).size()) {
+            Set<Long> missing = new TreeSet<>(ids);
+            products.forEach(p -> missing.remove(p.getId()));
+
+            throw new ResourceNotFoundException("Products not found with given ids: " + missing);
+        }
+
+        return ProductFetchPlan.initializeAll(products);
+    }
+
+    @Override
+    public ProductRespDTO getProductViewById(Long id) {
+        return productViewCache.getById(id, key -> transactionTemplate.execute(status -> new ProductRespDTO(getProductById(key))));
     }
 
     @Override
@@ -69,7 +138,8 @@ public class ProductService implements IProductService {
 
         product.setStatus(Status.DELETED);
 
-        productRepository.save(product);
+        saveAndIndex(product);
+        productViewCache.evict(id, product.getSlug());
     }
 
     @Override
@@ -81,12 +151,15 @@ public class ProductService implements IProductService {
         }
 
         Product product = getProductById(id);
+        String previousSlug = product.getSlug();
 
         Product updatedProduct = productDTO.toUpdatedProduct(product);
 
         log.info("Updating product: {}", updatedProduct);
 
-        return productRepository.save(updatedProduct);
+        productViewCache.evict(id, previousSlug, updatedProduct.getSlug());
+
+        return ProductFetchPlan.initialize(saveAndIndex(updatedProduct));
     }
 
     @Override
@@ -98,12 +171,15 @@ public class ProductService implements IProductService {
         }
 
         Product product = getProductById(id);
+        String previousSlug = product.getSlug();
 
         Product updatedProduct = productDTO.toPatchedProduct(product);
 
         log.info("Patching product: {}", updatedProduct);
 
-        return productRepository.save(updatedProduct);
+        productViewCache.evict(id, previousSlug, updatedProduct.getSlug());
+
+        return ProductFetchPlan.initialize(saveAndIndex(updatedProduct));
     }
 
     @Override
@@ -116,7 +192,9 @@ public class ProductService implements IProductService {
 
         log.info("Adding product price to product: {}", product);
 
-        return productRepository.save(product);
+        productViewCache.evict(id, product.getSlug());
+
+        return ProductFetchPlan.initialize(saveAndIndex(product));
     }
 
     @Override
@@ -127,13 +205,12 @@ public class ProductService implements IProductService {
 
         log.info("Deleting product price id {} from product: {}", priceId, product);
 
-        if (product.getProductPrices().stream().noneMatch(pp -> pp.getId().equals(priceId))) {
+        if (!product.removeProductPrice(priceId)) {
             throw new ResourceNotFoundException(String.format("Product price with id %s not found", priceId));
         }
 
-        product.getProductPrices().removeIf(pp -> pp.getId().equals(priceId));
-
-        productRepository.save(product);
+        saveAndIndex(product);
+        productViewCache.evict(id, product.getSlug());
     }
 
     @Override
@@ -142,29 +219,121 @@ public class ProductService implements IProductService {
 
         Product product = getProductById(id);
 
-        productStockDTO.addProductStockToProduct(product);
+        // An existing stock row keeps what carts reserved, the quantity is checked against it in the update itself
+        if (product.getProductStock() != null) {
+
+            productStockDTO.validate();
+
+            if (productStockRepository.updateQuantity(id, productStockDTO.getQuantity()) == 0) {
+                throw new IllegalArgumentException("Quantity can not be lower than the reserved quantity of product id: " + id);
+            }
+
+            product = getProductById(id);
+        } else {
+            productStockDTO.addProductStockToProduct(product);
+        }
 
         log.info("Adding product stock to product: {}", product);
 
-        return productRepository.save(product);
+        productViewCache.evict(id, product.getSlug());
+
+        return ProductFetchPlan.initialize(saveAndIndex(product));
     }
 
     @Override
+    @Transactional
     public Product getProductBySlug(String slug) {
 
         log.info("Getting product by slug: {}", slug);
 
-        return productRepository.findBySlug(slug).orElseThrow(() -> new ResourceNotFoundException("Product not found with given slug: " + slug));
+        return productRepository.findWithViewBySlug(slug)
+                .map(ProductFetchPlan::initialize)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with given slug: " + slug));
+    }
+
+    @Override
+    public ProductRespDTO getProductViewBySlug(String slug) {
+
+        ProductRespDTO view = productViewCache.getBySlug(slug, key -> transactionTemplate.execute(status -> new ProductRespDTO(getProductBySlug(key))));
+
+        // Storefront views are the popularity signal of product suggestions
+        productSuggestIndex.recordHit(SuggestionType.PRODUCT, view.getId());
+
+        return view;
     }
 
     @Override
+    public List<SuggestionRespDTO> suggest(String prefix, int limit) {
+        return productSuggestIndex.suggest(prefix, limit);
+    }
+
+    @Override
+    @Transactional
     public Page<Product> searchProductsByTerm(String term, Pageable pageable) {
 
         log.info("Searching products by term: {}", term);
 
-        Specification<Product> specification = ProductSpecification.searchProductsByTerm(term);
+        if (productSearchRepository.isFullTextEnabled()) {
+            Page<Long> productIds = productSearchRepository.searchProductIdsByTerm(term, pageable);
+            return new PageImpl<>(findAllByIdInOrder(productIds.getContent()), pageable, productIds.getTotalElements());
+        }
+
+        Page<ProductListing> listings = productListingRepository.searchSellableByTerm(likeOf(term), pageable);
 
-        return productRepository.findAll(specification, pageable);
+        return new PageImpl<>(findAllByIdInOrder(listings.map(ProductListing::getProductId).getContent()), pageable, listings.getTotalElements());
+    }
+
+    @Override
+    @Transactional
+    public CursorPage<Product> searchProductsByTerm(String term, String cursor, int size, boolean estimateTotal) {
+
+        log.info("Searching products by term: {}, cursor: {}", term, cursor);
+
+        Cursor after = Cursor.decode(cursor);
+
+        if (productSearchRepository.isFullTextEnabled()) {
+            List<Cursor> hits = productSearchRepository.searchProductsByTermAfter(term, after, CursorPage.sizeOf(size) + 1);
+
+            CursorPage<Cursor> page = CursorPage.of(hits, size, Function.identity(), estimateProductsByTerm(term, estimateTotal));
+
+            return page.withContent(findAllByIdInOrder(page.getContent().stream().map(Cursor::id).toList()));
+        }
+
+        Cursor position = after != null ? after : Cursor.START;
+
+        List<ProductListing> listings = productListingRepository.searchSellableByTermAfter(
+                likeOf(term), position.sortKey(), position.id(), CursorPage.limitOf(size));
+
+        CursorPage<ProductListing> page = CursorPage.of(listings, size, l -> new Cursor(l.getName(), l.getProductId()), estimateProductsByTerm(term, estimateTotal));
+
+        return page.withContent(findAllByIdInOrder(page.getContent().stream().map(ProductListing::getProductId).toList()));
+    }
+
+    @Override
+    @Transactional
+    public ProductFacetSearchRespDTO searchProductsWithFacets(ProductFacetSearchReqDTO request, Pageable pageable) {
+
+        log.info("Searching products with facets: {}", request);
+
+        request.validate();
+
+        Map<Long, Brand> brands = findBrandsBySlug(request.getBrands());
+        Map<Long, Category> categories = findCategoriesBySlug(request.getCategories());
+
+        ProductSearchCriteria criteria = new ProductSearchCriteria(request.getTerm(), brands.keySet(), categories.keySet(),
+                request.getMinPrice(), request.getMaxPrice());
+
+        List<Long> productIds = productFacetRepository.findProductIds(criteria, pageable);
+        ProductFacets facets = productFacetRepository.countFacets(criteria);
+
+        List<ProductRespDTO> products = findAllByIdInOrder(productIds).stream().map(ProductRespDTO::new).toList();
+
+        return ProductFacetSearchRespDTO.builder()
+                .products(new PageImpl<>(products, pageable, facets.total()))
+                .brands(brandFacetOf(facets.brandCounts(), brands))
+                .categories(categoryFacetOf(facets.categoryCounts(), categories))
+                .priceRanges(priceRangeFacetOf(facets, criteria))
+                .build();
     }
 
     @Override
@@ -185,7 +354,9 @@ public class ProductService implements IProductService {
 
         product.getProductCategories().add(category);
 
-        return productRepository.save(product);
+        productViewCache.evict(id, product.getSlug());
+
+        return ProductFetchPlan.initialize(saveAndIndex(product));
     }
 
     @Override
@@ -198,7 +369,229 @@ public class ProductService implements IProductService {
 
         product.setBrand(brand);
 
-        return productRepository.save(product);
+        productViewCache.evict(id, product.getSlug());
+
+        return ProductFetchPlan.initialize(saveAndIndex(product));
+    }
+
+    @Override
+    @Transactional
+    public Product setProductStockHot(Long id, boolean hot) {
+
+        Product product = getProductById(id);
+
+        if (product.getProductStock() == null) {
+            throw new ResourceNotFoundException("Product stock not found for product id: " + id);
+        }
+
+        log.info("Setting hot stock mode of product id {} to {}", id, hot);
+
+        product.getProductStock().setHot(hot);
+
+        if (hot) {
+            hotStockCounter.enable(id);
+        } else {
+            hotStockCounter.disable(id);
+        }
+
+        productViewCache.evict(id, product.getSlug());
+
+        return ProductFetchPlan.initialize(saveAndIndex(product));
+    }
+
+    @Override
+    @Transactional
+    public void reserveStock(Long productId, int quantity) {
+        reserveStock(Map.of(productId, quantity));
+    }
+
+    @Override
+    @Transactional
+    public void reserveStock(Map<Long, Integer> quantities) {
+        adjustStock(quantities, true);
+    }
+
+    @Override
+    @Transactional
+    public void releaseStock(Long productId, int quantity) {
+        releaseStock(Map.of(productId, quantity));
+    }
+
+    @Override
+    @Transactional
+    public void releaseStock(Map<Long, Integer> quantities) {
+        adjustStock(quantities, false);
+    }
+
+    /*
+        Reserves or releases every quantity with one conditional update per product, or throws and the transaction
+        rolls all of them back. Products are always updated in id order, so two batches over the same products lock
+        their stock rows in the same order and can not deadlock.
+
+        Cached product views are only evicted when a product sells out or comes back in stock: evicting on every
+        reservation would throw away the views of exactly the products that sell. Hot products are brought in step
+        by HotStockCounter's reconcile.
+     */
+    private void adjustStock(Map<Long, Integer> quantities, boolean reserve) {
+
+        Map<Long, Integer> ordered = new TreeMap<>(quantities);
+        Map<Long, Integer> listed = new HashMap<>();
+
+        ordered.forEach((productId, quantity) -> {
+
+            if (quantity == null || quantity <= 0) {
+                throw new IllegalArgumentException("Quantity must be greater than zero");
+            }
+
+            if (reserve ? hotStockCounter.tryReserve(productId, quantity) : hotStockCounter.tryRelease(productId, quantity)) {
+                return;
+            }
+
+            int updated = reserve
+                    ? productStockRepository.reserve(productId, quantity)
+                    : productStockRepository.release(productId, quantity);
+
+            if (updated == 0) {
+                if (!productRepository.existsById(productId)) {
+                    throw new ResourceNotFoundException("Product not found with given id: " + productId);
+                }
+
+                throw reserve
+                        ? new InsufficientStockException("Insufficient stock for product id: " + productId)
+                        : new IllegalArgumentException("Cannot release more than the reserved stock of product id: " + productId);
+            }
+
+            int delta = reserve ? -quantity : quantity;
+
+            productListingRepository.adjustAvailableQuantity(productId, delta);
+            listed.put(productId, delta);
+        });
+
+        if (listed.isEmpty()) {
+            return;
+        }
+
+        List<ProductListing> listings = productListingRepository.findSuggestListingsByProductIdIn(listed.keySet());
+
+        listings.stream()
+                .filter(listing -> (listing.getAvailableQuantity() > 0) != (listing.getAvailableQuantity() - listed.get(listing.getProductId()) > 0))
+                .forEach(listing -> productViewCache.evict(listing.getProductId(), listing.getSlug()));
+
+        // Only products that just sold out or came back in stock actually change the index
+        productSuggestIndex.putProducts(listings);
+    }
+
+    // Every product write goes through here, so the storefront listing and the search indexes follow it in the same transaction
+    private Product saveAndIndex(Product product) {
+
+        Product savedProduct = productRepository.save(product);
+
+        long unsoldEscrow = savedProduct.getProductStock() != null ? hotStockCounter.getUnsoldEscrow(savedProduct.getId()) : 0;
+
+        productSuggestIndex.putProduct(productListingRepository.save(ProductListing.from(savedProduct, unsoldEscrow)));
+        productSearchRepository.index(savedProduct.getId());
+
+        return savedProduct;
+    }
+
+    private Long estimateProductsByTerm(String term, boolean estimateTotal) {
+
+        if (!estimateTotal) {
+            return null;
+        }
+
+        return productSearchRepository.estimateProductsByTerm(term)
+                .orElseGet(() -> productListingRepository.countSellableByTerm(likeOf(term)));
+    }
+
+    private List<Product> findAllByIdInOrder(List<Long> ids) {
+        return ProductFetchPlan.initializeAll(productRepository.findAllByIdInOrder(ids));
+    }
+
+    private Map<Long, Brand> findBrandsBySlug(List<String> slugs) {
+
+        if (slugs == null || slugs.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, Brand> brands = brandRepository.findBySlugIn(slugs).stream()
+                .collect(Collectors.toMap(Brand::getId, Function.identity()));
+
+        Set<String> found = brands.values().stream().map(Brand::getSlug).collect(Collectors.toSet());
+
+        for (String slug : slugs) {
+            if (!found.contains(slug)) {
+                throw new ResourceNotFoundException("Product brand not found with given slug: " + slug);
+            }
+        }
+
+        return brands;
+    }
+
+    private Map<Long, Category> findCategoriesBySlug(List<String> slugs) {
+
+        if (slugs == null || slugs.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, Category> categories = categoryRepository.findBySlugIn(slugs).stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+
+        Set<String> found = categories.values().stream().map(Category::getSlug).collect(Collectors.toSet());
+
+        for (String slug : slugs) {
+            if (!found.contains(slug)) {
+                throw new ResourceNotFoundException("Product category not found with given slug: " + slug);
+            }
+        }
+
+        return categories;
+    }
+
+    // Selected brands are listed even when the other filters leave them without products
+    private List<FacetCountRespDTO> brandFacetOf(Map<Long, Long> counts, Map<Long, Brand> selected) {
+
+        Set<Long> ids = new HashSet<>(counts.keySet());
+        ids.addAll(selected.keySet());
+
+        return brandRepository.findAllById(ids).stream()
+                .map(brand -> new FacetCountRespDTO(brand, counts.getOrDefault(brand.getId(), 0L), selected.containsKey(brand.getId())))
+                .sorted(FACET_ORDER)
+                .toList();
+    }
+
+    private List<FacetCountRespDTO> categoryFacetOf(Map<Long, Long> counts, Map<Long, Category> selected) {
+
+        Set<Long> ids = new HashSet<>(counts.keySet());
+        ids.addAll(selected.keySet());
+
+        return categoryRepository.findAllById(ids).stream()
+                .map(category -> new FacetCountRespDTO(category, counts.getOrDefault(category.getId(), 0L), selected.containsKey(category.getId())))
+                .sorted(FACET_ORDER)
+                .toList();
+    }
+
+    private static List<PriceRangeFacetRespDTO> priceRangeFacetOf(ProductFacets facets, ProductSearchCriteria criteria) {
+
+        List<BigDecimal> bounds = facets.priceBounds();
+        boolean filtered = criteria.minPrice() != null || criteria.maxPrice() != null;
+
+        return IntStream.rangeClosed(0, bounds.size())
+                .mapToObj(bucket -> {
+                    BigDecimal from = bucket == 0 ? null : bounds.get(bucket - 1);
+                    BigDecimal to = bucket == bounds.size() ? null : bounds.get(bucket);
+
+                    boolean selected = filtered
+                            && (criteria.minPrice() == null || (from != null && from.compareTo(criteria.minPrice()) >= 0))
+                            && (criteria.maxPrice() == null || (to != null && to.compareTo(criteria.maxPrice()) <= 0));
+
+                    return new PriceRangeFacetRespDTO(from, to, facets.priceBucketCounts().getOrDefault(bucket, 0L), selected);
+                })
+                .toList();
+    }
+
+    private static String likeOf(String term) {
+        return "%" + term.toLowerCase() + "%";
     }
 
     private void validateProductSlug(String slug, Long id) {
@@ -0,0 +1,95 @@
+package com.tota.eccom.domain.product.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.tota.eccom.adapters.dto.product.response.ProductRespDTO;
+import com.tota.eccom.util.TransactionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Function;
+
+/*
+    In-process cache of built product views, keyed by slug (storefront) and by id (admin). Views are shared between
+    requests and must be treated as read-only.
+
+    Loads go through Caffeine's compute, so concurrent misses on the same key wait for a single database load.
+    Evictions requested inside a transaction run after it commits, so a reader can not cache the old state between
+    the eviction and the commit.
+ */
+@Component
+@Slf4j
+public class ProductViewCache {
+
+    private final Cache<String, ProductRespDTO> bySlug;
+    private final Cache<Long, ProductRespDTO> byId;
+
+    public ProductViewCache(@Value("${PRODUCT_CACHE_MAXIMUM_SIZE:10000}") long maximumSize,
+                            @Value("${PRODUCT_CACHE_TTL_SECONDS:600}") long ttlSeconds) {
+
+        this.bySlug = newCache(maximumSize, ttlSeconds);
+        this.byId = newCache(maximumSize, ttlSeconds);
+    }
+
+    public ProductRespDTO getBySlug(String slug, Function<String, ProductRespDTO> loader) {
+        return bySlug.get(slug, loader);
+    }
+
+    public ProductRespDTO getById(Long id, Function<Long, ProductRespDTO> loader) {
+        return byId.get(id, loader);
+    }
+
+    /**
+     * Evicts the views of the given product, under its id, the given slugs and the slug of any cached view.
+     * Pass the slug the product had before the change as well as the new one when it may have been renamed.
+     */
+    public void evict(Long id, String... slugs) {
+        TransactionUtil.afterCommit(() -> {
+            if (id != null) {
+                ProductRespDTO cached = byId.asMap().get(id);
+                if (cached != null) {
+                    bySlug.invalidate(cached.getSlug());
+                }
+                byId.invalidate(id);
+            }
+
+            Arrays.stream(slugs).filter(Objects::nonNull).forEach(bySlug::invalidate);
+        });
+    }
+
+    public void evictAll() {
+        TransactionUtil.afterCommit(() -> {
+            bySlug.invalidateAll();
+            byId.invalidateAll();
+        });
+    }
+
+    public CacheStats getSlugStats() {
+        return bySlug.stats();
+    }
+
+    public CacheStats getIdStats() {
+        return byId.stats();
+    }
+
+    public long getSlugSize() {
+        return bySlug.estimatedSize();
+    }
+
+    public long getIdSize() {
+        return byId.estimatedSize();
+    }
+
+    private static <K> Cache<K, ProductRespDTO> newCache(long maximumSize, long ttlSeconds) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+}
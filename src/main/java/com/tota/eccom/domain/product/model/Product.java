@@ -7,13 +7,16 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 
 @Data
 @NoArgsConstructor
@@ -35,10 +38,18 @@ import java.util.List;
         @Index(name = "idx_product_updated_at", columnList = "updatedAt"),
         @Index(name = "idx_product_slug", columnList = "slug"),
 })
+@NamedEntityGraph(name = Product.VIEW_GRAPH, attributeNodes = {
+        @NamedAttributeNode("brand"),
+        @NamedAttributeNode("productStock"),
+        @NamedAttributeNode("productPrices")
+})
 @Builder
 @AllArgsConstructor
 public class Product {
 
+    // Single product reads: to-one associations plus one collection in one select, the rest are batch fetched
+    public static final String VIEW_GRAPH = "Product.view";
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Long id;
@@ -103,7 +114,7 @@ public class Product {
     )
     private List<Category> productCategories = new ArrayList<>();
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Brand brand;
 
     @CreationTimestamp
@@ -114,6 +125,16 @@ public class Product {
     @Column(name = "updated_at", nullable = false)
     private Date updatedAt;
 
+    // Stamped by every price change, carts priced before it reprice their lines
+    @Column(name = "prices_changed_at")
+    private Date pricesChangedAt;
+
+    // Compiled from productPrices on first lookup, dropped whenever prices change
+    @Transient
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient ProductPriceTable priceTable;
+
     @PrePersist
     public void prePersist() {
         this.setCreatedAt(new Date());
@@ -125,16 +146,52 @@ public class Product {
         this.setUpdatedAt(new Date());
     }
 
+    public void setProductPrices(List<ProductPrice> productPrices) {
+        this.productPrices = productPrices;
+        this.priceTable = null;
+        this.pricesChangedAt = new Date();
+    }
+
+    public void addProductPrice(ProductPrice productPrice) {
+
+        if (productPrices == null) {
+            setProductPrices(new ArrayList<>());
+        }
+
+        productPrices.add(productPrice);
+        priceTable = null;
+        pricesChangedAt = new Date();
+    }
+
+    public boolean removeProductPrice(Long priceId) {
+
+        boolean removed = productPrices != null && productPrices.removeIf(pp -> Objects.equals(pp.getId(), priceId));
+        priceTable = null;
+
+        if (removed) {
+            pricesChangedAt = new Date();
+        }
+
+        return removed;
+    }
+
+    public ProductPriceTable getPriceTable() {
+
+        ProductPriceTable table = priceTable;
+
+        if (table == null || !table.isBuiltFrom(productPrices)) {
+            table = ProductPriceTable.of(productPrices);
+            priceTable = table;
+        }
+
+        return table;
+    }
+
+    /**
+     * Returns the price of the best tier for the given quantity, the highest tier quantity that does not exceed it.
+     */
     public ProductPrice getProductPriceByQuantity(Integer quantity) {
-        return getProductPrices().stream()
-                .filter(p -> p.getQuantity().equals(quantity))
-                .findFirst()
-                .or(() ->
-                        getProductPrices()
-                                .stream()
-                                .filter(p -> p.getQuantity().equals(1))
-                                .findFirst())
-                .orElse(null);
+        return quantity == null ? null : getPriceTable().findByQuantity(quantity);
     }
 
 }
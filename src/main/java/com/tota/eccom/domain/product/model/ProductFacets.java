@@ -0,0 +1,19 @@
+package com.tota.eccom.domain.product.model;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Facet counts of a product search. Each facet is counted with every filter applied except its own, so a sidebar
+ * can show how many products each other value would bring. The total has every filter applied.
+ *
+ * @param priceBounds       ascending bucket bounds, bucket i covers [bound i - 1, bound i) and the last one is open
+ * @param priceBucketCounts product count by bucket index, buckets without products are left out
+ */
+public record ProductFacets(long total,
+                            Map<Long, Long> brandCounts,
+                            Map<Long, Long> categoryCounts,
+                            List<BigDecimal> priceBounds,
+                            Map<Integer, Long> priceBucketCounts) {
+}
@@ -0,0 +1,111 @@
+package com.tota.eccom.domain.product.model;
+
+import com.tota.eccom.domain.category.model.Category;
+import com.tota.eccom.util.enums.Status;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+    Storefront read model, one row per product, kept in sync with the product on every write. It carries what the
+    listings filter and sort on, so they are answered from this table alone instead of joining prices and stock.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "product_listing", indexes = {
+        @Index(name = "idx_product_listing_sellable_name", columnList = "sellable, name, product_id"),
+        @Index(name = "idx_product_listing_brand_id", columnList = "brand_id, sellable, name, product_id"),
+        @Index(name = "idx_product_listing_sellable_base_price", columnList = "sellable, base_price"),
+})
+public class ProductListing {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Column(name = "slug", nullable = false)
+    private String slug;
+
+    @Column(name = "description")
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status;
+
+    @Column(name = "base_price", precision = 10, scale = 2)
+    private BigDecimal basePrice;
+
+    @Column(name = "available_quantity", nullable = false)
+    private Integer availableQuantity;
+
+    @Column(name = "brand_id")
+    private Long brandId;
+
+    @Builder.Default
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(
+            name = "product_listing_category",
+            joinColumns = @JoinColumn(name = "product_id"),
+            indexes = @Index(name = "idx_product_listing_category_id", columnList = "category_id, product_id")
+    )
+    @Column(name = "category_id", nullable = false)
+    private Set<Long> categoryIds = new HashSet<>();
+
+    @Column(name = "sellable", nullable = false)
+    private boolean sellable;
+
+    @Column(name = "updated_at", nullable = false)
+    private Date updatedAt;
+
+    // New products, which hold no hot stock escrow
+    public static ProductListing from(Product product) {
+        return from(product, 0);
+    }
+
+    /**
+     * Builds the listing of the product. unsoldEscrow is what the hot stock counters escrowed on its stock row and did
+     * not sell yet: it is counted as reserved there, but still for sale.
+     */
+    public static ProductListing from(Product product, long unsoldEscrow) {
+
+        ProductPrice basePrice = product.getProductPriceByQuantity(1);
+
+        ProductStock stock = product.getProductStock();
+        int availableQuantity = stock == null ? 0 : (int) (stock.getQuantity() - stock.getReservedQuantity() + unsoldEscrow);
+
+        Set<Long> categoryIds = product.getProductCategories() == null ? new HashSet<>() : product.getProductCategories().stream()
+                .map(Category::getId)
+                .collect(Collectors.toCollection(HashSet::new));
+
+        return ProductListing.builder()
+                .productId(product.getId())
+                .name(product.getName())
+                .slug(product.getSlug())
+                .description(product.getDescription())
+                .status(product.getStatus())
+                .basePrice(basePrice != null ? basePrice.getPrice() : null)
+                .availableQuantity(availableQuantity)
+                .brandId(product.getBrand() != null ? product.getBrand().getId() : null)
+                .categoryIds(categoryIds)
+                .sellable(isSellable(product.getStatus(), basePrice, availableQuantity))
+                .updatedAt(new Date())
+                .build();
+    }
+
+    private static boolean isSellable(Status status, ProductPrice basePrice, int availableQuantity) {
+        return status != Status.DELETED && status != Status.INACTIVE && basePrice != null && availableQuantity > 0;
+    }
+}
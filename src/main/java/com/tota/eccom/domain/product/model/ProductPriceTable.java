@@ -0,0 +1,96 @@
+package com.tota.eccom.domain.product.model;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+    Immutable quantity tier table of a product, compiled once from its prices. Quantities are kept sorted in a
+    primitive array so a lookup is a binary search for the best tier whose quantity is less than or equal to the
+    requested one, instead of scanning the price list on every cart update.
+
+    The table remembers the list it was built from, so Product can tell when a new collection was assigned to it
+    (Hibernate hydration, merge, setters) and compile it again.
+ */
+public final class ProductPriceTable {
+
+    private static final ProductPriceTable EMPTY = new ProductPriceTable(null, 0, new int[0], new ProductPrice[0]);
+
+    private final List<ProductPrice> source;
+    private final int sourceSize;
+    private final int[] quantities;
+    private final ProductPrice[] prices;
+
+    private ProductPriceTable(List<ProductPrice> source, int sourceSize, int[] quantities, ProductPrice[] prices) {
+        this.source = source;
+        this.sourceSize = sourceSize;
+        this.quantities = quantities;
+        this.prices = prices;
+    }
+
+    public static ProductPriceTable of(List<ProductPrice> productPrices) {
+
+        if (productPrices == null) {
+            return EMPTY;
+        }
+
+        // Stable sort, so on a repeated quantity the first price of the list wins as it did on the linear scan
+        ProductPrice[] tiers = productPrices.stream()
+                .filter(pp -> pp.getQuantity() != null && pp.getPrice() != null)
+                .sorted(Comparator.comparingInt(ProductPrice::getQuantity))
+                .toArray(ProductPrice[]::new);
+
+        int size = 0;
+
+        for (int i = 0; i < tiers.length; i++) {
+            if (size == 0 || !tiers[size - 1].getQuantity().equals(tiers[i].getQuantity())) {
+                tiers[size++] = tiers[i];
+            }
+        }
+
+        ProductPrice[] prices = Arrays.copyOf(tiers, size);
+        int[] quantities = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            quantities[i] = prices[i].getQuantity();
+        }
+
+        return new ProductPriceTable(productPrices, productPrices.size(), quantities, prices);
+    }
+
+    /**
+     * Returns the price of the highest tier whose quantity is less than or equal to the given quantity,
+     * or null when the quantity is below every tier.
+     */
+    public ProductPrice findByQuantity(int quantity) {
+
+        int index = Arrays.binarySearch(quantities, quantity);
+
+        if (index < 0) {
+            // Insertion point minus one is the closest lower tier
+            index = -index - 2;
+        }
+
+        return index >= 0 ? prices[index] : null;
+    }
+
+    /**
+     * Tiers ordered by quantity, one per quantity.
+     */
+    public List<ProductPrice> getTiers() {
+        return List.of(prices);
+    }
+
+    public boolean isEmpty() {
+        return prices.length == 0;
+    }
+
+    boolean isBuiltFrom(List<ProductPrice> productPrices) {
+        return source == productPrices && sourceSize == (productPrices == null ? 0 : productPrices.size());
+    }
+
+    @Override
+    public String toString() {
+        return "ProductPriceTable" + Arrays.toString(quantities);
+    }
+}
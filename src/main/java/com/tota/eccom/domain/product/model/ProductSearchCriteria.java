@@ -0,0 +1,21 @@
+package com.tota.eccom.domain.product.model;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * Filters of a faceted product search, already resolved to ids. Empty sets and null bounds mean no filter.
+ * The price range is over the single unit price, from minPrice inclusive to maxPrice exclusive.
+ */
+public record ProductSearchCriteria(String term, Set<Long> brandIds, Set<Long> categoryIds, BigDecimal minPrice, BigDecimal maxPrice) {
+
+    public ProductSearchCriteria {
+        term = term == null || term.isBlank() ? null : term.trim();
+        brandIds = brandIds == null ? Set.of() : Set.copyOf(brandIds);
+        categoryIds = categoryIds == null ? Set.of() : Set.copyOf(categoryIds);
+    }
+
+    public boolean hasTerm() {
+        return term != null;
+    }
+}
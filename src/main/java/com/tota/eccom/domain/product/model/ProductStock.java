@@ -3,11 +3,14 @@ package com.tota.eccom.domain.product.model;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.util.Date;
 
+// Only changed columns are written, so an entity update never overwrites reservedQuantity set by a reservation
 @Entity
+@DynamicUpdate
 @Table(name = "product_stock", indexes = {
         @Index(name = "idx_product_stock_quantity", columnList = "quantity"),
         @Index(name = "idx_product_stock_reserved_quantity", columnList = "reservedQuantity"),
@@ -32,6 +35,10 @@ public class ProductStock {
     @Column(nullable = false)
     private Integer reservedQuantity;
 
+    // Hot SKU mode, reservations are served from striped in-memory allotments, see HotStockCounter
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    private boolean hot;
+
     @CreationTimestamp
     @Temporal(TemporalType.TIMESTAMP)
     @Column(name = "created_at", nullable = false, updatable = false)
@@ -0,0 +1,48 @@
+package com.tota.eccom.domain.product.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+/*
+    Stock a running instance took from product_stock (counted there as reserved) for its hot SKU counters and has
+    not leased to them yet. Updated before units become spendable in memory, so it never holds more than what the
+    instance has left unsold, and touched on every reconcile. Rows of an instance that stopped touching them are
+    given back to the stock.
+
+    leased is what the counters of the instance held at its last reconcile. It is never given back, it only lets the
+    listing count the units every instance has escrowed but not sold yet.
+ */
+@Entity
+@Table(name = "product_stock_allotment",
+        uniqueConstraints = @UniqueConstraint(name = "uk_product_stock_allotment_product_instance", columnNames = {"product_id", "instance_id"}),
+        indexes = @Index(name = "idx_product_stock_allotment_updated_at", columnList = "updated_at"))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductStockAllotment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "instance_id", nullable = false, length = 36)
+    private String instanceId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Builder.Default
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private Integer leased = 0;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "updated_at", nullable = false)
+    private Date updatedAt;
+}
@@ -0,0 +1,32 @@
+package com.tota.eccom.domain.product.model.enums;
+
+import lombok.Getter;
+
+// File formats of product import and export, both use the same columns so an export can be imported back
+@Getter
+public enum ProductFileFormat {
+
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ProductFileFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public static ProductFileFormat fromContentType(String contentType) {
+
+        if (contentType != null) {
+            for (ProductFileFormat format : values()) {
+                if (contentType.toLowerCase().startsWith(format.getContentType())) {
+                    return format;
+                }
+            }
+        }
+
+        throw new IllegalArgumentException("Unsupported content type: " + contentType);
+    }
+}
@@ -0,0 +1,6 @@
+package com.tota.eccom.domain.product.model.enums;
+
+public enum SuggestionType {
+
+    PRODUCT, BRAND, CATEGORY
+}
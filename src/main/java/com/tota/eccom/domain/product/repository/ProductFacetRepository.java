@@ -0,0 +1,159 @@
+package com.tota.eccom.domain.product.repository;
+
+import com.tota.eccom.domain.product.model.ProductFacets;
+import com.tota.eccom.domain.product.model.ProductSearchCriteria;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Faceted search over the product_listing read model. Brand, category and price range counts come back from a
+    single UNION ALL query, one aggregated branch per facet, where each branch applies every filter except its own.
+    With full-text enabled by ProductSearchRepository the term filter is the predicate of its page search, trigram
+    similarity included, so counts agree with the results; otherwise it is LIKE. A category filter matches its whole
+    subtree, and a category counts the products of its whole subtree too, each once, so selecting a category gives
+    as many results as its count.
+ */
+@Repository
+public class ProductFacetRepository {
+
+    private enum Facet { BRAND, CATEGORY, PRICE, TOTAL }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ProductSearchRepository productSearchRepository;
+    private final List<BigDecimal> priceBounds;
+    private final String priceBucket;
+
+    public ProductFacetRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                                  ProductSearchRepository productSearchRepository,
+                                  @Value("${PRODUCT_PRICE_FACET_BOUNDS:50,100,250,500,1000}") String[] priceBounds) {
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.productSearchRepository = productSearchRepository;
+        this.priceBounds = Arrays.stream(priceBounds)
+                .map(bound -> new BigDecimal(bound.trim()))
+                .sorted()
+                .distinct()
+                .toList();
+        this.priceBucket = priceBucketOf(this.priceBounds);
+    }
+
+    public List<BigDecimal> getPriceBounds() {
+        return priceBounds;
+    }
+
+    public List<Long> findProductIds(ProductSearchCriteria criteria, Pageable pageable) {
+        return jdbcTemplate.queryForList("SELECT l.product_id FROM product_listing l WHERE " + whereOf(criteria, Facet.TOTAL) +
+                        " ORDER BY l.name, l.product_id LIMIT :limit OFFSET :offset",
+                paramsOf(criteria)
+                        .addValue("limit", pageable.getPageSize())
+                        .addValue("offset", pageable.getOffset()),
+                Long.class);
+    }
+
+    public ProductFacets countFacets(ProductSearchCriteria criteria) {
+
+        String sql = "SELECT '" + Facet.BRAND + "' AS facet, CAST(l.brand_id AS BIGINT) AS facet_value, count(*) AS hits" +
+                " FROM product_listing l WHERE " + whereOf(criteria, Facet.BRAND) + " AND l.brand_id IS NOT NULL" +
+                " GROUP BY l.brand_id" +
+                " UNION ALL " +
+                "SELECT '" + Facet.CATEGORY + "', CAST(cc.ancestor_id AS BIGINT), count(DISTINCT l.product_id)" +
+                " FROM product_listing l JOIN product_listing_category c ON c.product_id = l.product_id" +
+                " JOIN category_closure cc ON cc.descendant_id = c.category_id" +
+                " WHERE " + whereOf(criteria, Facet.CATEGORY) +
+                " GROUP BY cc.ancestor_id" +
+                " UNION ALL " +
+                "SELECT '" + Facet.PRICE + "', CAST(" + priceBucket + " AS BIGINT), count(*)" +
+                " FROM product_listing l WHERE " + whereOf(criteria, Facet.PRICE) + " AND l.base_price IS NOT NULL" +
+                " GROUP BY " + priceBucket +
+                " UNION ALL " +
+                "SELECT '" + Facet.TOTAL + "', CAST(NULL AS BIGINT), count(*)" +
+                " FROM product_listing l WHERE " + whereOf(criteria, Facet.TOTAL);
+
+        Map<Long, Long> brandCounts = new LinkedHashMap<>();
+        Map<Long, Long> categoryCounts = new LinkedHashMap<>();
+        Map<Integer, Long> priceBucketCounts = new LinkedHashMap<>();
+        long[] total = {0L};
+
+        jdbcTemplate.query(sql, paramsOf(criteria), rs -> {
+
+            long hits = rs.getLong("hits");
+
+            switch (Facet.valueOf(rs.getString("facet").trim())) {
+                case BRAND -> brandCounts.put(rs.getLong("facet_value"), hits);
+                case CATEGORY -> categoryCounts.put(rs.getLong("facet_value"), hits);
+                case PRICE -> priceBucketCounts.put(rs.getInt("facet_value"), hits);
+                case TOTAL -> total[0] = hits;
+            }
+        });
+
+        return new ProductFacets(total[0], brandCounts, categoryCounts, priceBounds, priceBucketCounts);
+    }
+
+    // Filters of the search, leaving out the one of the facet being counted
+    private String whereOf(ProductSearchCriteria criteria, Facet counted) {
+
+        StringBuilder where = new StringBuilder("l.sellable = TRUE");
+
+        if (criteria.hasTerm()) {
+            where.append(productSearchRepository.isFullTextEnabled()
+                    ? " AND EXISTS (SELECT 1 FROM product p CROSS JOIN (" + ProductSearchRepository.TERM_QUERY + ") q" +
+                    " WHERE p.id = l.product_id AND " + ProductSearchRepository.TERM_MATCH + ")"
+                    : " AND (lower(l.name) LIKE :like OR lower(l.description) LIKE :like)");
+        }
+
+        if (counted != Facet.BRAND && !criteria.brandIds().isEmpty()) {
+            where.append(" AND l.brand_id IN (:brandIds)");
+        }
+
+        if (counted != Facet.CATEGORY && !criteria.categoryIds().isEmpty()) {
+            where.append(" AND EXISTS (SELECT 1 FROM product_listing_category fc" +
+                    " WHERE fc.product_id = l.product_id AND fc.category_id IN" +
+                    " (SELECT cc.descendant_id FROM category_closure cc WHERE cc.ancestor_id IN (:categoryIds)))");
+        }
+
+        if (counted != Facet.PRICE && criteria.minPrice() != null) {
+            where.append(" AND l.base_price >= :minPrice");
+        }
+
+        if (counted != Facet.PRICE && criteria.maxPrice() != null) {
+            where.append(" AND l.base_price < :maxPrice");
+        }
+
+        return where.toString();
+    }
+
+    private static MapSqlParameterSource paramsOf(ProductSearchCriteria criteria) {
+        return new MapSqlParameterSource()
+                .addValue("term", criteria.term())
+                .addValue("like", criteria.hasTerm() ? "%" + criteria.term().toLowerCase() + "%" : null)
+                .addValue("brandIds", criteria.brandIds())
+                .addValue("categoryIds", criteria.categoryIds())
+                .addValue("minPrice", criteria.minPrice())
+                .addValue("maxPrice", criteria.maxPrice());
+    }
+
+    // Bucket index of the listing base price, bounds are parsed numbers so they are safe to inline
+    private static String priceBucketOf(List<BigDecimal> bounds) {
+
+        if (bounds.isEmpty()) {
+            return "0";
+        }
+
+        StringBuilder bucket = new StringBuilder("CASE");
+
+        for (int i = 0; i < bounds.size(); i++) {
+            bucket.append(" WHEN l.base_price < ").append(bounds.get(i).toPlainString()).append(" THEN ").append(i);
+        }
+
+        return bucket.append(" ELSE ").append(bounds.size()).append(" END").toString();
+    }
+}
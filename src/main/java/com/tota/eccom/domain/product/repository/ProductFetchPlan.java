@@ -0,0 +1,41 @@
+package com.tota.eccom.domain.product.repository;
+
+import com.tota.eccom.domain.category.repository.CategoryFetchPlan;
+import com.tota.eccom.domain.product.model.Product;
+import org.hibernate.Hibernate;
+
+import java.util.Collection;
+
+/*
+    Loads everything ProductRespDTO reads while the persistence context is still open, so responses can be built
+    with open-in-view disabled. Lazy associations are loaded in batches (hibernate.default_batch_fetch_size):
+    initializing the first product of a page loads the same association for the whole page in one query.
+ */
+public class ProductFetchPlan {
+
+    private ProductFetchPlan() {
+    }
+
+    public static <C extends Collection<Product>> C initializeAll(C products) {
+        products.forEach(ProductFetchPlan::initialize);
+        return products;
+    }
+
+    public static Product initialize(Product product) {
+
+        if (product == null) {
+            return null;
+        }
+
+        Hibernate.initialize(product.getBrand());
+        Hibernate.initialize(product.getProductStock());
+        Hibernate.initialize(product.getProductPrices());
+        Hibernate.initialize(product.getProductCategories());
+
+        if (product.getProductCategories() != null) {
+            product.getProductCategories().forEach(CategoryFetchPlan::initialize);
+        }
+
+        return product;
+    }
+}
@@ -0,0 +1,155 @@
+package com.tota.eccom.domain.product.repository;
+
+import com.tota.eccom.domain.product.model.ProductListing;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/*
+    Storefront listings over sellable products only. Keyset variants are sorted by (name, productId) and read after
+    the given position without any count query.
+ */
+@Repository
+public interface ProductListingRepository extends JpaRepository<ProductListing, Long> {
+
+    // A product in several categories of the subtree is still matched once
+    String IN_CATEGORY_SUBTREE = "l.productId IN (SELECT s.productId FROM ProductListing s JOIN s.categoryIds sc" +
+            " WHERE sc IN (SELECT cc.descendantId FROM CategoryClosure cc WHERE cc.ancestorId = :categoryId))";
+
+    // Term search, used when full-text search is not available
+
+    @Query(value = """
+            SELECT l FROM ProductListing l
+            WHERE l.sellable = true
+              AND (lower(l.name) LIKE :like OR lower(l.description) LIKE :like)
+            ORDER BY l.name, l.productId
+            """, countQuery = """
+            SELECT count(l) FROM ProductListing l
+            WHERE l.sellable = true
+              AND (lower(l.name) LIKE :like OR lower(l.description) LIKE :like)
+            """)
+    Page<ProductListing> searchSellableByTerm(String like, Pageable pageable);
+
+    @Query("""
+            SELECT l FROM ProductListing l
+            WHERE l.sellable = true
+              AND (lower(l.name) LIKE :like OR lower(l.description) LIKE :like)
+              AND (l.name > :name OR (l.name = :name AND l.productId > :afterId))
+            ORDER BY l.name, l.productId
+            """)
+    List<ProductListing> searchSellableByTermAfter(String like, String name, Long afterId, Pageable pageable);
+
+    @Query("""
+            SELECT count(l) FROM ProductListing l
+            WHERE l.sellable = true
+              AND (lower(l.name) LIKE :like OR lower(l.description) LIKE :like)
+            """)
+    long countSellableByTerm(String like);
+
+    // Brand listings
+
+    @Query(value = "SELECT l FROM ProductListing l WHERE l.sellable = true AND l.brandId = :brandId ORDER BY l.name, l.productId",
+            countQuery = "SELECT count(l) FROM ProductListing l WHERE l.sellable = true AND l.brandId = :brandId")
+    Page<ProductListing> findSellableByBrandId(Long brandId, Pageable pageable);
+
+    @Query("""
+            SELECT l FROM ProductListing l
+            WHERE l.sellable = true AND l.brandId = :brandId
+              AND (l.name > :name OR (l.name = :name AND l.productId > :afterId))
+            ORDER BY l.name, l.productId
+            """)
+    List<ProductListing> findSellableByBrandIdAfter(Long brandId, String name, Long afterId, Pageable pageable);
+
+    @Query("SELECT count(l) FROM ProductListing l WHERE l.sellable = true AND l.brandId = :brandId")
+    long countSellableByBrandId(Long brandId);
+
+    // Category listings, the category and its whole subtree through the category_closure table
+
+    @Query(value = "SELECT l FROM ProductListing l WHERE l.sellable = true AND " + IN_CATEGORY_SUBTREE + " ORDER BY l.name, l.productId",
+            countQuery = "SELECT count(l) FROM ProductListing l WHERE l.sellable = true AND " + IN_CATEGORY_SUBTREE)
+    Page<ProductListing> findSellableByCategoryId(Long categoryId, Pageable pageable);
+
+    @Query("SELECT l FROM ProductListing l WHERE l.sellable = true AND " + IN_CATEGORY_SUBTREE +
+            " AND (l.name > :name OR (l.name = :name AND l.productId > :afterId)) ORDER BY l.name, l.productId")
+    List<ProductListing> findSellableByCategoryIdAfter(Long categoryId, String name, Long afterId, Pageable pageable);
+
+    @Query("SELECT count(l) FROM ProductListing l WHERE l.sellable = true AND " + IN_CATEGORY_SUBTREE)
+    long countSellableByCategoryId(Long categoryId);
+
+    // Stock reservations, keeps the listing in step with the stock row without loading either
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE ProductListing l
+            SET l.availableQuantity = l.availableQuantity + :delta,
+                l.sellable = CASE WHEN l.availableQuantity + :delta > 0 AND l.basePrice IS NOT NULL
+                                   AND l.status NOT IN (com.tota.eccom.util.enums.Status.DELETED, com.tota.eccom.util.enums.Status.INACTIVE)
+                             THEN true ELSE false END,
+                l.updatedAt = CURRENT_TIMESTAMP
+            WHERE l.productId = :productId
+            """)
+    int adjustAvailableQuantity(Long productId, int delta);
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE ProductListing l
+            SET l.availableQuantity = :availableQuantity,
+                l.sellable = CASE WHEN :availableQuantity > 0 AND l.basePrice IS NOT NULL
+                                   AND l.status NOT IN (com.tota.eccom.util.enums.Status.DELETED, com.tota.eccom.util.enums.Status.INACTIVE)
+                             THEN true ELSE false END,
+                l.updatedAt = CURRENT_TIMESTAMP
+            WHERE l.productId = :productId
+            """)
+    int updateAvailableQuantity(Long productId, int availableQuantity);
+
+    @Query("SELECT l.availableQuantity FROM ProductListing l WHERE l.productId = :productId")
+    Optional<Integer> findAvailableQuantity(Long productId);
+
+    @Query("SELECT l.slug FROM ProductListing l WHERE l.productId = :productId")
+    Optional<String> findSlug(Long productId);
+
+    // Rows are [product id, name, slug, sellable, available quantity], read without going through the persistence context
+    @Query("SELECT l.productId, l.name, l.slug, l.sellable, l.availableQuantity FROM ProductListing l WHERE l.productId IN :productIds")
+    List<Object[]> findSuggestRowsByProductIdIn(Collection<Long> productIds);
+
+    /**
+     * Detached listings holding only what the type-ahead index and stock updates read, current even after bulk stock
+     * updates.
+     */
+    default List<ProductListing> findSuggestListingsByProductIdIn(Collection<Long> productIds) {
+        return findSuggestRowsByProductIdIn(productIds).stream()
+                .map(row -> ProductListing.builder()
+                        .productId((Long) row[0])
+                        .name((String) row[1])
+                        .slug((String) row[2])
+                        .sellable((Boolean) row[3])
+                        .availableQuantity((Integer) row[4])
+                        .build())
+                .toList();
+    }
+
+    // Type-ahead index build, rows are [brand or category id, sellable product count]
+
+    List<ProductListing> findBySellableTrue();
+
+    @Query("SELECT l.brandId, count(l) FROM ProductListing l WHERE l.sellable = true AND l.brandId IS NOT NULL GROUP BY l.brandId")
+    List<Object[]> countSellableGroupByBrandId();
+
+    @Query("SELECT c, count(l) FROM ProductListing l JOIN l.categoryIds c WHERE l.sellable = true GROUP BY c")
+    List<Object[]> countSellableGroupByCategoryId();
+
+    // Rows are [category id, sellable product count of the category and its whole subtree]
+    @Query("""
+            SELECT cc.ancestorId, count(DISTINCT l.productId) FROM ProductListing l JOIN l.categoryIds c, CategoryClosure cc
+            WHERE cc.descendantId = c AND l.sellable = true
+            GROUP BY cc.ancestorId
+            """)
+    List<Object[]> countSellableGroupBySubtreeCategoryId();
+}
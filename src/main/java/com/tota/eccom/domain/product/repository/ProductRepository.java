@@ -1,14 +1,21 @@
 package com.tota.eccom.domain.product.repository;
 
 import com.tota.eccom.domain.product.model.Product;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
@@ -17,9 +24,44 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
 
     Optional<Product> findBySlug(String slug);
 
-    @Query("SELECT p FROM Product p WHERE p.brand.id = :id")
-    Page<Product> findByProductsByBrandId(Long id, Pageable pageable);
+    @EntityGraph(Product.VIEW_GRAPH)
+    Optional<Product> findWithViewById(Long id);
 
-    @Query("SELECT p FROM Product p JOIN p.productCategories pc WHERE pc.id = :id")
-    Page<Product> findProductsByCategoryId(Long id, Pageable pageable);
+    @EntityGraph(Product.VIEW_GRAPH)
+    Optional<Product> findWithViewBySlug(String slug);
+
+    @EntityGraph(Product.VIEW_GRAPH)
+    List<Product> findWithViewByIdIn(Collection<Long> ids);
+
+    @Query("SELECT p.sku FROM Product p WHERE p.sku IN :skus")
+    Set<String> findExistingSkus(Collection<String> skus);
+
+    @Query("SELECT p.slug FROM Product p WHERE p.slug IN :slugs")
+    Set<String> findExistingSlugs(Collection<String> slugs);
+
+    // Forward-only keyset walk over the whole catalog, used by the export
+    @Query("SELECT p FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<Product> findProductsAfter(Long afterId, Pageable pageable);
+
+    @Query("""
+            SELECT p FROM Product p
+            WHERE p.id > :afterId
+              AND NOT EXISTS (SELECT 1 FROM ProductListing l WHERE l.productId = p.id)
+            ORDER BY p.id
+            """)
+    List<Product> findProductsWithoutListingAfter(Long afterId, Pageable pageable);
+
+    /**
+     * Loads the products with the given ids keeping the order of the ids, as returned by listing and search queries.
+     */
+    default List<Product> findAllByIdInOrder(List<Long> ids) {
+
+        Map<Long, Product> productsById = findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        return ids.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
 }
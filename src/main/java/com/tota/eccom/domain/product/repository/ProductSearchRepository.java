@@ -0,0 +1,210 @@
+package com.tota.eccom.domain.product.repository;
+
+import com.tota.eccom.util.pagination.Cursor;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+    Full-text search over the product catalog, backed by a tsvector column (GIN indexed) and a trigram index on
+    the product name. Both live outside the JPA mapping, so the schema is prepared by ProductSearchIndexInitializer
+    on startup and only when the database is PostgreSQL. On any other database (H2 on tests) full-text stays
+    disabled and callers fall back to ProductListingRepository.
+
+    On PostgreSQL it also answers estimated row counts from the planner, so listings can offer a total without
+    paying for a count(*).
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchRepository {
+
+    private static final String TEXT_SEARCH_CONFIG = "portuguese";
+
+    private static final String SEARCH_VECTOR = """
+            setweight(to_tsvector('portuguese', unaccent(coalesce(p.name, ''))), 'A') ||
+            setweight(to_tsvector('simple', coalesce(p.sku, '')), 'A') ||
+            setweight(to_tsvector('portuguese', unaccent(coalesce(p.description, ''))), 'B')
+            """;
+
+    private static final String SEARCH_RANK =
+            "CAST(ts_rank_cd(p.search_vector, q.query) + word_similarity(q.term, lower(p.name)) AS double precision)";
+
+    private static final Pattern PLAN_ROWS = Pattern.compile("\"Plan Rows\":\\s*(\\d+)");
+
+    // What a term matches, shared with the facet counts so they agree with the results: p is the product, q the term
+    static final String TERM_QUERY = "SELECT websearch_to_tsquery('portuguese', unaccent(:term)) AS query, lower(:term) AS term";
+    static final String TERM_MATCH = "(p.search_vector @@ q.query OR q.term <% lower(p.name) OR lower(p.name) LIKE :like)";
+
+    private static final String SEARCH_FROM_WHERE = """
+            FROM product p
+                 JOIN product_listing l ON l.product_id = p.id AND l.sellable
+                 CROSS JOIN (%s) q
+            WHERE %s
+            """.formatted(TERM_QUERY, TERM_MATCH);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    private volatile boolean postgres = false;
+    private volatile boolean fullTextEnabled = false;
+
+    public boolean isFullTextEnabled() {
+        return fullTextEnabled;
+    }
+
+    public void prepareSchema() {
+
+        postgres = isPostgres();
+
+        if (!postgres) {
+            log.info("Database is not PostgreSQL, product full-text search disabled");
+            return;
+        }
+
+        try {
+            execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            execute("CREATE EXTENSION IF NOT EXISTS unaccent");
+            execute("ALTER TABLE product ADD COLUMN IF NOT EXISTS search_vector tsvector");
+            execute("CREATE INDEX IF NOT EXISTS idx_product_search_vector ON product USING gin (search_vector)");
+            execute("CREATE INDEX IF NOT EXISTS idx_product_name_trgm ON product USING gin (lower(name) gin_trgm_ops)");
+
+            fullTextEnabled = true;
+            log.info("Product full-text search enabled using text search config: {}", TEXT_SEARCH_CONFIG);
+        } catch (DataAccessException e) {
+            log.warn("Unable to prepare product full-text search, falling back to LIKE search: {}", e.getMessage());
+        }
+    }
+
+    public int reindexMissing() {
+
+        if (!fullTextEnabled) {
+            return 0;
+        }
+
+        return jdbcTemplate.update("UPDATE product p SET search_vector = " + SEARCH_VECTOR + " WHERE p.search_vector IS NULL",
+                new MapSqlParameterSource());
+    }
+
+    public void index(Long productId) {
+
+        if (!fullTextEnabled || productId == null) {
+            return;
+        }
+
+        // The vector is computed from the stored row, so pending entity changes must reach the database first
+        if (entityManager.isJoinedToTransaction()) {
+            entityManager.flush();
+        }
+
+        jdbcTemplate.update("UPDATE product p SET search_vector = " + SEARCH_VECTOR + " WHERE p.id = :id",
+                new MapSqlParameterSource("id", productId));
+    }
+
+    public void index(Collection<Long> productIds) {
+
+        if (!fullTextEnabled || productIds.isEmpty()) {
+            return;
+        }
+
+        if (entityManager.isJoinedToTransaction()) {
+            entityManager.flush();
+        }
+
+        jdbcTemplate.update("UPDATE product p SET search_vector = " + SEARCH_VECTOR + " WHERE p.id IN (:ids)",
+                new MapSqlParameterSource("ids", productIds));
+    }
+
+    public Page<Long> searchProductIdsByTerm(String term, Pageable pageable) {
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("term", term)
+                .addValue("like", "%" + term.toLowerCase() + "%")
+                .addValue("limit", pageable.getPageSize())
+                .addValue("offset", pageable.getOffset());
+
+        List<Long> ids = jdbcTemplate.queryForList("SELECT p.id " + SEARCH_FROM_WHERE +
+                " ORDER BY " + SEARCH_RANK + " DESC, p.id" +
+                " LIMIT :limit OFFSET :offset", params, Long.class);
+
+        return PageableExecutionUtils.getPage(ids, pageable,
+                () -> jdbcTemplate.queryForObject("SELECT count(*) " + SEARCH_FROM_WHERE, params, Long.class));
+    }
+
+    /**
+     * Keyset variant of {@link #searchProductIdsByTerm(String, Pageable)}, ordered by relevance and then id.
+     * The returned cursors carry the relevance as sort key so the next page can continue right after them.
+     */
+    public List<Cursor> searchProductsByTermAfter(String term, Cursor after, int limit) {
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("term", term)
+                .addValue("like", "%" + term.toLowerCase() + "%")
+                .addValue("first", after == null)
+                .addValue("rank", after == null ? 0D : Double.parseDouble(after.sortKey()))
+                .addValue("afterId", after == null ? 0L : after.id())
+                .addValue("limit", limit);
+
+        return jdbcTemplate.query("SELECT r.id, r.rank FROM (SELECT p.id, " + SEARCH_RANK + " AS rank " + SEARCH_FROM_WHERE + ") r" +
+                        " WHERE :first OR r.rank < :rank OR (r.rank = :rank AND r.id > :afterId)" +
+                        " ORDER BY r.rank DESC, r.id LIMIT :limit",
+                params,
+                (rs, rowNum) -> new Cursor(Double.toString(rs.getDouble("rank")), rs.getLong("id")));
+    }
+
+    public Optional<Long> estimateProductsByTerm(String term) {
+        return estimate("SELECT p.id " + SEARCH_FROM_WHERE, new MapSqlParameterSource()
+                .addValue("term", term)
+                .addValue("like", "%" + term.toLowerCase() + "%"));
+    }
+
+    public Optional<Long> estimateProductsByBrandId(Long brandId) {
+        return estimate("SELECT l.product_id FROM product_listing l WHERE l.brand_id = :brandId AND l.sellable",
+                new MapSqlParameterSource("brandId", brandId));
+    }
+
+    public Optional<Long> estimateProductsByCategoryId(Long categoryId) {
+        return estimate("SELECT DISTINCT l.product_id FROM category_closure cc" +
+                        " JOIN product_listing_category c ON c.category_id = cc.descendant_id" +
+                        " JOIN product_listing l ON l.product_id = c.product_id" +
+                        " WHERE cc.ancestor_id = :categoryId AND l.sellable",
+                new MapSqlParameterSource("categoryId", categoryId));
+    }
+
+    private Optional<Long> estimate(String sql, MapSqlParameterSource params) {
+
+        if (!postgres) {
+            return Optional.empty();
+        }
+
+        String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, params, String.class);
+        Matcher matcher = PLAN_ROWS.matcher(plan != null ? plan : "");
+
+        return matcher.find() ? Optional.of(Long.parseLong(matcher.group(1))) : Optional.empty();
+    }
+
+    private void execute(String sql) {
+        jdbcTemplate.getJdbcTemplate().execute(sql);
+    }
+
+    private boolean isPostgres() {
+        String databaseName = jdbcTemplate.getJdbcTemplate().execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+
+        return "PostgreSQL".equalsIgnoreCase(databaseName);
+    }
+}
@@ -0,0 +1,45 @@
+package com.tota.eccom.domain.product.repository;
+
+import com.tota.eccom.domain.product.model.ProductStockAllotment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProductStockAllotmentRepository extends JpaRepository<ProductStockAllotment, Long> {
+
+    @Query("SELECT a.quantity FROM ProductStockAllotment a WHERE a.productId = :productId AND a.instanceId = :instanceId")
+    Optional<Integer> findQuantity(Long productId, String instanceId);
+
+    @Modifying
+    @Query("UPDATE ProductStockAllotment a SET a.quantity = :quantity, a.leased = :leased, a.updatedAt = :now WHERE a.productId = :productId AND a.instanceId = :instanceId")
+    int updateQuantity(Long productId, String instanceId, int quantity, int leased, Date now);
+
+    @Modifying
+    @Query("UPDATE ProductStockAllotment a SET a.leased = :leased WHERE a.productId = :productId AND a.instanceId = :instanceId")
+    int updateLeased(Long productId, String instanceId, int leased);
+
+    // Units every instance escrowed for the product and has not sold yet, reserved on product_stock but still for sale
+    @Query("SELECT COALESCE(SUM(a.quantity + a.leased), 0) FROM ProductStockAllotment a WHERE a.productId = :productId")
+    long sumUnsold(Long productId);
+
+    @Modifying
+    @Query("UPDATE ProductStockAllotment a SET a.updatedAt = :now WHERE a.instanceId = :instanceId")
+    int touchByInstanceId(String instanceId, Date now);
+
+    @Modifying
+    @Query("DELETE FROM ProductStockAllotment a WHERE a.productId = :productId AND a.instanceId = :instanceId")
+    int deleteByProductIdAndInstanceId(Long productId, String instanceId);
+
+    List<ProductStockAllotment> findByUpdatedAtBefore(Date cutoff);
+
+    // Only the caller that deletes the row may give its quantity back, so concurrent sweepers never release it twice
+    @Modifying
+    @Query("DELETE FROM ProductStockAllotment a WHERE a.id = :id AND a.updatedAt < :cutoff")
+    int deleteStale(Long id, Date cutoff);
+}
@@ -0,0 +1,62 @@
+package com.tota.eccom.domain.product.repository;
+
+import com.tota.eccom.domain.product.model.ProductStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/*
+    Stock reservations as single conditional updates on the stock row of a product. The availability check and the
+    write are one statement, so concurrent reservations serialize on the row lock without loading the entity, and a
+    reservation that does not fit updates nothing.
+ */
+@Repository
+public interface ProductStockRepository extends JpaRepository<ProductStock, Long> {
+
+    /**
+     * Returns 1 when the quantity was reserved, 0 when the product has not enough available stock or no stock at all.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE ProductStock s
+            SET s.reservedQuantity = s.reservedQuantity + :quantity, s.updatedAt = CURRENT_TIMESTAMP
+            WHERE s.id = (SELECT p.productStock.id FROM Product p WHERE p.id = :productId)
+              AND s.quantity - s.reservedQuantity >= :quantity
+            """)
+    int reserve(Long productId, int quantity);
+
+    /**
+     * Returns 1 when the quantity was released, 0 when less than that is reserved or the product has no stock.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE ProductStock s
+            SET s.reservedQuantity = s.reservedQuantity - :quantity, s.updatedAt = CURRENT_TIMESTAMP
+            WHERE s.id = (SELECT p.productStock.id FROM Product p WHERE p.id = :productId)
+              AND s.reservedQuantity >= :quantity
+            """)
+    int release(Long productId, int quantity);
+
+    /**
+     * Returns 1 when the quantity was set, 0 when more than that is reserved or the product has no stock. Clears the
+     * persistence context, so the stock is read again after it.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE ProductStock s
+            SET s.quantity = :quantity, s.updatedAt = CURRENT_TIMESTAMP
+            WHERE s.id = (SELECT p.productStock.id FROM Product p WHERE p.id = :productId)
+              AND s.reservedQuantity <= :quantity
+            """)
+    int updateQuantity(Long productId, int quantity);
+
+    @Query("SELECT s.quantity - s.reservedQuantity FROM Product p JOIN p.productStock s WHERE p.id = :productId")
+    Optional<Integer> findAvailableQuantity(Long productId);
+
+    @Query("SELECT p.id FROM Product p JOIN p.productStock s WHERE s.hot = true")
+    List<Long> findHotProductIds();
+}
@@ -0,0 +1,400 @@
+package com.tota.eccom.domain.product.stock;
+
+import com.tota.eccom.domain.product.cache.ProductViewCache;
+import com.tota.eccom.domain.product.model.ProductStockAllotment;
+import com.tota.eccom.domain.product.repository.ProductListingRepository;
+import com.tota.eccom.domain.product.repository.ProductStockAllotmentRepository;
+import com.tota.eccom.domain.product.repository.ProductStockRepository;
+import com.tota.eccom.domain.product.suggest.ProductSuggestIndex;
+import com.tota.eccom.util.TransactionUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+    Hot SKU mode. Reservations of a product whose stock is flagged hot are served from striped in-memory counters
+    instead of a conditional update on its single product_stock row, which every cart would otherwise queue behind.
+
+    Units reach the counters in two steps:
+    - escrow: an allotment is reserved on product_stock with the same conditional update carts use, so the database
+      already counts it as taken and no crash can make it sell twice;
+    - lease: part of the escrow, kept in the product_stock_allotment row of this instance, moves into the counters.
+      The row is lowered before the units become spendable, so it never holds more than what is left unsold.
+
+    Refills run on a background thread once the counters run low, never on the request thread: a reservation that
+    finds them dry is not made to wait and goes to the stock row like any other product, so the database stays the
+    judge of what is left and request threads never hold a connection while waiting for another.
+
+    Every reconcile records what the counters hold as leased on the allotment row, sets the listing to the stock row
+    availability plus what every instance escrowed and did not sell, touches the allotment rows of this instance and
+    gives back the rows of instances that stopped touching theirs. The listing is set, not adjusted, so a product
+    save in between can not make it count a reservation twice. Releasing the recorded quantity of a dead instance can
+    not oversell; the units it had leased but not sold stay reserved, at most one lease per product. A product that
+    is no longer hot, or a graceful shutdown, gives every unsold unit back.
+
+    The product view is evicted only when the listing sells out or comes back in stock, like on the stock row.
+ */
+@Component
+@Slf4j
+public class HotStockCounter {
+
+    private static final int ESCROW_ATTEMPTS = 3;
+
+    private final ExecutorService refills = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hot-stock-refill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ProductStockRepository productStockRepository;
+    private final ProductStockAllotmentRepository allotmentRepository;
+    private final ProductListingRepository productListingRepository;
+    private final ProductViewCache productViewCache;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final TransactionTemplate newTransaction;
+
+    private final int stripes;
+    private final int allotment;
+    private final int lease;
+    private final long staleAfterMillis;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<Long, HotStock> hotStocks = new ConcurrentHashMap<>();
+
+    private static final class HotStock {
+
+        final Long productId;
+        final StripedStock units;
+
+        // Set under the instance lock once the unsold units were given back
+        volatile boolean closed;
+
+        final AtomicBoolean refilling = new AtomicBoolean();
+
+        HotStock(Long productId, int stripes) {
+            this.productId = productId;
+            this.units = new StripedStock(stripes);
+        }
+    }
+
+    public HotStockCounter(ProductStockRepository productStockRepository,
+                           ProductStockAllotmentRepository allotmentRepository,
+                           ProductListingRepository productListingRepository,
+                           ProductViewCache productViewCache,
+                           ProductSuggestIndex productSuggestIndex,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${PRODUCT_HOT_STOCK_STRIPES:16}") int stripes,
+                           @Value("${PRODUCT_HOT_STOCK_ALLOTMENT:500}") int allotment,
+                           @Value("${PRODUCT_HOT_STOCK_LEASE:100}") int lease,
+                           @Value("${PRODUCT_HOT_STOCK_STALE_SECONDS:60}") long staleAfterSeconds) {
+
+        this.productStockRepository = productStockRepository;
+        this.allotmentRepository = allotmentRepository;
+        this.productListingRepository = productListingRepository;
+        this.productViewCache = productViewCache;
+        this.productSuggestIndex = productSuggestIndex;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.stripes = stripes;
+        this.allotment = allotment;
+        this.lease = lease;
+        this.staleAfterMillis = staleAfterSeconds * 1000;
+    }
+
+    /**
+     * Reserves the quantity from the counters when the product is hot on this instance, undone if the current
+     * transaction rolls back. Returns false when it is not hot or its counters are dry, and the caller reserves
+     * on the stock row instead.
+     */
+    public boolean tryReserve(Long productId, int quantity) {
+
+        HotStock hot = hotStocks.get(productId);
+
+        if (hot == null) {
+            return false;
+        }
+
+        if (!hot.units.tryTake(quantity)) {
+            requestRefill(hot);
+            return false;
+        }
+
+        if (hot.units.available() < lease / 2) {
+            requestRefill(hot);
+        }
+
+        TransactionUtil.afterRollback(() -> hot.units.add(quantity));
+
+        return true;
+    }
+
+    /**
+     * Gives the quantity back to the counters once the current transaction commits when the product is hot on this
+     * instance. Returns false when it is not, and the caller releases on the stock row instead.
+     */
+    public boolean tryRelease(Long productId, int quantity) {
+
+        HotStock hot = hotStocks.get(productId);
+
+        if (hot == null) {
+            return false;
+        }
+
+        TransactionUtil.afterCommit(() -> hot.units.add(quantity));
+
+        return true;
+    }
+
+    public void enable(Long productId) {
+        TransactionUtil.afterCommit(() -> requestRefill(hotStocks.computeIfAbsent(productId, id -> new HotStock(id, stripes))));
+    }
+
+    public void disable(Long productId) {
+        TransactionUtil.afterCommit(() -> {
+            HotStock hot = hotStocks.remove(productId);
+
+            if (hot != null) {
+                giveBack(hot);
+            }
+        });
+    }
+
+    public boolean isHot(Long productId) {
+        return hotStocks.containsKey(productId);
+    }
+
+    /**
+     * Units every instance escrowed on the stock row of the product and did not sell yet, as of their last reconcile.
+     */
+    public long getUnsoldEscrow(Long productId) {
+        return allotmentRepository.sumUnsold(productId);
+    }
+
+    @Scheduled(fixedDelayString = "${PRODUCT_HOT_STOCK_RECONCILE_MS:1000}")
+    public void reconcile() {
+
+        Set<Long> hotProductIds = new HashSet<>(productStockRepository.findHotProductIds());
+
+        hotProductIds.forEach(id -> requestRefill(hotStocks.computeIfAbsent(id, key -> new HotStock(key, stripes))));
+        hotStocks.keySet().stream()
+                .filter(id -> !hotProductIds.contains(id))
+                .toList()
+                .forEach(this::disable);
+
+        List<Long> crossed = new ArrayList<>();
+
+        try {
+            for (HotStock hot : new ArrayList<>(hotStocks.values())) {
+
+                // Same lock as a refill, which moves units from the allotment row to the counters
+                synchronized (hot) {
+                    if (!hot.closed && Boolean.TRUE.equals(newTransaction.execute(status -> {
+                        allotmentRepository.updateLeased(hot.productId, instanceId, hot.units.available());
+                        return updateListing(hot.productId);
+                    }))) {
+                        crossed.add(hot.productId);
+                    }
+                }
+            }
+
+            newTransaction.executeWithoutResult(status -> allotmentRepository.touchByInstanceId(instanceId, new Date()));
+        } catch (RuntimeException e) {
+            log.warn("Hot stock reconcile failed, retrying on the next one", e);
+        }
+
+        putSuggestions(crossed);
+        sweepStaleAllotments();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+
+        refills.shutdownNow();
+
+        new ArrayList<>(hotStocks.keySet()).forEach(productId -> {
+            HotStock hot = hotStocks.remove(productId);
+
+            if (hot != null) {
+                giveBack(hot);
+            }
+        });
+    }
+
+    private void requestRefill(HotStock hot) {
+        if (!hot.closed && hot.units.available() < lease / 2 && hot.refilling.compareAndSet(false, true)) {
+            try {
+                refills.execute(() -> refill(hot));
+            } catch (RejectedExecutionException e) {
+                hot.refilling.set(false);
+            }
+        }
+    }
+
+    // Moves a lease into the counters, escrowing a new allotment first when the recorded one can not cover it
+    private void refill(HotStock hot) {
+
+        try {
+            synchronized (hot) {
+
+                if (hot.closed) {
+                    return;
+                }
+
+                Integer leased = newTransaction.execute(status -> {
+
+                    int recorded = allotmentRepository.findQuantity(hot.productId, instanceId).orElse(0);
+                    int available = recorded < lease ? recorded + escrow(hot.productId, allotment) : recorded;
+                    int leasing = Math.min(available, lease);
+
+                    if (leasing > 0) {
+                        saveAllotment(hot.productId, available - leasing, hot.units.available() + leasing);
+                    }
+
+                    return leasing;
+                });
+
+                if (leased != null && leased > 0) {
+                    hot.units.spread(leased);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Hot stock refill of product id {} failed", hot.productId, e);
+        } finally {
+            hot.refilling.set(false);
+        }
+    }
+
+    // Reserves up to the wanted quantity on the stock row, less when that much is not available any more
+    private int escrow(Long productId, int wanted) {
+
+        for (int attempt = 0; attempt < ESCROW_ATTEMPTS; attempt++) {
+
+            int available = Math.min(wanted, productStockRepository.findAvailableQuantity(productId).orElse(0));
+
+            if (available <= 0) {
+                return 0;
+            }
+
+            if (productStockRepository.reserve(productId, available) == 1) {
+                return available;
+            }
+        }
+
+        return 0;
+    }
+
+    private void saveAllotment(Long productId, int quantity, int leased) {
+
+        Date now = new Date();
+
+        if (allotmentRepository.updateQuantity(productId, instanceId, quantity, leased, now) == 0) {
+            allotmentRepository.save(ProductStockAllotment.builder()
+                    .productId(productId)
+                    .instanceId(instanceId)
+                    .quantity(quantity)
+                    .leased(leased)
+                    .updatedAt(now)
+                    .build());
+        }
+    }
+
+    // Gives every unsold unit of the product back to its stock row and brings the listing in step
+    private void giveBack(HotStock hot) {
+
+        synchronized (hot) {
+            hot.closed = true;
+
+            int unsold = hot.units.drain();
+
+            Boolean crossed = newTransaction.execute(status -> {
+
+                int recorded = allotmentRepository.findQuantity(hot.productId, instanceId).orElse(0);
+                allotmentRepository.deleteByProductIdAndInstanceId(hot.productId, instanceId);
+
+                // Nothing is released when the stock row was replaced meanwhile and holds less reserved than that
+                if (unsold + recorded > 0) {
+                    productStockRepository.release(hot.productId, unsold + recorded);
+                }
+
+                return updateListing(hot.productId);
+            });
+
+            if (Boolean.TRUE.equals(crossed)) {
+                putSuggestions(List.of(hot.productId));
+            }
+
+            log.info("Hot stock of product id {} given back: {} unsold units", hot.productId, unsold);
+        }
+    }
+
+    // Sets the listing to what is for sale, returns whether it sold out or came back in stock
+    private boolean updateListing(Long productId) {
+
+        Optional<Integer> listed = productListingRepository.findAvailableQuantity(productId);
+
+        if (listed.isEmpty()) {
+            return false;
+        }
+
+        int available = (int) (productStockRepository.findAvailableQuantity(productId).orElse(0) + allotmentRepository.sumUnsold(productId));
+
+        if (available == listed.get()) {
+            return false;
+        }
+
+        productListingRepository.updateAvailableQuantity(productId, available);
+
+        if ((listed.get() > 0) == (available > 0)) {
+            return false;
+        }
+
+        // By slug as well, the storefront may have cached the view under its slug only
+        productViewCache.evict(productId, productListingRepository.findSlug(productId).orElse(null));
+
+        return true;
+    }
+
+    private void putSuggestions(List<Long> productIds) {
+        if (!productIds.isEmpty()) {
+            productSuggestIndex.putProducts(productListingRepository.findSuggestListingsByProductIdIn(productIds));
+        }
+    }
+
+    private void sweepStaleAllotments() {
+
+        Date cutoff = new Date(System.currentTimeMillis() - staleAfterMillis);
+
+        for (ProductStockAllotment stale : allotmentRepository.findByUpdatedAtBefore(cutoff)) {
+            Boolean crossed = newTransaction.execute(status -> {
+
+                if (allotmentRepository.deleteStale(stale.getId(), cutoff) == 0) {
+                    return false;
+                }
+
+                if (stale.getQuantity() > 0) {
+                    productStockRepository.release(stale.getProductId(), stale.getQuantity());
+                    log.info("Stale hot stock allotment of product id {} given back: {} units", stale.getProductId(), stale.getQuantity());
+                }
+
+                // Units the dead instance had leased stay reserved, they are no longer for sale
+                return updateListing(stale.getProductId());
+            });
+
+            if (Boolean.TRUE.equals(crossed)) {
+                putSuggestions(List.of(stale.getProductId()));
+            }
+        }
+    }
+}
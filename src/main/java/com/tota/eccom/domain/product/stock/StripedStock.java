@@ -0,0 +1,123 @@
+package com.tota.eccom.domain.product.stock;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/*
+    Lock-free counter of stock units split into stripes, each one on its own cache line. A reservation takes units
+    from the stripe of the calling thread with a CAS and only looks at the other stripes when that one runs dry, so
+    threads reserving the same product rarely touch the same memory.
+ */
+public final class StripedStock {
+
+    // Ints per stripe, so two stripes never share a 64 byte cache line
+    private static final int PADDING = 16;
+
+    private final AtomicIntegerArray cells;
+    private final int stripes;
+
+    public StripedStock(int stripes) {
+
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Stripes must be greater than zero");
+        }
+
+        this.stripes = stripes;
+        this.cells = new AtomicIntegerArray(stripes * PADDING);
+    }
+
+    /**
+     * Takes the quantity from the stripe of the calling thread, then from the others when it runs dry.
+     * Takes all of it or nothing.
+     */
+    public boolean tryTake(int quantity) {
+
+        int home = home();
+        int taken = 0;
+
+        for (int i = 0; i < stripes && taken < quantity; i++) {
+            taken += takeUpTo((home + i) % stripes, quantity - taken);
+        }
+
+        if (taken < quantity) {
+            if (taken > 0) {
+                cells.addAndGet(home * PADDING, taken);
+            }
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Gives units back to the stripe of the calling thread.
+     */
+    public void add(int quantity) {
+        cells.addAndGet(home() * PADDING, quantity);
+    }
+
+    /**
+     * Adds units evenly over every stripe.
+     */
+    public void spread(int quantity) {
+
+        for (int i = 0; i < stripes; i++) {
+            int share = quantity / stripes + (i < quantity % stripes ? 1 : 0);
+
+            if (share > 0) {
+                cells.addAndGet(i * PADDING, share);
+            }
+        }
+    }
+
+    /**
+     * Empties every stripe and returns the units they held.
+     */
+    public int drain() {
+
+        int drained = 0;
+
+        for (int i = 0; i < stripes; i++) {
+            drained += cells.getAndSet(i * PADDING, 0);
+        }
+
+        return drained;
+    }
+
+    /**
+     * Units left over all the stripes, a moment-in-time estimate while other threads take and add.
+     */
+    public int available() {
+
+        int available = 0;
+
+        for (int i = 0; i < stripes; i++) {
+            available += cells.get(i * PADDING);
+        }
+
+        return available;
+    }
+
+    private int takeUpTo(int stripe, int wanted) {
+
+        int index = stripe * PADDING;
+
+        while (true) {
+            int current = cells.get(index);
+
+            if (current <= 0) {
+                return 0;
+            }
+
+            int taken = Math.min(current, wanted);
+
+            if (cells.compareAndSet(index, current, current - taken)) {
+                return taken;
+            }
+        }
+    }
+
+    // Fibonacci hashing of the thread id spreads sequential ids over the stripes
+    private int home() {
+        return (int) ((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 33) % stripes;
+    }
+}
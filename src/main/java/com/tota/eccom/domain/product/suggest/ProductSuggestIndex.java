@@ -0,0 +1,280 @@
+package com.tota.eccom.domain.product.suggest;
+
+import com.tota.eccom.adapters.dto.product.response.SuggestionRespDTO;
+import com.tota.eccom.domain.brand.model.Brand;
+import com.tota.eccom.domain.category.model.Category;
+import com.tota.eccom.domain.product.model.ProductListing;
+import com.tota.eccom.domain.product.model.enums.SuggestionType;
+import com.tota.eccom.util.TransactionUtil;
+import com.tota.eccom.util.enums.Status;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/*
+    In-memory type-ahead index over sellable product names, active brand names and active category names.
+
+    Every word start of a name is a key ("cerveja pilsen lata" is found by "pil" and "lat" too), kept in one sorted
+    array, so a lookup is a binary search for the first key with the prefix plus a scan of the matching range.
+    Readers use an immutable snapshot and never lock. Writers merge their changes into a new snapshot, O(n) per
+    change instead of reloading from the database.
+
+    Entries are ranked by popularity: views for products, sellable product count for brands and categories.
+    Changes requested inside a transaction apply after it commits.
+ */
+@Component
+public class ProductSuggestIndex {
+
+    public static final int MIN_PREFIX_LENGTH = 2;
+    public static final int MAX_LIMIT = 20;
+
+    private static final int MAX_KEYS_PER_ENTRY = 8;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Best first: higher score, then shorter name, then name
+    private static final Comparator<Ranked> RANKING = Comparator.comparingLong(Ranked::score).reversed()
+            .thenComparingInt((Ranked r) -> r.entry().suggestion().getName().length())
+            .thenComparing((Ranked r) -> r.entry().suggestion().getName());
+
+    private final Map<EntryId, Entry> entries = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    private record EntryId(SuggestionType type, Long id) {
+    }
+
+    private record Entry(SuggestionRespDTO suggestion, String[] keys, long weight, LongAdder hits) {
+    }
+
+    // A null suggestion removes the entry
+    private record Change(EntryId id, SuggestionRespDTO suggestion, long weight) {
+    }
+
+    private record Key(String key, Entry entry) {
+    }
+
+    private record Ranked(Entry entry, long score) {
+    }
+
+    private record Snapshot(String[] keys, Entry[] entries) {
+        static final Snapshot EMPTY = new Snapshot(new String[0], new Entry[0]);
+    }
+
+    /**
+     * Suggestions whose name has a word starting with the given prefix, most popular first.
+     * Prefixes shorter than {@link #MIN_PREFIX_LENGTH} return nothing.
+     */
+    public List<SuggestionRespDTO> suggest(String prefix, int limit) {
+
+        String normalized = normalize(prefix);
+
+        if (normalized.length() < MIN_PREFIX_LENGTH) {
+            return List.of();
+        }
+
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+        Snapshot current = snapshot;
+
+        PriorityQueue<Ranked> top = new PriorityQueue<>(size + 1, RANKING.reversed());
+        Set<Entry> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (int i = lowerBound(current.keys(), normalized); i < current.keys().length && current.keys()[i].startsWith(normalized); i++) {
+
+            Entry entry = current.entries()[i];
+
+            if (seen.add(entry)) {
+                top.offer(new Ranked(entry, entry.weight() + entry.hits().sum()));
+
+                if (top.size() > size) {
+                    top.poll();
+                }
+            }
+        }
+
+        return top.stream()
+                .sorted(RANKING)
+                .map(r -> r.entry().suggestion())
+                .toList();
+    }
+
+    public void recordHit(SuggestionType type, Long id) {
+
+        Entry entry = entries.get(new EntryId(type, id));
+
+        if (entry != null) {
+            entry.hits().increment();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void putProduct(ProductListing listing) {
+        putProducts(List.of(listing));
+    }
+
+    /**
+     * Indexes sellable products and drops the ones that are no longer sellable.
+     */
+    public void putProducts(Collection<ProductListing> listings) {
+
+        List<Change> changes = listings.stream()
+                .map(l -> new Change(new EntryId(SuggestionType.PRODUCT, l.getProductId()),
+                        l.isSellable() ? new SuggestionRespDTO(SuggestionType.PRODUCT, l.getProductId(), l.getName(), l.getSlug()) : null,
+                        0L))
+                .toList();
+
+        TransactionUtil.afterCommit(() -> apply(changes));
+    }
+
+    public void putBrand(Brand brand, long productCount) {
+        putBrands(List.of(brand), Map.of(brand.getId(), productCount));
+    }
+
+    /**
+     * Indexes active brands, weighted by their sellable product count, and drops inactive or deleted ones.
+     */
+    public void putBrands(Collection<Brand> brands, Map<Long, Long> productCounts) {
+
+        List<Change> changes = brands.stream()
+                .map(b -> new Change(new EntryId(SuggestionType.BRAND, b.getId()),
+                        b.getStatus() == Status.ACTIVE ? new SuggestionRespDTO(SuggestionType.BRAND, b.getId(), b.getName(), b.getSlug()) : null,
+                        productCounts.getOrDefault(b.getId(), 0L)))
+                .toList();
+
+        TransactionUtil.afterCommit(() -> apply(changes));
+    }
+
+    public void putCategory(Category category, long productCount) {
+        putCategories(List.of(category), Map.of(category.getId(), productCount));
+    }
+
+    /**
+     * Indexes active categories, weighted by their sellable product count, and drops inactive or deleted ones.
+     */
+    public void putCategories(Collection<Category> categories, Map<Long, Long> productCounts) {
+
+        List<Change> changes = categories.stream()
+                .map(c -> new Change(new EntryId(SuggestionType.CATEGORY, c.getId()),
+                        c.getStatus() == Status.ACTIVE ? new SuggestionRespDTO(SuggestionType.CATEGORY, c.getId(), c.getName(), c.getSlug()) : null,
+                        productCounts.getOrDefault(c.getId(), 0L)))
+                .toList();
+
+        TransactionUtil.afterCommit(() -> apply(changes));
+    }
+
+    // Writers are serialized, each one merges its changes into a new snapshot that readers pick up atomically
+    private synchronized void apply(List<Change> changes) {
+
+        Set<Entry> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Key> added = new ArrayList<>();
+
+        for (Change change : changes) {
+
+            Entry previous = entries.get(change.id());
+
+            // Nothing to merge for an entry that is already up to date or already absent
+            if (previous == null ? change.suggestion() == null
+                    : change.suggestion() != null && change.suggestion().equals(previous.suggestion()) && change.weight() == previous.weight()) {
+                continue;
+            }
+
+            if (previous != null) {
+                removed.add(previous);
+            }
+
+            if (change.suggestion() == null) {
+                entries.remove(change.id());
+            } else {
+                Entry entry = new Entry(change.suggestion(), keysOf(change.suggestion().getName()), change.weight(),
+                        previous != null ? previous.hits() : new LongAdder());
+
+                entries.put(change.id(), entry);
+
+                for (String key : entry.keys()) {
+                    added.add(new Key(key, entry));
+                }
+            }
+        }
+
+        if (removed.isEmpty() && added.isEmpty()) {
+            return;
+        }
+
+        // An entry changed twice in the same batch only keeps its last version
+        added.removeIf(key -> removed.contains(key.entry()));
+        added.sort(Comparator.comparing(Key::key));
+
+        Snapshot current = snapshot;
+        String[] keys = new String[current.keys().length + added.size()];
+        Entry[] indexed = new Entry[keys.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+
+        while (i < current.keys().length || j < added.size()) {
+
+            if (i < current.keys().length && removed.contains(current.entries()[i])) {
+                i++;
+            } else if (j >= added.size() || (i < current.keys().length && current.keys()[i].compareTo(added.get(j).key()) <= 0)) {
+                keys[n] = current.keys()[i];
+                indexed[n++] = current.entries()[i++];
+            } else {
+                keys[n] = added.get(j).key();
+                indexed[n++] = added.get(j++).entry();
+            }
+        }
+
+        snapshot = new Snapshot(Arrays.copyOf(keys, n), Arrays.copyOf(indexed, n));
+    }
+
+    private static int lowerBound(String[] keys, String prefix) {
+
+        int low = 0;
+        int high = keys.length;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (keys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    private static String[] keysOf(String name) {
+
+        String[] words = normalize(name).split(" ");
+        Set<String> keys = new LinkedHashSet<>();
+
+        for (int i = 0; i < words.length && i < MAX_KEYS_PER_ENTRY; i++) {
+            String key = String.join(" ", Arrays.asList(words).subList(i, words.length));
+
+            if (!key.isEmpty()) {
+                keys.add(key);
+            }
+        }
+
+        return keys.toArray(String[]::new);
+    }
+
+    private static String normalize(String text) {
+
+        if (text == null) {
+            return "";
+        }
+
+        String unaccented = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+
+        return SEPARATORS.matcher(unaccented.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+}
@@ -3,11 +3,16 @@ package com.tota.eccom.domain.product.threads;
 import com.tota.eccom.domain.cart.repository.CartItemRepository;
 import com.tota.eccom.domain.cart.repository.CartRepository;
 import com.tota.eccom.domain.product.model.Product;
+import com.tota.eccom.domain.product.model.ProductListing;
 import com.tota.eccom.domain.brand.model.Brand;
 import com.tota.eccom.domain.category.model.Category;
+import com.tota.eccom.domain.category.model.CategoryClosure;
 import com.tota.eccom.domain.brand.repository.BrandRepository;
+import com.tota.eccom.domain.category.repository.CategoryClosureRepository;
 import com.tota.eccom.domain.category.repository.CategoryRepository;
+import com.tota.eccom.domain.product.repository.ProductListingRepository;
 import com.tota.eccom.domain.product.repository.ProductRepository;
+import com.tota.eccom.domain.product.repository.ProductSearchRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.ContextRefreshedEvent;
@@ -23,34 +28,44 @@ public class ProductInitializer {
 
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final CategoryClosureRepository categoryClosureRepository;
     private final BrandRepository brandRepository;
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
+    private final ProductSearchRepository productSearchRepository;
+    private final ProductListingRepository productListingRepository;
 
     @EventListener(ContextRefreshedEvent.class)
     public void initializeProducts() {
 
         cartItemRepository.deleteAll();
         cartRepository.deleteAll();
+        productListingRepository.deleteAll();
         productRepository.deleteAll();
+        categoryClosureRepository.deleteAll();
         categoryRepository.deleteAll();
         brandRepository.deleteAll();
 
         Brand brand = brandRepository.save(new InitialProductsDTOS().getBrand());
         log.info("Brand created on initialize products: {}", brand);
         Category category = categoryRepository.save(new InitialProductsDTOS().getCategory());
+        categoryClosureRepository.save(CategoryClosure.self(category.getId()));
         log.info("Category created on initialize products: {}", category);
 
         Product camiseta = new InitialProductsDTOS().getCamiseta();
         camiseta.setBrand(brand);
         camiseta.setProductCategories(List.of(category));
         productRepository.save(camiseta);
+        productListingRepository.save(ProductListing.from(camiseta));
+        productSearchRepository.index(camiseta.getId());
         log.info("Product camiseta created on initialize products: {}", camiseta);
 
         Product bermuda = new InitialProductsDTOS().getBermuda();
         bermuda.setBrand(brand);
         bermuda.setProductCategories(List.of(category));
         productRepository.save(bermuda);
+        productListingRepository.save(ProductListing.from(bermuda));
+        productSearchRepository.index(bermuda.getId());
         log.info("Product bermuda created on initialize products: {}", bermuda);
     }
 }
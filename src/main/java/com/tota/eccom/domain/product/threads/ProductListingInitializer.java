@@ -0,0 +1,57 @@
+package com.tota.eccom.domain.product.threads;
+
+import com.tota.eccom.domain.product.model.Product;
+import com.tota.eccom.domain.product.model.ProductListing;
+import com.tota.eccom.domain.product.repository.ProductListingRepository;
+import com.tota.eccom.domain.product.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/*
+    Builds the storefront listing of products written before the read model existed. Runs in chunks, one
+    transaction each, so a large catalog does not keep a single transaction open.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductListingInitializer {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final ProductListingRepository productListingRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void initializeListings() {
+
+        long lastId = 0L;
+        int built = 0;
+
+        while (true) {
+            long afterId = lastId;
+
+            List<Long> ids = transactionTemplate.execute(status -> {
+                List<Product> products = productRepository.findProductsWithoutListingAfter(afterId, PageRequest.of(0, CHUNK_SIZE));
+                productListingRepository.saveAll(products.stream().map(ProductListing::from).toList());
+                return products.stream().map(Product::getId).toList();
+            });
+
+            if (ids == null || ids.isEmpty()) {
+                break;
+            }
+
+            built += ids.size();
+            lastId = ids.get(ids.size() - 1);
+        }
+
+        log.info("Product listings built on initialize: {}", built);
+    }
+}
@@ -0,0 +1,25 @@
+package com.tota.eccom.domain.product.threads;
+
+import com.tota.eccom.domain.product.repository.ProductSearchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndexInitializer {
+
+    private final ProductSearchRepository productSearchRepository;
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void initializeSearchIndex() {
+
+        productSearchRepository.prepareSchema();
+
+        int indexed = productSearchRepository.reindexMissing();
+        log.info("Products indexed for full-text search on initialize: {}", indexed);
+    }
+}
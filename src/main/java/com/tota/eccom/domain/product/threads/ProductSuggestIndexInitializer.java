@@ -0,0 +1,41 @@
+package com.tota.eccom.domain.product.threads;
+
+import com.tota.eccom.domain.brand.repository.BrandRepository;
+import com.tota.eccom.domain.category.repository.CategoryRepository;
+import com.tota.eccom.domain.product.repository.ProductListingRepository;
+import com.tota.eccom.domain.product.suggest.ProductSuggestIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSuggestIndexInitializer {
+
+    private final ProductListingRepository productListingRepository;
+    private final BrandRepository brandRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductSuggestIndex productSuggestIndex;
+
+    // Runs once the application is ready, after the initializers that seed and backfill product listings
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeSuggestIndex() {
+
+        productSuggestIndex.putProducts(productListingRepository.findBySellableTrue());
+        productSuggestIndex.putBrands(brandRepository.findAll(), countsOf(productListingRepository.countSellableGroupByBrandId()));
+        productSuggestIndex.putCategories(categoryRepository.findAll(), countsOf(productListingRepository.countSellableGroupByCategoryId()));
+
+        log.info("Suggestions indexed on initialize: {}", productSuggestIndex.size());
+    }
+
+    private static Map<Long, Long> countsOf(List<Object[]> rows) {
+        return rows.stream().collect(Collectors.toMap(row -> (Long) row[0], row -> (Long) row[1]));
+    }
+}
@@ -3,6 +3,7 @@ package com.tota.eccom.domain.user;
 import com.tota.eccom.adapters.dto.user.request.UserCreateDTO;
 import com.tota.eccom.adapters.dto.user.request.UserLoginDTO;
 import com.tota.eccom.adapters.dto.user.request.UserUpdateDTO;
+import com.tota.eccom.adapters.dto.user.response.PasswordHashingStatsRespDTO;
 import com.tota.eccom.adapters.dto.user.response.UserLoginRespDTO;
 import com.tota.eccom.domain.user.model.Role;
 import com.tota.eccom.domain.user.model.User;
@@ -21,6 +22,8 @@ public interface IUserService {
 
     User getUserLogged();
 
+    Long getUserLoggedId();
+
     void deleteUserLogged();
 
     User updateUserLogged(UserUpdateDTO userUpdateDTO);
@@ -34,4 +37,6 @@ public interface IUserService {
     void logoutUser();
 
     UserLoginRespDTO refreshUserLogin(String refreshToken);
+
+    PasswordHashingStatsRespDTO getPasswordHashingStats();
 }
@@ -9,6 +9,8 @@ import com.tota.eccom.domain.user.repository.UserRepository;
 import com.tota.eccom.exceptions.user.UserAlreadyHasRoleException;
 import com.tota.eccom.exceptions.user.UserNotFoundException;
 import com.tota.eccom.exceptions.user.UserRoleNotFoundException;
+import com.tota.eccom.security.TokenVersionCache;
+import com.tota.eccom.util.TransactionUtil;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,6 +25,7 @@ public class RoleService implements IRoleService {
 
     private final RoleRepository roleRepository;
     private final UserRepository userRepository;
+    private final TokenVersionCache tokenVersionCache;
 
 
     @Override
@@ -56,8 +59,11 @@ public class RoleService implements IRoleService {
         }
 
         user.getRoles().add(userRole);
+        user.setTokenVersion(user.getTokenVersion() + 1);
 
         userRepository.save(user);
+
+        TransactionUtil.afterCommit(() -> tokenVersionCache.invalidate(userId));
         return user;
     }
 
@@ -65,6 +71,10 @@ public class RoleService implements IRoleService {
     @Override
     public void deleteUserRoleById(Long id) {
         Role userRole = getUserRoleById(id);
+
+        userRepository.incrementTokenVersionByRoleId(id);
         roleRepository.delete(userRole);
+
+        TransactionUtil.afterCommit(tokenVersionCache::invalidateAll);
     }
 }
@@ -3,24 +3,27 @@ package com.tota.eccom.domain.user.business;
 import com.tota.eccom.adapters.dto.user.request.UserCreateDTO;
 import com.tota.eccom.adapters.dto.user.request.UserLoginDTO;
 import com.tota.eccom.adapters.dto.user.request.UserUpdateDTO;
+import com.tota.eccom.adapters.dto.user.response.PasswordHashingStatsRespDTO;
 import com.tota.eccom.adapters.dto.user.response.UserLoginRespDTO;
 import com.tota.eccom.domain.user.IUserService;
 import com.tota.eccom.domain.user.model.Role;
 import com.tota.eccom.domain.user.model.User;
+import com.tota.eccom.domain.user.password.PasswordHasher;
 import com.tota.eccom.domain.user.repository.RoleRepository;
 import com.tota.eccom.domain.user.repository.UserRepository;
+import com.tota.eccom.domain.user.revocation.TokenRevocationStore;
 import com.tota.eccom.exceptions.user.UserEmailExistsException;
 import com.tota.eccom.exceptions.user.UserNotFoundException;
 import com.tota.eccom.exceptions.user.UserRoleNotFoundException;
-import com.tota.eccom.util.InvalidJwtTokenUtil;
+import com.tota.eccom.security.PrincipalContext;
 import com.tota.eccom.util.JwtTokenUtil;
-import com.tota.eccom.util.PasswordUtil;
 import com.tota.eccom.util.SecurityUtil;
 import com.tota.eccom.util.enums.Status;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Optional;
 
@@ -33,22 +36,30 @@ public class UserService implements IUserService {
     private final UserRepository userRepository;
     private final JwtTokenUtil jwtTokenUtil;
     private final SecurityUtil securityUtil;
+    private final TokenRevocationStore tokenRevocationStore;
+    private final PasswordHasher passwordHasher;
+    private final PrincipalContext principalContext;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional
+    // Not transactional: the password is hashed before the transaction starts, so a signup never holds a connection
+    // while it waits for PasswordHasher
     @Override
     public User createUser(UserCreateDTO userCreateDTO) {
         if (getUserByEmail(userCreateDTO.getEmail()).isPresent()) {
             throw new UserEmailExistsException("User already exists with given email.");
         }
 
-        Role userRole = getUserRole();
+        userCreateDTO.validate();
 
-        User user = userCreateDTO.toUser();
-        user.getRoles().add(userRole);
+        User user = userCreateDTO.toUser(passwordHasher.hash(userCreateDTO.getPassword()));
 
-        log.info("Creating user: {}", user);
+        return transactionTemplate.execute(status -> {
+            user.getRoles().add(getUserRole());
 
-        return userRepository.save(user);
+            log.info("Creating user: {}", user);
+
+            return userRepository.save(user);
+        });
     }
 
     private Optional<User> getUserByEmail(String email) {
@@ -100,7 +111,18 @@ public class UserService implements IUserService {
             throw new UserNotFoundException("User not logged");
         }
 
-        return userRepository.findByEmail(username)
+        return principalContext.getUser()
+                .orElseThrow(() -> new UserNotFoundException("User not found"));
+    }
+
+    @Override
+    public Long getUserLoggedId() {
+
+        if (securityUtil.getCurrentUsername() == null) {
+            throw new UserNotFoundException("User not logged");
+        }
+
+        return principalContext.getUserId()
                 .orElseThrow(() -> new UserNotFoundException("User not found"));
     }
 
@@ -144,10 +166,14 @@ public class UserService implements IUserService {
     public UserLoginRespDTO loginUser(UserLoginDTO userLoginDTO) {
         Optional<User> user = userRepository.findByEmail(userLoginDTO.getEmail());
 
-        if (user.isEmpty() || !PasswordUtil.validatePassword(userLoginDTO.getPassword(), user.get().getPassword())) {
+        if (user.isEmpty() || !passwordHasher.matches(userLoginDTO.getPassword(), user.get().getPassword())) {
             throw new UserNotFoundException("User not found with given email and password");
         }
 
+        if (passwordHasher.needsRehash(user.get().getPassword())) {
+            rehashPassword(user.get(), userLoginDTO.getPassword());
+        }
+
         String token = jwtTokenUtil.generateToken(user.get());
         String refreshToken = jwtTokenUtil.generateRefreshToken(user.get());
 
@@ -157,6 +183,23 @@ public class UserService implements IUserService {
                 .build();
     }
 
+    // The password is only known on login, so hashes of an older cost are upgraded then
+    private void rehashPassword(User user, String password) {
+
+        String hash = passwordHasher.rehash(password);
+
+        if (hash != null) {
+            user.setPassword(hash);
+            userRepository.save(user);
+            log.info("Password of user id {} rehashed with BCrypt cost {}", user.getId(), passwordHasher.getCost());
+        }
+    }
+
+    @Override
+    public PasswordHashingStatsRespDTO getPasswordHashingStats() {
+        return passwordHasher.getStats();
+    }
+
     @Override
     public void logoutUser() {
 
@@ -166,7 +209,7 @@ public class UserService implements IUserService {
             return;
         }
 
-        InvalidJwtTokenUtil.addToken(token);
+        tokenRevocationStore.revoke(token);
     }
 
     @Override
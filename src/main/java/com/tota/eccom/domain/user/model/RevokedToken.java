@@ -0,0 +1,34 @@
+package com.tota.eccom.domain.user.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.util.Date;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "revoked_token", indexes = {
+        @Index(name = "idx_revoked_token_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_revoked_token_revoked_at", columnList = "revoked_at"),
+})
+public class RevokedToken {
+
+    // The "jti" of the token, see JwtTokenUtil.getTokenId
+    @Id
+    @Column(name = "token_id", nullable = false)
+    private String tokenId;
+
+    // The token is rejected on its own from then on, so the row can go
+    @NotNull
+    @Column(name = "expires_at", nullable = false)
+    private Date expiresAt;
+
+    @NotNull
+    @Column(name = "revoked_at", nullable = false)
+    private Date revokedAt;
+}
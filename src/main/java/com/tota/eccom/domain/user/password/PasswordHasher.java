@@ -0,0 +1,227 @@
+package com.tota.eccom.domain.user.password;
+
+import com.tota.eccom.adapters.dto.user.response.PasswordHashingStatsRespDTO;
+import com.tota.eccom.exceptions.user.PasswordHashingUnavailableException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+    BCrypt hashing and verification off the request threads. A burst of logins used to pin every Tomcat worker on
+    BCrypt while catalog requests queued behind them; now it runs on a small pool of its own
+    (PASSWORD_HASH_THREADS) with a bounded queue (PASSWORD_HASH_QUEUE). The request thread waits for the result, so
+    the timeout is applied before the work is queued: when the queue is full, or the work queued ahead would take
+    longer than PASSWORD_HASH_TIMEOUT_MS at the average hashing time, the request fails right away with 503. Work
+    that still runs late is given up at the timeout, which bounds how long a request thread waits.
+
+    The cost is PASSWORD_HASH_COST when set, otherwise calibrated on startup: the highest cost whose hash takes no
+    longer than PASSWORD_HASH_TARGET_MS on this machine, never below MIN_COST. Hashes of another cost still verify,
+    and are rehashed on the next successful login.
+ */
+@Component
+@Slf4j
+public class PasswordHasher {
+
+    private static final int MIN_COST = 10;
+    private static final int MAX_COST = 16;
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final BCryptPasswordEncoder encoder;
+    private final int cost;
+    private final long calibrationMillis;
+
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder rehashes = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public PasswordHasher(@Value("${PASSWORD_HASH_THREADS:0}") int threads,
+                          @Value("${PASSWORD_HASH_QUEUE:64}") int queueCapacity,
+                          @Value("${PASSWORD_HASH_TIMEOUT_MS:5000}") long timeoutMillis,
+                          @Value("${PASSWORD_HASH_COST:0}") int cost,
+                          @Value("${PASSWORD_HASH_TARGET_MS:250}") long targetMillis) {
+
+        // Half the cores by default, the other half stays free for everything else
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMillis = timeoutMillis;
+
+        long startedAt = System.currentTimeMillis();
+
+        this.cost = cost > 0 ? cost : calibrate(targetMillis);
+        this.calibrationMillis = System.currentTimeMillis() - startedAt;
+        this.encoder = new BCryptPasswordEncoder(this.cost);
+
+        log.info("Password hashing with BCrypt cost {} on {} threads, queue of {}", this.cost, poolSize, queueCapacity);
+    }
+
+    public String hash(String password) {
+        String hash = execute(() -> encoder.encode(password));
+        hashes.increment();
+        return hash;
+    }
+
+    public boolean matches(String password, String hash) {
+        boolean matches = execute(() -> encoder.matches(password, hash));
+        verifications.increment();
+        return matches;
+    }
+
+    /**
+     * True when the hash was made with another cost than the current one, or is not a BCrypt hash.
+     */
+    public boolean needsRehash(String hash) {
+        Matcher matcher = BCRYPT_COST.matcher(hash != null ? hash : "");
+        return !matcher.find() || Integer.parseInt(matcher.group(1)) != cost;
+    }
+
+    /**
+     * Hash of the password with the current cost, or null when hashing is saturated: a rehash can wait for the next
+     * login.
+     */
+    public String rehash(String password) {
+        try {
+            String hash = hash(password);
+            rehashes.increment();
+            return hash;
+        } catch (PasswordHashingUnavailableException e) {
+            log.debug("Password rehash skipped: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public PasswordHashingStatsRespDTO getStats() {
+
+        long done = hashes.sum() + verifications.sum();
+
+        return PasswordHashingStatsRespDTO.builder()
+                .cost(cost)
+                .calibrationMillis(calibrationMillis)
+                .threads(executor.getMaximumPoolSize())
+                .activeThreads(executor.getActiveCount())
+                .queueDepth(executor.getQueue().size())
+                .queueCapacity(executor.getQueue().size() + executor.getQueue().remainingCapacity())
+                .hashes(hashes.sum())
+                .verifications(verifications.sum())
+                .rehashes(rehashes.sum())
+                .rejected(rejected.sum())
+                .averageMillis(done > 0 ? totalNanos.sum() / 1e6 / done : 0D)
+                .maxMillis(TimeUnit.NANOSECONDS.toMillis(maxNanos.get()))
+                .averageWaitMillis(done > 0 ? totalWaitNanos.sum() / 1e6 / done : 0D)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    <T> T execute(Callable<T> work) {
+
+        if (expectedWaitMillis() > timeoutMillis) {
+            rejected.increment();
+            throw new PasswordHashingUnavailableException("Too many password operations in progress, try again later");
+        }
+
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                totalWaitNanos.add(startedAt - queuedAt);
+
+                try {
+                    return work.call();
+                } finally {
+                    long took = System.nanoTime() - startedAt;
+                    completed.increment();
+                    totalNanos.add(took);
+                    maxNanos.accumulate(took);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingUnavailableException("Too many password operations in progress, try again later");
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new PasswordHashingUnavailableException("Password operation timed out, try again later");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingUnavailableException("Password operation interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Rounds of the pool needed to clear the queue ahead, at the average time of an operation
+    private long expectedWaitMillis() {
+
+        long done = completed.sum();
+
+        if (done == 0) {
+            return 0;
+        }
+
+        long rounds = executor.getQueue().size() / executor.getMaximumPoolSize();
+
+        return TimeUnit.NANOSECONDS.toMillis(rounds * (totalNanos.sum() / done));
+    }
+
+    // Every extra cost doubles the work, so one measurement at the minimum cost is enough to pick the cost
+    private static int calibrate(long targetMillis) {
+
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(MIN_COST);
+        encoder.encode("calibration");
+
+        long startedAt = System.nanoTime();
+        encoder.encode("calibration");
+        double millis = Math.max(0.001, (System.nanoTime() - startedAt) / 1e6);
+
+        int cost = MIN_COST;
+
+        while (cost < MAX_COST && millis * 2 <= targetMillis) {
+            millis *= 2;
+            cost++;
+        }
+
+        log.info("Password hashing calibrated to BCrypt cost {} (~{} ms for a target of {} ms)", cost, Math.round(millis), targetMillis);
+
+        return cost;
+    }
+}
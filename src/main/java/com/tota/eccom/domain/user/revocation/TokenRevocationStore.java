@@ -0,0 +1,165 @@
+package com.tota.eccom.domain.user.revocation;
+
+import com.tota.eccom.domain.user.model.RevokedToken;
+import com.tota.eccom.domain.user.repository.RevokedTokenRepository;
+import com.tota.eccom.util.JwtTokenUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    Revoked (logged out) tokens, by token id, until the moment they would have expired anyway. Revocations are
+    stored in revoked_token so they survive restarts and reach the other instances, which pick them up on their next
+    sync (REVOKED_TOKENS_SYNC_MS). Expired ones are purged from memory and from the table on the same schedule.
+
+    Nearly every token checked was never revoked, so lookups go through a Bloom filter first and only the few it
+    can't rule out reach the map. The filter is rebuilt from the live ids on every purge, which also drops the ids
+    of expired tokens from it.
+ */
+@Component
+@Slf4j
+public class TokenRevocationStore {
+
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final JwtTokenUtil jwtTokenUtil;
+    private final TransactionTemplate transaction;
+    private final long expectedTokens;
+    private final long syncMillis;
+
+    // Token id -> expiration millis
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    // Replaced under the lock of the store, additions hold it too so none is lost to a rebuild
+    private volatile BloomFilter filter;
+    private volatile Date lastSync;
+
+    public TokenRevocationStore(RevokedTokenRepository revokedTokenRepository,
+                                JwtTokenUtil jwtTokenUtil,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${REVOKED_TOKENS_EXPECTED:100000}") long expectedTokens,
+                                @Value("${REVOKED_TOKENS_SYNC_MS:10000}") long syncMillis) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.jwtTokenUtil = jwtTokenUtil;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.expectedTokens = expectedTokens;
+        this.syncMillis = syncMillis;
+        this.filter = new BloomFilter(expectedTokens, FALSE_POSITIVE_PROBABILITY);
+    }
+
+    /**
+     * Loads the revocations of tokens not expired yet, called on startup.
+     */
+    public void load() {
+
+        Date now = new Date();
+        List<RevokedToken> tokens = revokedTokenRepository.findByExpiresAtAfter(now);
+
+        tokens.forEach(this::remember);
+        lastSync = now;
+
+        log.info("Revoked tokens loaded: {}", tokens.size());
+    }
+
+    /**
+     * Revokes the token until it expires. Tokens that don't parse, expired ones included, are rejected anyway.
+     */
+    public void revoke(String token) {
+
+        Claims claims;
+
+        try {
+            claims = jwtTokenUtil.getAllClaimsFromToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Token not revoked, it is no longer valid: {}", e.getMessage());
+            return;
+        }
+
+        RevokedToken revokedToken = RevokedToken.builder()
+                .tokenId(JwtTokenUtil.getTokenId(claims))
+                .expiresAt(claims.getExpiration())
+                .revokedAt(new Date())
+                .build();
+
+        transaction.executeWithoutResult(status -> revokedTokenRepository.save(revokedToken));
+        remember(revokedToken);
+    }
+
+    public boolean isRevoked(Claims claims) {
+
+        String tokenId = JwtTokenUtil.getTokenId(claims);
+
+        return filter.mightContain(tokenId) && revoked.containsKey(tokenId);
+    }
+
+    public boolean isRevoked(String token) {
+        try {
+            return isRevoked(jwtTokenUtil.getAllClaimsFromToken(token));
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    @Scheduled(fixedDelayString = "${REVOKED_TOKENS_SYNC_MS:10000}")
+    public void sync() {
+
+        Date now = new Date();
+
+        // Overlaps the previous sync, so revocations committed while it ran are not missed
+        if (lastSync != null) {
+            revokedTokenRepository.findByRevokedAtGreaterThanEqualAndExpiresAtAfter(new Date(lastSync.getTime() - syncMillis), now)
+                    .forEach(this::remember);
+        }
+
+        lastSync = now;
+        purge(now);
+    }
+
+    private void purge(Date now) {
+
+        long nowMillis = now.getTime();
+        int purged = 0;
+
+        for (Map.Entry<String, Long> entry : revoked.entrySet()) {
+            if (entry.getValue() < nowMillis && revoked.remove(entry.getKey(), entry.getValue())) {
+                purged++;
+            }
+        }
+
+        Integer deleted = transaction.execute(status -> revokedTokenRepository.deleteExpired(now));
+
+        if (purged > 0) {
+            synchronized (this) {
+                BloomFilter rebuilt = new BloomFilter(Math.max(expectedTokens, 2L * revoked.size()), FALSE_POSITIVE_PROBABILITY);
+                revoked.keySet().forEach(rebuilt::add);
+                filter = rebuilt;
+            }
+        }
+
+        if (purged > 0 || (deleted != null && deleted > 0)) {
+            log.debug("Expired revoked tokens purged: {} from memory, {} from the database", purged, deleted);
+        }
+    }
+
+    private void remember(RevokedToken revokedToken) {
+        synchronized (this) {
+            revoked.put(revokedToken.getTokenId(), revokedToken.getExpiresAt().getTime());
+            filter.add(revokedToken.getTokenId());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.tota.eccom.domain.user.threads;
+
+import com.tota.eccom.domain.user.revocation.TokenRevocationStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class TokenRevocationInitializer {
+
+    private final TokenRevocationStore tokenRevocationStore;
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void initializeRevokedTokens() {
+        tokenRevocationStore.load();
+    }
+}
@@ -0,0 +1,187 @@
+package com.tota.eccom.metrics;
+
+import com.tota.eccom.adapters.dto.metrics.response.AccessLogStatsRespDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+    Access log written off the request threads. The request thread only captures the raw values of the request into
+    an entry and offers it to a lock-free ring buffer (ACCESS_LOG_BUFFER); a single writer thread formats the line,
+    works out the client address and does the log I/O. When the writer falls behind and the buffer is full, the entry
+    is dropped and counted instead of blocking the request.
+
+    ACCESS_LOG_SAMPLE_RATE (0 to 1) keeps that fraction of the requests in the log. Server errors and requests slower
+    than ACCESS_LOG_SLOW_MS are always kept. Sampling only thins the log, latencies are recorded for every request by
+    RouteLatencyRegistry.
+ */
+@Component
+@Slf4j
+public class AccessLog {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final MpscRingBuffer<Entry> buffer;
+    private final boolean enabled;
+    private final double sampleRate;
+    private final long slowNanos;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    record Entry(String method, String uri, String queryString, int status, long nanos,
+                 String forwardedFor, String realIp, String remoteAddr) {
+    }
+
+    public AccessLog(@Value("${ACCESS_LOG_ENABLED:true}") boolean enabled,
+                     @Value("${ACCESS_LOG_BUFFER:8192}") int bufferCapacity,
+                     @Value("${ACCESS_LOG_SAMPLE_RATE:1.0}") double sampleRate,
+                     @Value("${ACCESS_LOG_SLOW_MS:1000}") long slowMillis) {
+
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("ACCESS_LOG_SAMPLE_RATE must be between 0 and 1");
+        }
+
+        this.buffer = new MpscRingBuffer<>(bufferCapacity);
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowMillis);
+    }
+
+    @PostConstruct
+    public void start() {
+
+        if (!enabled) {
+            return;
+        }
+
+        running = true;
+        writer = new Thread(this::write, "access-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+
+        if (writer == null) {
+            return;
+        }
+
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(1));
+    }
+
+    /**
+     * Offers the request to the writer, never waits. False when the request was sampled out or dropped.
+     */
+    public boolean offer(String method, String uri, String queryString, int status, long nanos,
+                         String forwardedFor, String realIp, String remoteAddr) {
+
+        if (!enabled) {
+            return false;
+        }
+
+        if (!isSampled(status, nanos)) {
+            sampledOut.increment();
+            return false;
+        }
+
+        if (!buffer.offer(new Entry(method, uri, queryString, status, nanos, forwardedFor, realIp, remoteAddr))) {
+            dropped.increment();
+            return false;
+        }
+
+        return true;
+    }
+
+    public AccessLogStatsRespDTO getStats() {
+        return AccessLogStatsRespDTO.builder()
+                .sampleRate(enabled ? sampleRate : 0D)
+                .queueDepth(buffer.size())
+                .queueCapacity(buffer.capacity())
+                .written(written.sum())
+                .sampledOut(sampledOut.sum())
+                .dropped(dropped.sum())
+                .build();
+    }
+
+    /**
+     * Writes every entry in the buffer, returns how many were written.
+     */
+    int drain() {
+
+        int count = 0;
+        Entry entry;
+
+        while ((entry = buffer.poll()) != null) {
+            try {
+                if (log.isInfoEnabled()) {
+                    log.info(format(entry));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Unable to write access log entry", e);
+            }
+            count++;
+        }
+
+        written.add(count);
+
+        return count;
+    }
+
+    static String format(Entry entry) {
+        return String.format(Locale.ROOT, "[%s] %s%s | IP: %s | Status: %d | Duration: %.3f ms",
+                entry.method(),
+                entry.uri(),
+                entry.queryString() != null ? "?" + entry.queryString() : "",
+                clientIp(entry),
+                entry.status(),
+                entry.nanos() / 1e6);
+    }
+
+    private void write() {
+
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+
+        drain();
+    }
+
+    private boolean isSampled(int status, long nanos) {
+        return sampleRate >= 1
+                || status >= 500
+                || nanos >= slowNanos
+                || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private static String clientIp(Entry entry) {
+        String ipAddress = entry.forwardedFor();
+        if (ipAddress == null || ipAddress.isEmpty() || "unknown".equalsIgnoreCase(ipAddress)) {
+            ipAddress = entry.realIp();
+        }
+        if (ipAddress == null || ipAddress.isEmpty() || "unknown".equalsIgnoreCase(ipAddress)) {
+            ipAddress = entry.remoteAddr();
+        }
+        if (ipAddress != null && ipAddress.contains(",")) {
+            ipAddress = ipAddress.split(",")[0];
+        }
+        return ipAddress;
+    }
+}
@@ -0,0 +1,90 @@
+package com.tota.eccom.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/*
+    Readiness of the database: borrows a connection from the pool and validates it, at most once every
+    DB_HEALTH_CACHE_MS. Probes hit the readiness endpoint every few seconds from every replica, so between two checks
+    the last result is answered without touching the pool. A check that fails, or whose connection doesn't validate
+    within DB_HEALTH_TIMEOUT_SECONDS, reports DOWN until the next one.
+ */
+@Component("database")
+@Slf4j
+public class DatabaseHealthIndicator extends AbstractHealthIndicator {
+
+    private final DataSource dataSource;
+    private final long cacheNanos;
+    private final int timeoutSeconds;
+    private final LongSupplier clock;
+
+    private volatile Result last;
+
+    private record Result(boolean up, String error, long checkedAt, long tookNanos) {
+    }
+
+    public DatabaseHealthIndicator(DataSource dataSource,
+                                   @Value("${DB_HEALTH_CACHE_MS:5000}") long cacheMillis,
+                                   @Value("${DB_HEALTH_TIMEOUT_SECONDS:2}") int timeoutSeconds) {
+        this(dataSource, cacheMillis, timeoutSeconds, System::nanoTime);
+    }
+
+    DatabaseHealthIndicator(DataSource dataSource, long cacheMillis, int timeoutSeconds, LongSupplier clock) {
+        super("Database health check failed");
+        this.dataSource = dataSource;
+        this.cacheNanos = TimeUnit.MILLISECONDS.toNanos(cacheMillis);
+        this.timeoutSeconds = timeoutSeconds;
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+
+        Result result = last;
+
+        if (result == null || clock.getAsLong() - result.checkedAt() >= cacheNanos) {
+            result = check();
+        }
+
+        builder.status(result.up() ? Status.UP : Status.DOWN)
+                .withDetail("checkedMillisAgo", TimeUnit.NANOSECONDS.toMillis(clock.getAsLong() - result.checkedAt()))
+                .withDetail("tookMillis", TimeUnit.NANOSECONDS.toMillis(result.tookNanos()));
+
+        if (result.error() != null) {
+            builder.withDetail("error", result.error());
+        }
+    }
+
+    // Concurrent probes past the cache time may both check, which is harmless and saves a lock on the probe path
+    private Result check() {
+
+        long startedAt = clock.getAsLong();
+        Result result;
+
+        try (Connection connection = dataSource.getConnection()) {
+            result = connection.isValid(timeoutSeconds)
+                    ? new Result(true, null, startedAt, clock.getAsLong() - startedAt)
+                    : new Result(false, "Connection not valid within " + timeoutSeconds + " s", startedAt, clock.getAsLong() - startedAt);
+        } catch (SQLException e) {
+            result = new Result(false, e.getMessage(), startedAt, clock.getAsLong() - startedAt);
+        }
+
+        if (!result.up() && (last == null || last.up())) {
+            log.warn("Database health check failed: {}", result.error());
+        }
+
+        last = result;
+
+        return result;
+    }
+}
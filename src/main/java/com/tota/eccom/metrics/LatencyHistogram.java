@@ -0,0 +1,104 @@
+package com.tota.eccom.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Log-linear latency histogram in the HDR style: every power of two of microseconds is split in SUB_BUCKETS linear
+    buckets, so any recorded value is reported within 1/SUB_BUCKETS (~3%) of itself, from 1 µs up to MAX_MICROS,
+    in a fixed array of counters. Values above MAX_MICROS are counted in the last bucket.
+
+    Recording is lock-free and allocation free. Percentiles are read from a snapshot of the counters, which is not
+    atomic with concurrent recordings and may be off by the requests recorded while it was taken.
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 31;
+    private static final long MAX_MICROS = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    void record(long nanos) {
+
+        long micros = Math.min(MAX_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+
+        counts.incrementAndGet(bucketOf(micros));
+        totalMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    Snapshot snapshot() {
+
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+
+        return new Snapshot(snapshot, count, totalMicros.sum(), maxMicros.get());
+    }
+
+    static int bucketOf(long micros) {
+
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Highest value counted in the bucket, a percentile is never reported lower than the latency it stands for
+    static long highestValueOf(int bucket) {
+
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+
+        return lowest + (1L << shift) - 1;
+    }
+
+    record Snapshot(long[] counts, long count, long totalMicros, long maxMicros) {
+
+        double meanMicros() {
+            return count > 0 ? (double) totalMicros / count : 0D;
+        }
+
+        /**
+         * Value in microseconds at or below which the given percentile (0 to 100) of the recordings fall.
+         */
+        long valueAtPercentile(double percentile) {
+
+            if (count == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100D * count));
+            long seen = 0;
+
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+
+                if (seen >= rank) {
+                    return Math.min(maxMicros, highestValueOf(i));
+                }
+            }
+
+            return maxMicros;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.tota.eccom.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+    Bounded ring buffer for many producers and a single consumer. Producers claim a slot with a CAS on the tail and
+    never wait: when the buffer is full, offer returns false and the caller drops the element. The consumer frees a
+    slot before moving the head, so a producer never overwrites an element that was not consumed yet.
+
+    An element claimed but not published yet stops poll until it is: poll returns null and the consumer retries later.
+ */
+class MpscRingBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    MpscRingBuffer(int capacity) {
+
+        // Rounded up to a power of two, so the slot of a position is a mask away
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    boolean offer(T element) {
+
+        long position;
+
+        do {
+            position = tail.get();
+
+            if (position - head.get() >= slots.length()) {
+                return false;
+            }
+        } while (!tail.compareAndSet(position, position + 1));
+
+        slots.set((int) position & mask, element);
+
+        return true;
+    }
+
+    T poll() {
+
+        long position = head.get();
+        int slot = (int) position & mask;
+        T element = slots.get(slot);
+
+        if (element == null) {
+            return null;
+        }
+
+        slots.set(slot, null);
+        head.set(position + 1);
+
+        return element;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+}
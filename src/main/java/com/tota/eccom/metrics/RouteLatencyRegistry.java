@@ -0,0 +1,92 @@
+package com.tota.eccom.metrics;
+
+import com.tota.eccom.adapters.dto.metrics.response.RouteLatencyRespDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    Latency histogram per route template, method and status of the requests served. The route template comes from
+    the handler mapping, so /product/1 and /product/2 share /product/{id} and the number of histograms stays bounded
+    by the routes of the application. Past REQUEST_METRICS_MAXIMUM_ROUTES histograms, new routes are counted under
+    OTHER_ROUTE.
+ */
+@Component
+@Slf4j
+public class RouteLatencyRegistry {
+
+    public static final String UNMATCHED_ROUTE = "UNMATCHED";
+    static final String OTHER_ROUTE = "OTHER";
+
+    private final int maximumRoutes;
+
+    private volatile Map<RouteKey, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private volatile Date since = new Date();
+
+    private record RouteKey(String method, String route, int status) {
+    }
+
+    public RouteLatencyRegistry(@Value("${REQUEST_METRICS_MAXIMUM_ROUTES:500}") int maximumRoutes) {
+        this.maximumRoutes = maximumRoutes;
+    }
+
+    public void record(String method, String route, int status, long nanos) {
+
+        Map<RouteKey, LatencyHistogram> current = histograms;
+        RouteKey key = new RouteKey(method, route != null ? route : UNMATCHED_ROUTE, status);
+        LatencyHistogram histogram = current.get(key);
+
+        if (histogram == null) {
+            if (current.size() >= maximumRoutes) {
+                key = new RouteKey(method, OTHER_ROUTE, status);
+            }
+            histogram = current.computeIfAbsent(key, k -> new LatencyHistogram());
+        }
+
+        histogram.record(nanos);
+    }
+
+    /**
+     * Latency percentiles of every route, the busiest first.
+     */
+    public List<RouteLatencyRespDTO> getStats() {
+        return histograms.entrySet().stream()
+                .map(entry -> toStats(entry.getKey(), entry.getValue().snapshot()))
+                .sorted(Comparator.comparing(RouteLatencyRespDTO::getCount).reversed())
+                .toList();
+    }
+
+    public Date getSince() {
+        return since;
+    }
+
+    /**
+     * Starts every histogram over, so the percentiles cover only the requests served from now on.
+     */
+    public void reset() {
+        histograms = new ConcurrentHashMap<>();
+        since = new Date();
+        log.info("Request latency histograms reset");
+    }
+
+    private static RouteLatencyRespDTO toStats(RouteKey key, LatencyHistogram.Snapshot snapshot) {
+        return RouteLatencyRespDTO.builder()
+                .method(key.method())
+                .route(key.route())
+                .status(key.status())
+                .count(snapshot.count())
+                .meanMillis(snapshot.meanMicros() / 1000D)
+                .p50Millis(snapshot.valueAtPercentile(50) / 1000D)
+                .p90Millis(snapshot.valueAtPercentile(90) / 1000D)
+                .p99Millis(snapshot.valueAtPercentile(99) / 1000D)
+                .p999Millis(snapshot.valueAtPercentile(99.9) / 1000D)
+                .maxMillis(snapshot.maxMicros() / 1000D)
+                .build();
+    }
+}
@@ -0,0 +1,23 @@
+package com.tota.eccom.security;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Principal built from the claims of an access token, no password and no database row behind it.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class JwtPrincipal extends User {
+
+    private final Long userId;
+
+    public JwtPrincipal(Long userId, String username, Collection<? extends GrantedAuthority> authorities) {
+        super(username, "", authorities);
+        this.userId = userId;
+    }
+}
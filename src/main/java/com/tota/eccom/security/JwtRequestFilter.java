@@ -1,15 +1,17 @@
 package com.tota.eccom.security;
 
-import com.tota.eccom.util.InvalidJwtTokenUtil;
+import com.tota.eccom.domain.user.revocation.TokenRevocationStore;
 import com.tota.eccom.util.JwtTokenUtil;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -19,28 +21,49 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/*
+    Authenticates requests carrying an access token that was not revoked. By default the user is loaded from the
+    database on every request, once: JwtUserDetailsService hands it to PrincipalContext for the services. With
+    JWT_AUTH_MODE=claims the principal is built from the signed claims of the token alone, and TokenVersionCache
+    rejects tokens issued before the roles of their user changed. Tokens without those claims, issued before they
+    were added, still go through the database.
+ */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class JwtRequestFilter extends OncePerRequestFilter {
 
     private static final String AUTH_HEADER = "Authorization";
     private static final String TOKEN_PREFIX = "Bearer ";
+    private static final String ROLE_PREFIX = "ROLE_";
+    private static final String CLAIMS_MODE = "claims";
 
     private final UserDetailsService jwtUserDetailsService;
     private final JwtTokenUtil jwtTokenUtil;
+    private final TokenVersionCache tokenVersionCache;
+    private final TokenRevocationStore tokenRevocationStore;
+    private final boolean claimsMode;
+
+    public JwtRequestFilter(UserDetailsService jwtUserDetailsService,
+                            JwtTokenUtil jwtTokenUtil,
+                            TokenVersionCache tokenVersionCache,
+                            TokenRevocationStore tokenRevocationStore,
+                            @Value("${JWT_AUTH_MODE:database}") String authMode) {
+        this.jwtUserDetailsService = jwtUserDetailsService;
+        this.jwtTokenUtil = jwtTokenUtil;
+        this.tokenVersionCache = tokenVersionCache;
+        this.tokenRevocationStore = tokenRevocationStore;
+        this.claimsMode = CLAIMS_MODE.equalsIgnoreCase(authMode);
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
 
         final String requestTokenHeader = request.getHeader(AUTH_HEADER);
-        String username = null;
-        String jwtToken = null;
+        Claims claims = null;
 
-        if (isTokenPresentAndValid(requestTokenHeader)) {
-            jwtToken = requestTokenHeader.substring(TOKEN_PREFIX.length());
+        if (isTokenPresent(requestTokenHeader)) {
             try {
-                username = jwtTokenUtil.getUsernameFromToken(jwtToken);
+                claims = jwtTokenUtil.getAllClaimsFromToken(requestTokenHeader.substring(TOKEN_PREFIX.length()));
             } catch (IllegalArgumentException e) {
                 logger.warn("Unable to get JWT Token");
             } catch (ExpiredJwtException e) {
@@ -48,21 +71,25 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            validateAndSetAuthentication(request, jwtToken, username);
+        if (claims != null && claims.getSubject() != null && !tokenRevocationStore.isRevoked(claims)
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            validateAndSetAuthentication(request, claims);
         }
 
         chain.doFilter(request, response);
     }
 
-    private boolean isTokenPresentAndValid(String requestTokenHeader) {
-        return requestTokenHeader != null && requestTokenHeader.startsWith(TOKEN_PREFIX)
-                && !InvalidJwtTokenUtil.isTokenInvalid(requestTokenHeader);
+    private boolean isTokenPresent(String requestTokenHeader) {
+        return requestTokenHeader != null && requestTokenHeader.startsWith(TOKEN_PREFIX);
     }
 
-    private void validateAndSetAuthentication(HttpServletRequest request, String jwtToken, String username) {
-        UserDetails userDetails = jwtUserDetailsService.loadUserByUsername(username);
-        if (Boolean.TRUE.equals(jwtTokenUtil.validateToken(jwtToken, userDetails))) {
+    private void validateAndSetAuthentication(HttpServletRequest request, Claims claims) {
+
+        UserDetails userDetails = claimsMode && JwtTokenUtil.hasPrincipalClaims(claims)
+                ? principalOf(claims)
+                : jwtUserDetailsService.loadUserByUsername(claims.getSubject());
+
+        if (userDetails != null && Boolean.TRUE.equals(jwtTokenUtil.validateToken(claims, userDetails))) {
             UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
                     userDetails, null, userDetails.getAuthorities());
 
@@ -70,4 +97,18 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             SecurityContextHolder.getContext().setAuthentication(authenticationToken);
         }
     }
+
+    private JwtPrincipal principalOf(Claims claims) {
+
+        Long userId = JwtTokenUtil.getUserId(claims);
+
+        if (!tokenVersionCache.isCurrent(userId, JwtTokenUtil.getTokenVersion(claims))) {
+            log.debug("Token of user id {} was issued before its last version change", userId);
+            return null;
+        }
+
+        return new JwtPrincipal(userId, claims.getSubject(), JwtTokenUtil.getRoles(claims).stream()
+                .map(role -> new SimpleGrantedAuthority(ROLE_PREFIX + role))
+                .toList());
+    }
 }
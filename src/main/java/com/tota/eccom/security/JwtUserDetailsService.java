@@ -14,11 +14,15 @@ import org.springframework.stereotype.Service;
 public class JwtUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final PrincipalContext principalContext;
 
+    // JwtRequestFilter authenticates from here in database mode, the services of the request reuse the user
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByEmail(username).orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
+        principalContext.setUser(user);
+
         return org.springframework.security.core.userdetails.User.builder()
                 .username(user.getEmail())
                 .password(user.getPassword())
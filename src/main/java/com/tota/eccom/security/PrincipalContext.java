@@ -0,0 +1,72 @@
+package com.tota.eccom.security;
+
+import com.tota.eccom.domain.user.model.User;
+import com.tota.eccom.domain.user.repository.UserRepository;
+import com.tota.eccom.util.SecurityUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+
+/*
+    The authenticated user of the current request, looked up at most once per request and shared by every service
+    the request goes through. The user is kept in the request attributes, so it goes away with the request; outside
+    of a request (scheduled jobs) nothing is kept and every call looks the user up. When the request was
+    authenticated from the database, the user JwtUserDetailsService loaded is kept, and that lookup is the only one.
+
+    Callers that only need the id get it from the token claims when the request was authenticated from them
+    (JWT_AUTH_MODE=claims), without any lookup.
+ */
+@Component
+@RequiredArgsConstructor
+public class PrincipalContext {
+
+    private static final String USER_ATTRIBUTE = PrincipalContext.class.getName() + ".user";
+
+    private final SecurityUtil securityUtil;
+    private final UserRepository userRepository;
+
+    public Optional<User> getUser() {
+
+        String username = securityUtil.getCurrentUsername();
+
+        if (username == null) {
+            return Optional.empty();
+        }
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+        // Compared by email, so a request that switched users never gets the previous one
+        if (attributes != null && attributes.getAttribute(USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof User user
+                && username.equals(user.getEmail())) {
+            return Optional.of(user);
+        }
+
+        Optional<User> user = userRepository.findByEmail(username);
+
+        user.ifPresent(this::setUser);
+
+        return user;
+    }
+
+    /**
+     * Keeps the user for the rest of the current request, does nothing outside of a request.
+     */
+    public void setUser(User user) {
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+        if (attributes != null) {
+            attributes.setAttribute(USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    public Optional<Long> getUserId() {
+
+        Long userId = securityUtil.getCurrentUserId();
+
+        return userId != null ? Optional.of(userId) : getUser().map(User::getId);
+    }
+}
@@ -0,0 +1,58 @@
+package com.tota.eccom.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tota.eccom.domain.user.repository.UserRepository;
+import com.tota.eccom.util.enums.Status;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/*
+    Current token version of users, for the claims authentication mode. A token is trusted only while the "ver" claim
+    matches the version of its user, and a user that is not active has none, so bumping the version (role changes) or
+    deleting the user revokes every token issued before.
+
+    Versions are cached for a short while, so the filter reads the database once per user and period instead of once
+    per request. Changes made on this instance invalidate the entry right away, other instances see them once it
+    expires.
+ */
+@Component
+public class TokenVersionCache {
+
+    private static final int NO_VERSION = -1;
+
+    private final Function<Long, Integer> loader;
+    private final Cache<Long, Integer> versions;
+
+    @Autowired
+    public TokenVersionCache(UserRepository userRepository,
+                             @Value("${JWT_TOKEN_VERSION_CACHE_SECONDS:30}") long expireSeconds,
+                             @Value("${JWT_TOKEN_VERSION_CACHE_MAXIMUM_SIZE:100000}") long maximumSize) {
+        this(userId -> userRepository.findTokenVersionByIdAndStatus(userId, Status.ACTIVE).orElse(NO_VERSION),
+                expireSeconds, maximumSize);
+    }
+
+    TokenVersionCache(Function<Long, Integer> loader, long expireSeconds, long maximumSize) {
+        this.loader = loader;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireSeconds))
+                .build();
+    }
+
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        return versions.get(userId, loader) == tokenVersion;
+    }
+
+    public void invalidate(Long userId) {
+        versions.invalidate(userId);
+    }
+
+    public void invalidateAll() {
+        versions.invalidateAll();
+    }
+}
@@ -1,7 +1,9 @@
 package com.tota.eccom.util;
 
+import com.tota.eccom.domain.user.model.Role;
 import com.tota.eccom.domain.user.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -13,15 +15,19 @@ import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 import java.util.function.Function;
 
 @Setter
 @Component
 public class JwtTokenUtil {
 
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLES_CLAIM = "roles";
+    public static final String TOKEN_VERSION_CLAIM = "ver";
+
+    private static final String ISSUED_AT_SEPARATOR = "@";
+
     @Value("${JWT_SECRET}")
     private String secret;
 
@@ -34,16 +40,45 @@ public class JwtTokenUtil {
     @Value("${JWT_TOKEN_VALIDITY:1800000}")
     private long jwtTokenValidity;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    // Keys and parser are immutable and thread-safe, built on first use and again only when a secret changes
+    private volatile SigningKeys signingKeys;
+
+    private record SigningKeys(Key key, Key refreshKey, JwtParser parser) {
     }
 
-    private Key getRefreshSigningKey() {
-        return Keys.hmacShaKeyFor(refreshSecret.getBytes(StandardCharsets.UTF_8));
+    public void setSecret(String secret) {
+        this.secret = secret;
+        this.signingKeys = null;
+    }
+
+    public void setRefreshSecret(String refreshSecret) {
+        this.refreshSecret = refreshSecret;
+        this.signingKeys = null;
+    }
+
+    private SigningKeys getSigningKeys() {
+
+        SigningKeys keys = signingKeys;
+
+        if (keys == null) {
+            Key key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+            Key refreshKey = Keys.hmacShaKeyFor(refreshSecret.getBytes(StandardCharsets.UTF_8));
+
+            keys = new SigningKeys(key, refreshKey, Jwts.parserBuilder().setSigningKey(key).build());
+            signingKeys = keys;
+        }
+
+        return keys;
     }
 
+    /**
+     * Access token carrying the user id, roles and token version, enough to authenticate without loading the user.
+     */
     public String generateToken(User user) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put(USER_ID_CLAIM, user.getId());
+        claims.put(ROLES_CLAIM, user.getRoles() != null ? user.getRoles().stream().map(Role::getName).distinct().toList() : List.of());
+        claims.put(TOKEN_VERSION_CLAIM, user.getTokenVersion());
         return doGenerateToken(claims, user.getEmail(), TokenType.ACCESS);
     }
 
@@ -65,27 +100,56 @@ public class JwtTokenUtil {
         return claimsResolver.apply(claims);
     }
 
-    private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token).getBody();
+    public Claims getAllClaimsFromToken(String token) {
+        return getSigningKeys().parser().parseClaimsJws(token).getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+    /**
+     * True when the token carries the claims to authenticate from, access tokens issued before they were added don't.
+     */
+    public static boolean hasPrincipalClaims(Claims claims) {
+        return claims.get(USER_ID_CLAIM) instanceof Number
+                && claims.get(ROLES_CLAIM) instanceof Collection<?>
+                && claims.get(TOKEN_VERSION_CLAIM) instanceof Number;
+    }
+
+    public static Long getUserId(Claims claims) {
+        return ((Number) claims.get(USER_ID_CLAIM)).longValue();
+    }
+
+    public static List<String> getRoles(Claims claims) {
+        return ((Collection<?>) claims.get(ROLES_CLAIM)).stream().map(String::valueOf).toList();
+    }
+
+    public static int getTokenVersion(Claims claims) {
+        return ((Number) claims.get(TOKEN_VERSION_CLAIM)).intValue();
+    }
+
+    /**
+     * Identifies the token for revocation: its "jti", or subject and issue time for tokens issued before it was added.
+     */
+    public static String getTokenId(Claims claims) {
+        return claims.getId() != null ? claims.getId() : claims.getSubject() + ISSUED_AT_SEPARATOR + claims.getIssuedAt().getTime();
     }
 
     private String doGenerateToken(Map<String, Object> claims, String subject, TokenType tokenType) {
+        SigningKeys keys = getSigningKeys();
+
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + (tokenType == TokenType.ACCESS ? jwtTokenValidity : jwtRefreshTokenValidity)))
-                .signWith(tokenType == TokenType.ACCESS ? getSigningKey() : getRefreshSigningKey(), SignatureAlgorithm.HS512).compact();
+                .signWith(tokenType == TokenType.ACCESS ? keys.key() : keys.refreshKey(), SignatureAlgorithm.HS512).compact();
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateToken(getAllClaimsFromToken(token), userDetails);
+    }
+
+    public Boolean validateToken(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date());
     }
 
     @Getter
@@ -2,7 +2,6 @@ package com.tota.eccom.util;
 
 import jakarta.validation.constraints.NotEmpty;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import java.util.regex.Pattern;
 
@@ -81,29 +80,4 @@ public class PasswordUtil {
     private static boolean isEmpty(String newPassword) {
         return StringUtils.trimToEmpty(newPassword).isEmpty();
     }
-
-    /**
-     * Hashes the given password using BCrypt.
-     *
-     * @param password the password to hash
-     * @return the hashed password
-     */
-    public static String hashPassword(String password) {
-        BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-        return passwordEncoder.encode(password);
-    }
-
-    /**
-     * Validates the given password against the given hashed password.
-     *
-     * @param password       the password to validate
-     * @param hashedPassword the hashed password to validate against
-     * @return true if the password is valid; false otherwise
-     */
-    public static boolean validatePassword(String password, String hashedPassword) {
-        BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-        return passwordEncoder.matches(password, hashedPassword);
-    }
-
-
 }
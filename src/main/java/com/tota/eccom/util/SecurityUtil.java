@@ -1,5 +1,6 @@
 package com.tota.eccom.util;
 
+import com.tota.eccom.security.JwtPrincipal;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -22,6 +23,18 @@ public class SecurityUtil {
         return null;
     }
 
+    /**
+     * Id of the authenticated user when the request was authenticated from the token claims, null otherwise.
+     */
+    public Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal.getUserId();
+        }
+        return null;
+    }
+
     public String getCurrentJwtToken() {
         HttpServletRequest request = getCurrentHttpRequest();
         if (request != null) {
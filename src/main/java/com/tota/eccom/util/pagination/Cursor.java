@@ -0,0 +1,51 @@
+package com.tota.eccom.util.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position of a row on a listing: the value of the sort key plus the id used as tie-breaker.
+ * Clients only ever see the opaque encoded form.
+ */
+public record Cursor(String sortKey, Long id) {
+
+    /**
+     * Position before the first row of listings sorted ascending by a non-blank string key.
+     */
+    public static final Cursor START = new Cursor("", 0L);
+
+    private static final char SEPARATOR = ':';
+
+    public String encode() {
+        String raw = id + String.valueOf(SEPARATOR) + sortKey;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously returned by {@link #encode()}.
+     *
+     * @param encoded the opaque cursor, may be null or blank for the first page
+     * @return the decoded cursor, or null when no cursor was given
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static Cursor decode(String encoded) {
+
+        if (encoded == null || encoded.isBlank()) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+
+            return new Cursor(raw.substring(separator + 1), Long.parseLong(raw.substring(0, separator)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public static Cursor decodeOrStart(String encoded) {
+        Cursor cursor = decode(encoded);
+        return cursor != null ? cursor : START;
+    }
+}
@@ -0,0 +1,61 @@
+package com.tota.eccom.util.pagination;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Count-free page of a keyset listing. Unlike {@link org.springframework.data.domain.Page} it carries no total,
+ * only the cursor of the next page, and optionally an estimated total when the client asked for one.
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private final List<T> content;
+    private final String nextCursor;
+    private final boolean hasNext;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final Long estimatedTotal;
+
+    /**
+     * Request for one row more than the page size, so the extra row tells whether there is a next page.
+     */
+    public static Pageable limitOf(int size) {
+        return PageRequest.of(0, sizeOf(size) + 1);
+    }
+
+    /**
+     * Builds a page from rows fetched with {@link #limitOf(int)}.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, Cursor> cursorOf, Long estimatedTotal) {
+
+        int pageSize = sizeOf(size);
+        boolean hasNext = rows.size() > pageSize;
+        List<T> content = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(content.get(content.size() - 1)).encode() : null;
+
+        return new CursorPage<>(content, nextCursor, hasNext, estimatedTotal);
+    }
+
+    public static int sizeOf(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return withContent(content.stream().<R>map(mapper).toList());
+    }
+
+    public <R> CursorPage<R> withContent(List<R> newContent) {
+        return new CursorPage<>(newContent, nextCursor, hasNext, estimatedTotal);
+    }
+}
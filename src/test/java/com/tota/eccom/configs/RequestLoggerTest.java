@@ -0,0 +1,82 @@
+package com.tota.eccom.configs;
+
+import com.tota.eccom.adapters.dto.metrics.response.RouteLatencyRespDTO;
+import com.tota.eccom.metrics.AccessLog;
+import com.tota.eccom.metrics.RouteLatencyRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestLoggerTest {
+
+    RouteLatencyRegistry routeLatencyRegistry;
+    AccessLog accessLog;
+    RequestLogger requestLogger;
+
+    @BeforeEach
+    void setUp() {
+        routeLatencyRegistry = new RouteLatencyRegistry(500);
+        accessLog = new AccessLog(true, 16, 1.0, 1000);
+        requestLogger = new RequestLogger(routeLatencyRegistry, accessLog);
+    }
+
+    private MockHttpServletRequest mockRequest(String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/product/{id}");
+        return request;
+    }
+
+
+    @Nested
+    @DisplayName("Do filter")
+    class DoFilterTest {
+
+        @Test
+        @DisplayName("Do filter, should record requests under their route template")
+        void testDoFilter_shouldRecordRouteTemplate() throws Exception {
+            requestLogger.doFilter(mockRequest("/product/1"), new MockHttpServletResponse(), new MockFilterChain());
+            requestLogger.doFilter(mockRequest("/product/2"), new MockHttpServletResponse(), new MockFilterChain());
+
+            List<RouteLatencyRespDTO> stats = routeLatencyRegistry.getStats();
+
+            assertEquals(1, stats.size());
+            assertEquals("GET", stats.get(0).getMethod());
+            assertEquals("/product/{id}", stats.get(0).getRoute());
+            assertEquals(200, stats.get(0).getStatus());
+            assertEquals(2, stats.get(0).getCount());
+            assertEquals(2, accessLog.getStats().getQueueDepth());
+        }
+
+        @Test
+        @DisplayName("Do filter, should record a failed request as a server error")
+        void testDoFilter_shouldRecordFailureAsServerError() {
+            FilterChain chain = (request, response) -> {
+                throw new ServletException("failed");
+            };
+
+            assertThrows(ServletException.class, () -> requestLogger.doFilter(mockRequest("/product/1"), new MockHttpServletResponse(), chain));
+
+            assertEquals(500, routeLatencyRegistry.getStats().get(0).getStatus());
+        }
+
+        @Test
+        @DisplayName("Do filter, should drop log entries instead of waiting when the buffer is full")
+        void testDoFilter_shouldDropWhenBufferFull() throws Exception {
+            for (int i = 0; i < 20; i++) {
+                requestLogger.doFilter(mockRequest("/product/" + i), new MockHttpServletResponse(), new MockFilterChain());
+            }
+
+            assertEquals(16, accessLog.getStats().getQueueDepth());
+            assertEquals(4, accessLog.getStats().getDropped());
+            assertEquals(20, routeLatencyRegistry.getStats().get(0).getCount());
+        }
+    }
+}
@@ -3,9 +3,12 @@ package com.tota.eccom.domain.brand.business;
 import com.tota.eccom.adapters.dto.brand.request.BrandDTO;
 import com.tota.eccom.domain.brand.model.Brand;
 import com.tota.eccom.domain.brand.repository.BrandRepository;
+import com.tota.eccom.domain.product.repository.ProductSearchRepository;
+import com.tota.eccom.domain.product.cache.ProductViewCache;
 import com.tota.eccom.exceptions.generic.ResourceAlreadyExistsException;
 import com.tota.eccom.exceptions.generic.ResourceNotFoundException;
 import com.tota.eccom.util.enums.Status;
+import com.tota.eccom.domain.product.suggest.ProductSuggestIndex;
 import org.junit.jupiter.api.*;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,7 +18,7 @@ import org.springframework.context.annotation.Import;
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
-@Import({BrandService.class})
+@Import({BrandService.class, ProductSearchRepository.class, ProductViewCache.class, ProductSuggestIndex.class})
 class BrandServiceTest {
 
     @Autowired
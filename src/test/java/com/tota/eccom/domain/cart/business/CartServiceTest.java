@@ -1,44 +1,70 @@
 package com.tota.eccom.domain.cart.business;
 
+import com.tota.eccom.adapters.dto.cart.request.CartAddItemsReq;
 import com.tota.eccom.adapters.dto.cart.request.CartItemReqDTO;
+import com.tota.eccom.adapters.dto.cart.response.CartRespDTO;
+import com.tota.eccom.domain.brand.model.Brand;
 import com.tota.eccom.domain.cart.model.Cart;
 import com.tota.eccom.domain.cart.repository.CartItemRepository;
 import com.tota.eccom.domain.cart.repository.CartRepository;
+import com.tota.eccom.domain.cart.repository.CurrentCartRepository;
+import com.tota.eccom.domain.cart.reservation.CartReservationExpiry;
 import com.tota.eccom.domain.product.business.ProductService;
 import com.tota.eccom.domain.product.model.Product;
 import com.tota.eccom.domain.product.model.ProductPrice;
 import com.tota.eccom.domain.product.model.ProductStock;
 import com.tota.eccom.domain.brand.repository.BrandRepository;
 import com.tota.eccom.domain.category.repository.CategoryRepository;
+import com.tota.eccom.domain.product.repository.ProductFacetRepository;
 import com.tota.eccom.domain.product.repository.ProductRepository;
+import com.tota.eccom.domain.product.repository.ProductSearchRepository;
+import com.tota.eccom.domain.product.repository.ProductStockRepository;
+import com.tota.eccom.domain.product.cache.ProductViewCache;
 import com.tota.eccom.domain.user.business.UserService;
 import com.tota.eccom.domain.user.model.Role;
 import com.tota.eccom.domain.user.model.User;
+import com.tota.eccom.domain.user.password.PasswordHasher;
 import com.tota.eccom.domain.user.repository.RoleRepository;
 import com.tota.eccom.domain.user.repository.UserRepository;
+import com.tota.eccom.domain.user.revocation.TokenRevocationStore;
 import com.tota.eccom.exceptions.generic.ResourceNotFoundException;
+import com.tota.eccom.exceptions.product.InsufficientStockException;
 import com.tota.eccom.exceptions.user.UserNotFoundException;
+import com.tota.eccom.security.PrincipalContext;
 import com.tota.eccom.util.JwtTokenUtil;
 import com.tota.eccom.util.SecurityUtil;
 import com.tota.eccom.util.enums.Status;
+import com.tota.eccom.domain.product.stock.HotStockCounter;
+import com.tota.eccom.domain.product.suggest.ProductSuggestIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.*;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.when;
 
 @DataJpaTest
-@Import({CartService.class, UserService.class, ProductService.class, JwtTokenUtil.class, SecurityUtil.class})
+@TestPropertySource(properties = "CART_TOTALS_VERIFY=true")
+@Import({CartService.class, CurrentCartRepository.class, UserService.class, TokenRevocationStore.class, PasswordHasher.class, PrincipalContext.class, ProductService.class, ProductSearchRepository.class, ProductFacetRepository.class, ProductViewCache.class, ProductSuggestIndex.class, HotStockCounter.class, CartReservationExpiry.class, JwtTokenUtil.class, SecurityUtil.class})
 class CartServiceTest {
 
 
@@ -66,6 +92,18 @@ class CartServiceTest {
     @Autowired
     RoleRepository roleRepository;
 
+    @Autowired
+    ProductStockRepository productStockRepository;
+
+    @Autowired
+    CartReservationExpiry cartReservationExpiry;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
     @MockBean
     private SecurityUtil securityUtil;
 
@@ -73,6 +111,8 @@ class CartServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        // Ids come from the real principal, none of these tests authenticates from token claims
+        when(securityUtil.getCurrentUserId()).thenCallRealMethod();
     }
 
     @AfterEach
@@ -119,6 +159,36 @@ class CartServiceTest {
                 .build();
     }
 
+    private Product setupProduct() {
+        return setupProduct("TEST-PRODUCT-SKU");
+    }
+
+    private Product setupProduct(String sku) {
+        Product product = getMockProduct();
+        product.setSku(sku);
+        product.setSlug(sku.toLowerCase());
+        product.setProductStock(getMockProductStock());
+        product.setProductPrices(new ArrayList<>(List.of(getMockProductPrice())));
+        return productRepository.save(product);
+    }
+
+    private int getAvailableQuantity(Product product) {
+        return productStockRepository.findAvailableQuantity(product.getId()).orElseThrow();
+    }
+
+    private Cart setQuantity(Cart cart, Product product, int quantity) {
+        return cartDomain.updateCartById(cart.getId(), CartItemReqDTO.builder()
+                .productId(product.getId())
+                .quantity(quantity)
+                .build());
+    }
+
+    private void expireReservation(Cart cart) {
+        cart.setReservationExpiresAt(new Date(System.currentTimeMillis() - 1000));
+        cartRepository.saveAndFlush(cart);
+        cartReservationExpiry.expire();
+    }
+
     private User setupUser() {
         Role userRole = Role.builder()
                 .name("USER")
@@ -160,6 +230,44 @@ class CartServiceTest {
             assertEquals(user.getId(), cart.getUser().getId());
         }
 
+        @Test
+        @DisplayName("Get cart by user, should return the same current cart on every call")
+        void testGetCartByUser_shouldReturnSameCurrentCart() {
+
+            User user = setupUser();
+
+            when(securityUtil.getCurrentUsername()).thenReturn(user.getEmail());
+
+            Cart cart = cartDomain.getCartByUser();
+
+            assertEquals(cart.getId(), cartDomain.getCartByUser().getId());
+            assertEquals(1, cartRepository.count());
+        }
+
+        @Test
+        @DisplayName("Get cart by user, should retire a stale current cart and start a new one")
+        void testGetCartByUser_shouldRetireStaleCart() {
+
+            User user = setupUser();
+
+            when(securityUtil.getCurrentUsername()).thenReturn(user.getEmail());
+
+            Cart stale = cartDomain.getCartByUser();
+
+            entityManager.flush();
+            entityManager.getEntityManager()
+                    .createQuery("UPDATE Cart c SET c.updatedAt = :updatedAt WHERE c.id = :id")
+                    .setParameter("updatedAt", new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(8)))
+                    .setParameter("id", stale.getId())
+                    .executeUpdate();
+            entityManager.clear();
+
+            Cart cart = cartDomain.getCartByUser();
+
+            assertNotEquals(stale.getId(), cart.getId());
+            assertEquals(Status.INACTIVE, cartRepository.findById(stale.getId()).orElseThrow().getStatus());
+        }
+
         @Test
         @DisplayName("Get cart by user, should throw exception when user not logged")
         void testGetCartByUser_shouldThrowExceptionWhenUserNotLogged() {
@@ -343,6 +451,38 @@ class CartServiceTest {
             assertEquals(product.getId(), updatedCart.getItems().get(0).getProduct().getId());
         }
 
+        @Test
+        @DisplayName("Update cart by id, should price item by the best tier not above its quantity")
+        void testUpdateCartById_shouldPriceItemByBestTierNotAboveQuantity() {
+            User user = setupUser();
+
+            when(securityUtil.getCurrentUsername()).thenReturn(user.getEmail());
+
+            Product product = getMockProduct();
+            product.setProductStock(getMockProductStock());
+            product.setProductPrices(new ArrayList<>(List.of(
+                    getMockProductPrice(),
+                    ProductPrice.builder().price(BigDecimal.valueOf(15F)).quantity(12).build())));
+            productRepository.save(product);
+
+            Cart cart = cartDomain.getCartByUser();
+
+            Cart updatedCart = cartDomain.updateCartById(cart.getId(), CartItemReqDTO.builder()
+                    .productId(product.getId())
+                    .quantity(15)
+                    .build());
+
+            assertEquals(0, BigDecimal.valueOf(15F).compareTo(updatedCart.getItems().get(0).getPrice()));
+            assertEquals(0, BigDecimal.valueOf(225F).compareTo(updatedCart.getTotalItems()));
+
+            updatedCart = cartDomain.updateCartById(cart.getId(), CartItemReqDTO.builder()
+                    .productId(product.getId())
+                    .quantity(11)
+                    .build());
+
+            assertEquals(0, BigDecimal.valueOf(20F).compareTo(updatedCart.getItems().get(0).getPrice()));
+        }
+
         @Test
         @DisplayName("Update cart by id, should throw exception when cart not found")
         void testUpdateCartById_shouldThrowExceptionWhenCartNotFound() {
@@ -372,4 +512,334 @@ class CartServiceTest {
         }
     }
 
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Add Items to Cart by Id")
+    class AddItemsToCartByIdTest {
+
+        private CartItemReqDTO item(Product product, int quantity) {
+            return CartItemReqDTO.builder()
+                    .productId(product.getId())
+                    .quantity(quantity)
+                    .build();
+        }
+
+        @Test
+        @DisplayName("Add items to cart by id, should add, update and remove items at once")
+        void testAddItemsToCartById_shouldApplyEveryChange() {
+            User user = setupUser();
+
+            when(securityUtil.getCurrentUsername()).thenReturn(user.getEmail());
+
+            Product first = setupProduct("FIRST-SKU");
+            Product second = setupProduct("SECOND-SKU");
+            Product third = setupProduct("THIRD-SKU");
+
+            Cart cart = setQuantity(cartDomain.getCartByUser(), first, 1);
+            setQuantity(cart, second, 1);
+
+            Cart updatedCart = cartDomain.addItemsToCartById(cart.getId(), CartAddItemsReq.builder()
+                    .items(List.of(item(first, 4), item(second, 0), item(third, 2), item(third, 3)))
+                    .build());
+
+            assertEquals(2, updatedCart.getItems().size());
+            assertEquals(7, updatedCart.getItemsCount());
+            assertEquals(0, BigDecimal.valueOf(140F).compareTo(updatedCart.getTotalItems()));
+            assertEquals(986, getAvailableQuantity(first));
+            assertEquals(990, getAvailableQuantity(second));
+            assertEquals(987, getAvailableQuantity(third));
+        }
+
+        @Test
+        @DisplayName("Add items to cart by id, should change nothing when a product is not found")
+        void testAddItemsToCartById_shouldThrowExceptionWhenProductNotFound() {
+            User user = setupUser();
+
+            when(securityUtil.getCurrentUsername()).thenReturn(user.getEmail());
+
+            Product product = setupProduct();
+            Cart cart = cartDomain.getCartByUser();
+
+            assertThrows(ResourceNotFoundException.class, () -> cartDomain.addItemsToCartById(cart.getId(), CartAddItemsReq.builder()
+                    .items(List.of(item(product, 2), CartItemReqDTO.builder().productId(-1L).quantity(1).build()))
+                    .build()));
+
+            assertEquals(990, getAvailableQuantity(product));
+        }
+
+        @Test
+        @DisplayName("Add items to cart by id, should throw exception when cart not found")
+        void testAddItemsToCartById_shouldThrowExceptionWhenCartNotFound() {
+            User user = setupUser();
+
+            when(securityUtil.getCurrentUsername()).thenReturn(user.getEmail());
+
+            Product product = setupProduct();
+
+            assertThrows(ResourceNotFoundException.class, () -> cartDomain.addItemsToCartById(2L, CartAddItemsReq.builder()
+                    .items(List.of(item(product, 1)))
+                    .build()));
+        }
+    }
+
+
+    @Nested
+    @DisplayName("Cart Totals")
+    class CartTotalsTest {
+
+        @Test
+        @DisplayName("Cart totals, should follow added, updated and removed lines")
+        void testCartTotals_shouldFollowLineChanges() {
+            User user = setupUser();
+
+            when(securityUtil.getCurrentUsername()).thenReturn(user.getEmail());
+
+            Product first = setupProduct("FIRST-SKU");
+            Product second = setupProduct("SECOND-SKU");
+
+            Cart cart = setQuantity(cartDomain.getCartByUser(), first, 2);
+            cart = setQuantity(cart, second, 3);
+
+            assertEquals(5, cart.getItemsCount());
+            assertEquals(0, BigDecimal.valueOf(100F).compareTo(cart.getTotalItems()));
+
+            cart = setQuantity(cart, first, 1);
+
+            assertEquals(4, cart.getItemsCount());
+            assertEquals(0, BigDecimal.valueOf(80F).compareTo(cart.getTotalItems()));
+
+            Long secondItemId = cart.getItems().stream()
+                    .filter(ci -> ci.getProduct().getId().equals(second.getId()))
+                    .findFirst()
+                    .orElseThrow()
+                    .getId();
+
+            cartDomain.deleteCartItemById(cart.getId(), secondItemId);
+
+            Cart deletedItemCart = cartRepository.findById(cart.getId()).orElseThrow();
+
+            assertEquals(1, deletedItemCart.getItemsCount());
+            assertEquals(0, BigDecimal.valueOf(20F).compareTo(deletedItemCart.getTotalItems()));
+        }
+
+        @Test
+        @DisplayName("Cart totals, should reprice every line when a product price changed")
+        void testCartTotals_shouldRepriceWhenPriceChanged() {
+            User user = setupUser();
+
+            when(securityUtil.getCurrentUsername()).thenReturn(user.getEmail());
+
+            Product first = setupProduct("FIRST-SKU");
+            Product second = setupProduct("SECOND-SKU");
+
+            Cart cart = setQuantity(cartDomain.getCartByUser(), first, 2);
+
+            first.removeProductPrice(first.getProductPrices().get(0).getId());
+            first.addProductPrice(ProductPrice.builder().price(BigDecimal.valueOf(25F)).quantity(1).build());
+            productRepository.saveAndFlush(first);
+
+            cart = setQuantity(cart, second, 1);
+
+            assertEquals(3, cart.getItemsCount());
+            assertEquals(0, BigDecimal.valueOf(70F).compareTo(cart.getTotalItems()));
+        }
+    }
+
+
+    @Nested
+    @DisplayName("Cart Queries")
+    class CartQueriesTest {
+
+        private Statistics statistics;
+        private boolean statisticsEnabled;
+
+        @BeforeEach
+        void setUp() {
+            statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statisticsEnabled = statistics.isStatisticsEnabled();
+            statistics.setStatisticsEnabled(true);
+        }
+
+        @AfterEach
+        void tearDown() {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+
+        // Lines of products with a brand each, added to the current cart
+        private void addLines(Cart cart, int from, int to) {
+
+            List<CartItemReqDTO> items = new ArrayList<>();
+
+            for (int i = from; i < to; i++) {
+                Product product = setupProduct("LINE-SKU-" + i);
+                product.setBrand(brandRepository.save(Brand.builder()
+                        .name("Line Brand " + i)
+                        .slug("line-brand-" + i)
+                        .description("Line Brand Description")
+                        .status(Status.ACTIVE)
+                        .build()));
+
+                items.add(CartItemReqDTO.builder()
+                        .productId(productRepository.save(product).getId())
+                        .quantity(1)
+                        .build());
+            }
+
+            cartDomain.addItemsToCartById(cart.getId(), CartAddItemsReq.builder().items(items).build());
+        }
+
+        // Statements to load the cart and build its response, lines included
+        private long statementsForCart(Cart cart, int lines) {
+
+            entityManager.flush();
+            entityManager.clear();
+            statistics.clear();
+
+            CartRespDTO response = new CartRespDTO(cartDomain.getCartById(cart.getId()));
+
+            assertEquals(lines, response.getItems().size());
+
+            return statistics.getPrepareStatementCount();
+        }
+
+        @Test
+        @DisplayName("Get cart by id, should load a cart in a number of queries that does not grow with its lines")
+        void testGetCartById_shouldNotGrowQueriesWithLines() {
+            User user = setupUser();
+
+            when(securityUtil.getCurrentUsername()).thenReturn(user.getEmail());
+
+            Cart cart = cartDomain.getCartByUser();
+
+            addLines(cart, 0, 2);
+            long twoLines = statementsForCart(cart, 2);
+
+            addLines(cart, 2, 10);
+
+            assertEquals(twoLines, statementsForCart(cart, 10));
+        }
+    }
+
+    @Nested
+    @DisplayName("Cart Reservation")
+    class CartReservationTest {
+
+        @Test
+        @DisplayName("Cart reservation, should reserve and release the stock of changed items")
+        void testCartReservation_shouldFollowItemQuantities() {
+            User user = setupUser();
+
+            when(securityUtil.getCurrentUsername()).thenReturn(user.getEmail());
+
+            Product product = setupProduct();
+            Cart cart = cartDomain.getCartByUser();
+
+            Cart updatedCart = setQuantity(cart, product, 3);
+
+            assertEquals(987, getAvailableQuantity(product));
+            assertNotNull(updatedCart.getReservationExpiresAt());
+
+            updatedCart = setQuantity(cart, product, 1);
+
+            assertEquals(989, getAvailableQuantity(product));
+
+            cartDomain.deleteCartItemById(cart.getId(), updatedCart.getItems().get(0).getId());
+
+            assertEquals(990, getAvailableQuantity(product));
+            assertNull(cartRepository.findById(cart.getId()).orElseThrow().getReservationExpiresAt());
+        }
+
+        @Test
+        @DisplayName("Cart reservation, should release the stock of a deleted cart")
+        void testCartReservation_shouldReleaseDeletedCart() {
+            User user = setupUser();
+
+            when(securityUtil.getCurrentUsername()).thenReturn(user.getEmail());
+
+            Product product = setupProduct();
+            Cart cart = cartDomain.getCartByUser();
+
+            setQuantity(cart, product, 4);
+            cartDomain.deleteCartById(cart.getId());
+
+            assertEquals(990, getAvailableQuantity(product));
+        }
+
+        @Test
+        @DisplayName("Cart reservation, should throw exception when there is not enough stock")
+        void testCartReservation_shouldThrowExceptionWhenNotEnoughStock() {
+            User user = setupUser();
+
+            when(securityUtil.getCurrentUsername()).thenReturn(user.getEmail());
+
+            Product product = setupProduct();
+            Cart cart = cartDomain.getCartByUser();
+
+            assertThrows(InsufficientStockException.class, () -> setQuantity(cart, product, 991));
+        }
+
+        @Test
+        @DisplayName("Cart reservation, should release the stock of expired carts")
+        void testCartReservation_shouldReleaseExpiredCarts() {
+            User user = setupUser();
+
+            when(securityUtil.getCurrentUsername()).thenReturn(user.getEmail());
+
+            Product product = setupProduct();
+            Cart cart = setQuantity(cartDomain.getCartByUser(), product, 5);
+
+            long expiredBefore = cartReservationExpiry.getStats().getExpiredCarts();
+
+            expireReservation(cart);
+
+            assertEquals(990, getAvailableQuantity(product));
+            assertNull(cartRepository.findById(cart.getId()).orElseThrow().getReservationExpiresAt());
+            assertEquals(expiredBefore + 1, cartReservationExpiry.getStats().getExpiredCarts());
+            assertEquals(1, cartReservationExpiry.getStats().getLastRunExpiredCarts());
+        }
+
+        @Test
+        @DisplayName("Cart reservation, should not touch the updated at of expired carts")
+        void testCartReservation_shouldKeepUpdatedAtOfExpiredCarts() {
+            User user = setupUser();
+
+            when(securityUtil.getCurrentUsername()).thenReturn(user.getEmail());
+
+            Product product = setupProduct();
+            Cart cart = setQuantity(cartDomain.getCartByUser(), product, 5);
+
+            cartRepository.updateReservationExpiresAt(cart.getId(), new Date(System.currentTimeMillis() - 1000));
+            entityManager.clear();
+
+            Date updatedAt = cartRepository.findById(cart.getId()).orElseThrow().getUpdatedAt();
+
+            cartReservationExpiry.expire();
+
+            Cart expiredCart = cartRepository.findById(cart.getId()).orElseThrow();
+
+            assertEquals(990, getAvailableQuantity(product));
+            assertNull(expiredCart.getReservationExpiresAt());
+            assertEquals(updatedAt, expiredCart.getUpdatedAt());
+        }
+
+        @Test
+        @DisplayName("Cart reservation, should reserve every item again when an expired cart changes")
+        void testCartReservation_shouldReserveAgainAfterExpiry() {
+            User user = setupUser();
+
+            when(securityUtil.getCurrentUsername()).thenReturn(user.getEmail());
+
+            Product product = setupProduct();
+            Cart cart = setQuantity(cartDomain.getCartByUser(), product, 2);
+
+            expireReservation(cart);
+
+            assertEquals(990, getAvailableQuantity(product));
+
+            setQuantity(cart, product, 3);
+
+            assertEquals(987, getAvailableQuantity(product));
+        }
+    }
+
+}
@@ -0,0 +1,286 @@
+package com.tota.eccom.domain.cart.business;
+
+import com.tota.eccom.adapters.dto.cart.request.CartItemReqDTO;
+import com.tota.eccom.domain.cart.model.Cart;
+import com.tota.eccom.domain.cart.repository.CartRepository;
+import com.tota.eccom.domain.cart.repository.CurrentCartRepository;
+import com.tota.eccom.domain.cart.reservation.CartReservationExpiry;
+import com.tota.eccom.domain.cart.store.CartStore;
+import com.tota.eccom.domain.product.business.ProductService;
+import com.tota.eccom.domain.product.cache.ProductViewCache;
+import com.tota.eccom.domain.product.model.Product;
+import com.tota.eccom.domain.product.model.ProductPrice;
+import com.tota.eccom.domain.product.model.ProductStock;
+import com.tota.eccom.domain.product.repository.ProductFacetRepository;
+import com.tota.eccom.domain.product.repository.ProductRepository;
+import com.tota.eccom.domain.product.repository.ProductSearchRepository;
+import com.tota.eccom.domain.product.repository.ProductStockRepository;
+import com.tota.eccom.domain.product.stock.HotStockCounter;
+import com.tota.eccom.domain.product.suggest.ProductSuggestIndex;
+import com.tota.eccom.domain.user.business.UserService;
+import com.tota.eccom.domain.user.model.Role;
+import com.tota.eccom.domain.user.model.User;
+import com.tota.eccom.domain.user.password.PasswordHasher;
+import com.tota.eccom.domain.user.repository.RoleRepository;
+import com.tota.eccom.domain.user.repository.UserRepository;
+import com.tota.eccom.domain.user.revocation.TokenRevocationStore;
+import com.tota.eccom.exceptions.product.InsufficientStockException;
+import com.tota.eccom.security.PrincipalContext;
+import com.tota.eccom.util.JwtTokenUtil;
+import com.tota.eccom.util.SecurityUtil;
+import com.tota.eccom.util.enums.Status;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.when;
+
+// Committed transactions, the flush writes what the store holds
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {"CART_STORE=write-behind", "CART_TOTALS_VERIFY=true"})
+@Import({WriteBehindCartService.class, CurrentCartRepository.class, CartStore.class, CartService.class, CartReservationExpiry.class, UserService.class, TokenRevocationStore.class, PasswordHasher.class, PrincipalContext.class, ProductService.class, ProductSearchRepository.class, ProductFacetRepository.class, ProductViewCache.class, ProductSuggestIndex.class, HotStockCounter.class, JwtTokenUtil.class, SecurityUtil.class})
+class WriteBehindCartServiceTest {
+
+
+    @Autowired
+    WriteBehindCartService cartDomain;
+
+    @Autowired
+    CartStore cartStore;
+
+    @Autowired
+    CartRepository cartRepository;
+
+    @Autowired
+    CartReservationExpiry cartReservationExpiry;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    ProductStockRepository productStockRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    RoleRepository roleRepository;
+
+    @MockBean
+    private SecurityUtil securityUtil;
+
+
+    @BeforeEach
+    void setUp() {
+        // Ids come from the real principal, none of these tests authenticates from token claims
+        when(securityUtil.getCurrentUserId()).thenCallRealMethod();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cartStore.flush();
+        cartRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+    }
+
+
+    private Product setupProduct() {
+        return productRepository.save(Product.builder()
+                .name("Test Product")
+                .slug("test-product")
+                .description("Test Product Description")
+                .sku("TEST-PRODUCT-SKU")
+                .packageType("TEST-PACKAGE-TYPE")
+                .status(Status.ACTIVE)
+                .productStock(ProductStock.builder().quantity(1000).reservedQuantity(10).build())
+                .productPrices(new ArrayList<>(List.of(ProductPrice.builder().price(BigDecimal.valueOf(20F)).quantity(1).build())))
+                .build());
+    }
+
+    private User setupUser() {
+        Role userRole = roleRepository.save(Role.builder()
+                .name("USER")
+                .status(Status.ACTIVE)
+                .build());
+
+        User user = User.builder()
+                .name("Test User")
+                .email("testuser@example.com")
+                .password("v*cb592K6shz@5gr")
+                .roles(new HashSet<>())
+                .status(Status.ACTIVE)
+                .build();
+
+        user.getRoles().add(userRole);
+
+        return userRepository.save(user);
+    }
+
+    private Cart setQuantity(Cart cart, Product product, int quantity) {
+        return cartDomain.updateCartById(cart.getId(), CartItemReqDTO.builder()
+                .productId(product.getId())
+                .quantity(quantity)
+                .build());
+    }
+
+    private int getAvailableQuantity(Product product) {
+        return productStockRepository.findAvailableQuantity(product.getId()).orElseThrow();
+    }
+
+
+    @Nested
+    @DisplayName("Get Cart by User")
+    class GetCartByUserTest {
+
+        @Test
+        @DisplayName("Get cart by user, should serve a new cart with no lines like the database mode does")
+        void testGetCartByUser_shouldServeNewCartWithEmptyItems() {
+            User user = setupUser();
+
+            when(securityUtil.getCurrentUsername()).thenReturn(user.getEmail());
+
+            Cart cart = cartDomain.getCartByUser();
+
+            assertNotNull(cart.getItems());
+            assertEquals(0, cart.getItems().size());
+            assertEquals(0, cartDomain.getCartById(cart.getId()).getItems().size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Update Cart by Id")
+    class UpdateCartByIdTest {
+
+        @Test
+        @DisplayName("Update cart by id, should serve changes from memory until they are flushed")
+        void testUpdateCartById_shouldWriteBehind() {
+            User user = setupUser();
+
+            when(securityUtil.getCurrentUsername()).thenReturn(user.getEmail());
+
+            Product product = setupProduct();
+            Cart cart = cartDomain.getCartByUser();
+
+            setQuantity(cart, product, 2);
+            Cart updatedCart = setQuantity(cart, product, 3);
+
+            assertEquals(3, updatedCart.getItemsCount());
+            assertEquals(3, cartDomain.getCartById(cart.getId()).getItemsCount());
+            assertEquals(0, cartRepository.findById(cart.getId()).orElseThrow().getItemsCount());
+            assertEquals(987, getAvailableQuantity(product));
+            assertEquals(1, cartStore.getStats().getDirtyCarts());
+
+            cartStore.flush();
+
+            assertEquals(3, cartRepository.findById(cart.getId()).orElseThrow().getItemsCount());
+            assertEquals(1, cartRepository.findByIdAndCartStatusAndUserId(cart.getId(), cart.getCartStatus(), user.getId())
+                    .orElseThrow().getItems().size());
+            assertEquals(0, cartStore.getStats().getDirtyCarts());
+        }
+
+        @Test
+        @DisplayName("Update cart by id, should leave the stored cart as it was when the change fails")
+        void testUpdateCartById_shouldKeepStoredCartWhenChangeFails() {
+            User user = setupUser();
+
+            when(securityUtil.getCurrentUsername()).thenReturn(user.getEmail());
+
+            Product product = setupProduct();
+            Cart cart = cartDomain.getCartByUser();
+
+            assertThrows(InsufficientStockException.class, () -> setQuantity(cart, product, 991));
+
+            assertEquals(0, cartDomain.getCartById(cart.getId()).getItems().size());
+            assertEquals(0, cartStore.getStats().getDirtyCarts());
+            assertEquals(990, getAvailableQuantity(product));
+        }
+    }
+
+    @Nested
+    @DisplayName("Reservation Expiry")
+    class ReservationExpiryTest {
+
+        @Test
+        @DisplayName("Reservation expiry, should release a cart with pending changes once and never have it put back by the flush")
+        void testReservationExpiry_shouldNotBeUndoneByFlush() {
+            User user = setupUser();
+
+            when(securityUtil.getCurrentUsername()).thenReturn(user.getEmail());
+
+            Product product = setupProduct();
+            Cart cart = cartDomain.getCartByUser();
+
+            setQuantity(cart, product, 4);
+
+            // What the cart reserves is in the database before any flush
+            Cart inDatabase = cartRepository.findByIdAndCartStatusAndUserId(cart.getId(), cart.getCartStatus(), user.getId()).orElseThrow();
+            assertEquals(1, inDatabase.getItems().size());
+            assertEquals(4, inDatabase.getItems().get(0).getQuantity());
+            assertNotNull(inDatabase.getReservationExpiresAt());
+            assertEquals(1, cartStore.getStats().getDirtyCarts());
+
+            transactionTemplate.executeWithoutResult(status -> cartRepository.updateReservationExpiresAt(cart.getId(), new Date(0)));
+            cartReservationExpiry.expire();
+
+            assertEquals(990, getAvailableQuantity(product));
+
+            cartStore.flush();
+            cartReservationExpiry.expire();
+
+            assertNull(cartRepository.findById(cart.getId()).orElseThrow().getReservationExpiresAt());
+            assertEquals(990, getAvailableQuantity(product));
+
+            // The next change reserves the whole cart again
+            setQuantity(cart, product, 2);
+
+            assertEquals(988, getAvailableQuantity(product));
+            assertNotNull(cartRepository.findById(cart.getId()).orElseThrow().getReservationExpiresAt());
+        }
+    }
+
+    @Nested
+    @DisplayName("Delete Cart by Id")
+    class DeleteCartByIdTest {
+
+        @Test
+        @DisplayName("Delete cart by id, should flush pending changes before deleting and release the stock")
+        void testDeleteCartById_shouldFlushBeforeDeleting() {
+            User user = setupUser();
+
+            when(securityUtil.getCurrentUsername()).thenReturn(user.getEmail());
+
+            Product product = setupProduct();
+            Cart cart = cartDomain.getCartByUser();
+
+            setQuantity(cart, product, 4);
+            cartDomain.deleteCartById(cart.getId());
+
+            assertEquals(Status.DELETED, cartRepository.findById(cart.getId()).orElseThrow().getStatus());
+            assertEquals(990, getAvailableQuantity(product));
+            assertEquals(0, cartStore.getStats().getDirtyCarts());
+        }
+    }
+
+}
@@ -1,24 +1,40 @@
 package com.tota.eccom.domain.category.business;
 
 import com.tota.eccom.adapters.dto.category.request.CategoryDTO;
+import com.tota.eccom.adapters.dto.category.response.CategoryTreeNodeRespDTO;
+import com.tota.eccom.adapters.dto.category.response.CategoryTreeRespDTO;
+import com.tota.eccom.domain.category.cache.CategoryTreeCache;
 import com.tota.eccom.domain.category.model.Category;
 import com.tota.eccom.domain.category.repository.CategoryRepository;
+import com.tota.eccom.domain.product.model.ProductListing;
+import com.tota.eccom.domain.product.repository.ProductListingRepository;
+import com.tota.eccom.domain.product.repository.ProductSearchRepository;
+import com.tota.eccom.domain.product.cache.ProductViewCache;
 import com.tota.eccom.exceptions.generic.ResourceAlreadyExistsException;
 import com.tota.eccom.exceptions.generic.ResourceNotFoundException;
 import com.tota.eccom.util.enums.Status;
+import com.tota.eccom.domain.product.suggest.ProductSuggestIndex;
 import org.junit.jupiter.api.*;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
 
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 @DataJpaTest
-@Import({CategoryService.class})
+@Import({CategoryService.class, ProductSearchRepository.class, ProductViewCache.class, ProductSuggestIndex.class, CategoryTreeCache.class})
 class CategoryServiceTest {
 
     @Autowired
@@ -27,6 +43,9 @@ class CategoryServiceTest {
     @Autowired
     CategoryService categoryDomain;
 
+    @Autowired
+    ProductListingRepository productListingRepository;
+
 
     @BeforeEach
     void setUp() {
@@ -39,6 +58,12 @@ class CategoryServiceTest {
     }
 
 
+    private Category createCategory(String name) {
+        CategoryDTO categoryDTO = getMockCategoryCreate();
+        categoryDTO.setName(name);
+        return categoryDomain.createCategory(categoryDTO);
+    }
+
     private CategoryDTO getMockCategoryCreate() {
         return CategoryDTO.builder()
                 .name("Test Category")
@@ -292,6 +317,19 @@ class CategoryServiceTest {
             assertThrows(ResourceAlreadyExistsException.class, () -> categoryDomain.setParentCategoryById(createdCategory.getId(), createdCategory.getId()));
         }
 
+        @Test
+        @DisplayName("Set parent category, should throw exception when parent is a subcategory of the category")
+        void testSetParentCategoryById_shouldThrowExceptionWhenParentIsSubcategory() {
+            Category root = createCategory("Root Category");
+            Category child = createCategory("Child Category");
+            Category grandchild = createCategory("Grandchild Category");
+
+            categoryDomain.setParentCategoryById(child.getId(), root.getId());
+            categoryDomain.setParentCategoryById(grandchild.getId(), child.getId());
+
+            assertThrows(IllegalArgumentException.class, () -> categoryDomain.setParentCategoryById(root.getId(), grandchild.getId()));
+        }
+
     }
 
 
@@ -334,4 +372,104 @@ class CategoryServiceTest {
     }
 
 
+    @Nested
+    @DisplayName("Category Subtree")
+    class CategorySubtreeTest {
+
+        @Test
+        @DisplayName("Category products, should include products of every subcategory")
+        void testCountSellableByCategoryId_shouldIncludeSubcategories() {
+            Category root = createCategory("Root Category");
+            Category child = createCategory("Child Category");
+            Category grandchild = createCategory("Grandchild Category");
+
+            categoryDomain.setParentCategoryById(child.getId(), root.getId());
+            categoryDomain.setParentCategoryById(grandchild.getId(), child.getId());
+
+            saveListing(1L, root, grandchild);
+            saveListing(2L, grandchild);
+            saveListing(3L, child);
+
+            assertEquals(3, productListingRepository.countSellableByCategoryId(root.getId()));
+            assertEquals(3, productListingRepository.countSellableByCategoryId(child.getId()));
+            assertEquals(2, productListingRepository.countSellableByCategoryId(grandchild.getId()));
+        }
+
+        @Test
+        @DisplayName("Category products, should follow the subtree when a parent is moved or removed")
+        void testCountSellableByCategoryId_shouldFollowMovedSubtree() {
+            Category root = createCategory("Root Category");
+            Category other = createCategory("Other Category");
+            Category child = createCategory("Child Category");
+            Category grandchild = createCategory("Grandchild Category");
+
+            categoryDomain.setParentCategoryById(grandchild.getId(), child.getId());
+            categoryDomain.setParentCategoryById(child.getId(), root.getId());
+
+            saveListing(1L, grandchild);
+
+            assertEquals(1, productListingRepository.countSellableByCategoryId(root.getId()));
+
+            categoryDomain.setParentCategoryById(child.getId(), other.getId());
+
+            assertEquals(0, productListingRepository.countSellableByCategoryId(root.getId()));
+            assertEquals(1, productListingRepository.countSellableByCategoryId(other.getId()));
+
+            categoryDomain.removeParentCategoryById(child.getId());
+
+            assertEquals(0, productListingRepository.countSellableByCategoryId(other.getId()));
+            assertEquals(1, productListingRepository.countSellableByCategoryId(child.getId()));
+        }
+
+        @Test
+        @DisplayName("Category tree, should build children, breadcrumbs and subtree product counts")
+        void testGetCategoryTree_shouldBuildNavigationTree() {
+            Category root = createCategory("Root Category");
+            Category child = createCategory("Child Category");
+            Category grandchild = createCategory("Grandchild Category");
+            Category deleted = createCategory("Deleted Category");
+
+            categoryDomain.setParentCategoryById(child.getId(), root.getId());
+            categoryDomain.setParentCategoryById(grandchild.getId(), child.getId());
+            categoryDomain.setParentCategoryById(deleted.getId(), root.getId());
+            categoryDomain.deleteCategoryById(deleted.getId());
+
+            saveListing(1L, grandchild);
+            saveListing(2L, root, child);
+
+            CategoryTreeRespDTO tree = categoryDomain.getCategoryTree();
+
+            assertEquals(List.of(root.getId()), tree.getRoots());
+            assertEquals(3, tree.getNodes().size());
+            assertFalse(tree.getNodes().containsKey(deleted.getId()));
+
+            CategoryTreeNodeRespDTO rootNode = tree.getNodes().get(root.getId());
+            assertEquals(List.of(child.getId()), rootNode.getChildren());
+            assertEquals(2, rootNode.getProductCount());
+
+            CategoryTreeNodeRespDTO grandchildNode = tree.getNodes().get(grandchild.getId());
+            assertEquals(List.of(root.getId(), child.getId(), grandchild.getId()), grandchildNode.getPath());
+            assertEquals(2, grandchildNode.getDepth());
+            assertEquals(1, grandchildNode.getProductCount());
+
+            assertSame(tree, categoryDomain.getCategoryTree());
+        }
+
+        private void saveListing(Long productId, Category... categories) {
+            productListingRepository.saveAndFlush(ProductListing.builder()
+                    .productId(productId)
+                    .name("Product " + productId)
+                    .slug("product-" + productId)
+                    .status(Status.ACTIVE)
+                    .basePrice(BigDecimal.TEN)
+                    .availableQuantity(10)
+                    .categoryIds(Arrays.stream(categories).map(Category::getId).collect(Collectors.toSet()))
+                    .sellable(true)
+                    .updatedAt(new Date())
+                    .build());
+        }
+
+    }
+
+
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.tota.eccom.domain.category.cache;
+
+import com.tota.eccom.adapters.dto.category.response.CategoryTreeNodeRespDTO;
+import com.tota.eccom.adapters.dto.category.response.CategoryTreeRespDTO;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategoryTreeCacheTest {
+
+    CategoryTreeCache categoryTreeCache;
+    AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        categoryTreeCache = new CategoryTreeCache(60);
+        loads = new AtomicInteger();
+    }
+
+    private CategoryTreeRespDTO getMockTree(String name) {
+        loads.incrementAndGet();
+        return new CategoryTreeRespDTO(List.of(1L), Map.of(1L,
+                new CategoryTreeNodeRespDTO(1L, name, name.toLowerCase(), null, 0, 3L, List.of(), List.of(1L))));
+    }
+
+
+    @Nested
+    @DisplayName("Get")
+    class GetTest {
+
+        @Test
+        @DisplayName("Get, should load the tree once while it is current")
+        void testGet_shouldLoadOnceWhileCurrent() {
+            CategoryTreeRespDTO tree = categoryTreeCache.get(() -> getMockTree("Drinks"));
+
+            assertSame(tree, categoryTreeCache.get(() -> getMockTree("Drinks")));
+            assertEquals(1, loads.get());
+        }
+
+        @Test
+        @DisplayName("Get, should load the tree again after an invalidation")
+        void testGet_shouldReloadAfterInvalidate() {
+            CategoryTreeRespDTO tree = categoryTreeCache.get(() -> getMockTree("Drinks"));
+
+            categoryTreeCache.invalidate();
+
+            CategoryTreeRespDTO reloaded = categoryTreeCache.get(() -> getMockTree("Beverages"));
+
+            assertNotSame(tree, reloaded);
+            assertEquals(2, loads.get());
+            assertNotEquals(tree.getEtag(), reloaded.getEtag());
+        }
+
+        @Test
+        @DisplayName("Get, should keep the same ETag when the reloaded tree did not change")
+        void testGet_shouldKeepEtagForUnchangedTree() {
+            CategoryTreeRespDTO tree = categoryTreeCache.get(() -> getMockTree("Drinks"));
+
+            categoryTreeCache.invalidate();
+
+            assertEquals(tree.getEtag(), categoryTreeCache.get(() -> getMockTree("Drinks")).getEtag());
+        }
+
+    }
+
+
+}
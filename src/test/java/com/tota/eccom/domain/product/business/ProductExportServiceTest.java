@@ -0,0 +1,103 @@
+package com.tota.eccom.domain.product.business;
+
+import com.tota.eccom.domain.product.model.Product;
+import com.tota.eccom.domain.product.model.ProductPrice;
+import com.tota.eccom.domain.product.model.ProductStock;
+import com.tota.eccom.domain.product.model.enums.ProductFileFormat;
+import com.tota.eccom.domain.product.repository.ProductRepository;
+import com.tota.eccom.util.SlugUtil;
+import com.tota.eccom.util.enums.Status;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({ProductExportService.class})
+class ProductExportServiceTest {
+
+    @Autowired
+    ProductExportService productExportService;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+    }
+
+    private Product getMockProductCreate(String name, String sku) {
+        return Product.builder()
+                .name(name)
+                .slug(SlugUtil.makeSlug(name))
+                .description("Exported Description")
+                .sku(sku)
+                .packageType("UN")
+                .status(Status.ACTIVE)
+                .productPrices(new ArrayList<>(List.of(
+                        ProductPrice.builder().price(new BigDecimal("10.50")).quantity(1).build(),
+                        ProductPrice.builder().price(new BigDecimal("9.90")).quantity(12).build())))
+                .productStock(ProductStock.builder().quantity(5).reservedQuantity(1).build())
+                .productCategories(new ArrayList<>())
+                .build();
+    }
+
+    private List<String> exportLines(ProductFileFormat format) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        productExportService.exportProducts(output, format);
+        return output.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+
+    @Nested
+    @DisplayName("Export Products")
+    class ExportProductsTest {
+
+        @Test
+        @DisplayName("Export products as NDJSON, should write one line per product in id order")
+        void testExportProductsNdjson_shouldWriteOneLinePerProduct() throws IOException {
+
+            Product first = productRepository.save(getMockProductCreate("Exported Product A", "EXPORT-SKU-A"));
+            Product second = productRepository.save(getMockProductCreate("Exported Product B", "EXPORT-SKU-B"));
+
+            List<String> lines = exportLines(ProductFileFormat.NDJSON);
+
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(0).contains("\"id\":" + first.getId()));
+            assertTrue(lines.get(0).contains("\"sku\":\"EXPORT-SKU-A\""));
+            assertTrue(lines.get(0).contains("\"stockQuantity\":5"));
+            assertTrue(lines.get(1).contains("\"id\":" + second.getId()));
+        }
+
+        @Test
+        @DisplayName("Export products as CSV, should write header and prices as quantity:price pairs")
+        void testExportProductsCsv_shouldWriteHeaderAndPrices() throws IOException {
+
+            productRepository.save(getMockProductCreate("Exported Product A", "EXPORT-SKU-A"));
+
+            List<String> lines = exportLines(ProductFileFormat.CSV);
+
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(0).startsWith("id,name,slug,description,sku"));
+            assertTrue(lines.get(1).contains("EXPORT-SKU-A"));
+            assertTrue(lines.get(1).contains("1:10.5|12:9.9"));
+        }
+
+        @Test
+        @DisplayName("Export products, should write nothing but the header when there are no products")
+        void testExportProducts_shouldWriteOnlyHeaderWhenThereAreNoProducts() throws IOException {
+            assertEquals(0, exportLines(ProductFileFormat.NDJSON).size());
+            assertEquals(1, exportLines(ProductFileFormat.CSV).size());
+        }
+    }
+}
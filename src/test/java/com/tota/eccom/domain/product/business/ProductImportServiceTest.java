@@ -0,0 +1,168 @@
+package com.tota.eccom.domain.product.business;
+
+import com.tota.eccom.adapters.dto.product.response.ProductImportReportRespDTO;
+import com.tota.eccom.domain.brand.model.Brand;
+import com.tota.eccom.domain.brand.repository.BrandRepository;
+import com.tota.eccom.domain.category.model.Category;
+import com.tota.eccom.domain.category.repository.CategoryRepository;
+import com.tota.eccom.domain.product.model.Product;
+import com.tota.eccom.domain.product.model.enums.ProductFileFormat;
+import com.tota.eccom.domain.product.repository.ProductListingRepository;
+import com.tota.eccom.domain.product.repository.ProductRepository;
+import com.tota.eccom.domain.product.repository.ProductSearchRepository;
+import com.tota.eccom.util.SlugUtil;
+import com.tota.eccom.util.enums.Status;
+import com.tota.eccom.domain.product.suggest.ProductSuggestIndex;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({ProductImportService.class, ProductSearchRepository.class, ProductSuggestIndex.class})
+class ProductImportServiceTest {
+
+    @Autowired
+    ProductImportService productImportService;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    ProductListingRepository productListingRepository;
+
+    @Autowired
+    BrandRepository brandRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @AfterEach
+    void tearDown() {
+        productListingRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    private ProductImportReportRespDTO importProducts(String content, ProductFileFormat format) throws IOException {
+        return productImportService.importProducts(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format);
+    }
+
+    private String getMockNdjsonRow(String name, String sku) {
+        return String.format("{\"name\":\"%s\",\"description\":\"Imported Description\",\"sku\":\"%s\",\"packageType\":\"UN\"," +
+                "\"prices\":[{\"quantity\":1,\"price\":10.5},{\"quantity\":12,\"price\":9.9}],\"stockQuantity\":5}", name, sku);
+    }
+
+    private Brand getMockBrandCreate() {
+        return Brand.builder()
+                .name("Import Brand")
+                .description("Import Brand Description")
+                .slug(SlugUtil.makeSlug("Import Brand"))
+                .status(Status.ACTIVE)
+                .build();
+    }
+
+    private Category getMockCategoryCreate() {
+        return Category.builder()
+                .name("Import Category")
+                .description("Import Category Description")
+                .slug(SlugUtil.makeSlug("Import Category"))
+                .status(Status.ACTIVE)
+                .build();
+    }
+
+
+    @Nested
+    @DisplayName("Import Products from NDJSON")
+    class ImportProductsNdjsonTest {
+
+        @Test
+        @DisplayName("Import products from NDJSON, should import valid rows and report invalid ones by line")
+        void testImportProductsNdjson_shouldImportValidRowsAndReportInvalidOnes() throws IOException {
+
+            String content = String.join("\n",
+                    getMockNdjsonRow("Imported Product A", "IMPORT-SKU-A"),
+                    "{not json",
+                    getMockNdjsonRow("Imported Product B", "IMPORT-SKU-B"),
+                    "{\"name\":\"Imported Product C\",\"description\":\"Imported Description\",\"packageType\":\"UN\"}");
+
+            ProductImportReportRespDTO report = importProducts(content, ProductFileFormat.NDJSON);
+
+            assertEquals(4, report.getReceived());
+            assertEquals(2, report.getImported());
+            assertEquals(2, report.getFailed());
+            assertEquals(2L, report.getErrors().get(0).getLine());
+            assertEquals(4L, report.getErrors().get(1).getLine());
+            assertEquals("SKU is required", report.getErrors().get(1).getMessage());
+
+            Product imported = productRepository.findBySku("IMPORT-SKU-A").orElseThrow();
+            assertEquals(2, imported.getProductPrices().size());
+            assertEquals(5, imported.getProductStock().getQuantity());
+            assertTrue(productListingRepository.findById(imported.getId()).orElseThrow().isSellable());
+        }
+
+        @Test
+        @DisplayName("Import products from NDJSON, should report sku already imported")
+        void testImportProductsNdjson_shouldReportSkuAlreadyImported() throws IOException {
+
+            importProducts(getMockNdjsonRow("Imported Product A", "IMPORT-SKU-A"), ProductFileFormat.NDJSON);
+
+            ProductImportReportRespDTO report = importProducts(getMockNdjsonRow("Imported Product Other", "IMPORT-SKU-A"), ProductFileFormat.NDJSON);
+
+            assertEquals(0, report.getImported());
+            assertEquals(1, report.getFailed());
+            assertEquals("Product already exists with given sku: IMPORT-SKU-A", report.getErrors().get(0).getMessage());
+        }
+    }
+
+    @Nested
+    @DisplayName("Import Products from CSV")
+    class ImportProductsCsvTest {
+
+        @Test
+        @DisplayName("Import products from CSV, should import product with brand, categories and prices")
+        void testImportProductsCsv_shouldImportProductWithReferences() throws IOException {
+
+            Brand brand = brandRepository.save(getMockBrandCreate());
+            Category category = categoryRepository.save(getMockCategoryCreate());
+
+            String content = String.join("\n",
+                    "name,description,sku,packageType,prices,stockQuantity,brandSlug,categorySlugs",
+                    String.format("Imported Product A,Imported Description,IMPORT-SKU-A,UN,1:10.50|12:9.90,5,%s,%s", brand.getSlug(), category.getSlug()),
+                    "Imported Product B,Imported Description,IMPORT-SKU-B,UN,1:10.50,5,unknown-brand,");
+
+            ProductImportReportRespDTO report = importProducts(content, ProductFileFormat.CSV);
+
+            assertEquals(2, report.getReceived());
+            assertEquals(1, report.getImported());
+            assertEquals(3L, report.getErrors().get(0).getLine());
+            assertEquals("Brand not found with given slug: unknown-brand", report.getErrors().get(0).getMessage());
+
+            Product imported = productRepository.findBySku("IMPORT-SKU-A").orElseThrow();
+            assertEquals(brand.getId(), imported.getBrand().getId());
+            assertEquals(category.getId(), imported.getProductCategories().get(0).getId());
+            assertEquals(0, new BigDecimal("10.50").compareTo(imported.getProductPriceByQuantity(1).getPrice()));
+        }
+
+        @Test
+        @DisplayName("Import products from CSV, should report invalid price")
+        void testImportProductsCsv_shouldReportInvalidPrice() throws IOException {
+
+            String content = String.join("\n",
+                    "name,description,sku,packageType,prices,stockQuantity",
+                    "Imported Product A,Imported Description,IMPORT-SKU-A,UN,ten,5");
+
+            ProductImportReportRespDTO report = importProducts(content, ProductFileFormat.CSV);
+
+            assertEquals(0, report.getImported());
+            assertEquals(1, report.getFailed());
+            assertEquals("Invalid price, expected quantity:price but got: ten", report.getErrors().get(0).getMessage());
+        }
+    }
+}
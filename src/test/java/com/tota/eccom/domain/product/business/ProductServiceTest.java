@@ -1,35 +1,70 @@
 package com.tota.eccom.domain.product.business;
 
 import com.tota.eccom.adapters.dto.product.request.ProductDTO;
+import com.tota.eccom.adapters.dto.product.request.ProductFacetSearchReqDTO;
 import com.tota.eccom.adapters.dto.product.request.ProductPriceDTO;
 import com.tota.eccom.adapters.dto.product.request.ProductStockDTO;
+import com.tota.eccom.adapters.dto.product.response.ProductFacetSearchRespDTO;
+import com.tota.eccom.adapters.dto.product.response.ProductRespDTO;
 import com.tota.eccom.domain.brand.model.Brand;
 import com.tota.eccom.domain.brand.repository.BrandRepository;
 import com.tota.eccom.util.enums.Status;
 import com.tota.eccom.domain.product.model.Product;
+import com.tota.eccom.domain.product.model.ProductListing;
 import com.tota.eccom.domain.category.model.Category;
+import com.tota.eccom.domain.category.model.CategoryClosure;
+import com.tota.eccom.domain.category.repository.CategoryClosureRepository;
 import com.tota.eccom.domain.category.repository.CategoryRepository;
+import com.tota.eccom.domain.product.repository.ProductFacetRepository;
+import com.tota.eccom.domain.product.repository.ProductListingRepository;
 import com.tota.eccom.domain.product.repository.ProductRepository;
+import com.tota.eccom.domain.product.repository.ProductSearchRepository;
+import com.tota.eccom.domain.product.repository.ProductStockAllotmentRepository;
+import com.tota.eccom.domain.product.cache.ProductViewCache;
 import com.tota.eccom.exceptions.generic.ResourceAlreadyExistsException;
 import com.tota.eccom.exceptions.generic.ResourceNotFoundException;
+import com.tota.eccom.exceptions.product.InsufficientStockException;
 import com.tota.eccom.util.SlugUtil;
+import com.tota.eccom.util.pagination.CursorPage;
+import com.tota.eccom.domain.product.stock.HotStockCounter;
+import com.tota.eccom.domain.product.suggest.ProductSuggestIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.*;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 @DataJpaTest
-@Import({ProductService.class})
+@Import({ProductService.class, ProductSearchRepository.class, ProductFacetRepository.class, ProductViewCache.class, ProductSuggestIndex.class, HotStockCounter.class})
 class ProductServiceTest {
 
     @Autowired
@@ -44,6 +79,27 @@ class ProductServiceTest {
     @Autowired
     ProductService productService;
 
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    ProductViewCache productViewCache;
+
+    @Autowired
+    ProductListingRepository productListingRepository;
+
+    @Autowired
+    HotStockCounter hotStockCounter;
+
+    @Autowired
+    ProductStockAllotmentRepository productStockAllotmentRepository;
+
+    @Autowired
+    CategoryClosureRepository categoryClosureRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
 
     @BeforeEach
     void setUp() {
@@ -104,6 +160,28 @@ class ProductServiceTest {
                 .build();
     }
 
+    // Tests that commit can't rely on the rollback: listings, allotments, products with their stock and prices, and the
+    // views cached from them all outlive the test
+    private void deleteCommitted() {
+        productListingRepository.deleteAll();
+        productStockAllotmentRepository.deleteAll();
+        productRepository.deleteAll();
+        productViewCache.evictAll();
+    }
+
+    private Long createProductWithStock(String name, String sku, int quantity) {
+        ProductDTO productDTO = getMockProductCreate();
+        productDTO.setName(name);
+        productDTO.setSku(sku);
+
+        Long productId = productService.createProduct(productDTO).getId();
+
+        productService.addProductPriceToProduct(productId, getMockProductPriceCreate());
+        productService.addProductStockToProduct(productId, ProductStockDTO.builder().quantity(quantity).build());
+
+        return productId;
+    }
+
 
     @Nested
     @DisplayName("Create Product")
@@ -666,6 +744,20 @@ class ProductServiceTest {
             assertEquals(productStockDTO.getQuantity(), addedProductStock.getProductStock().getQuantity());
         }
 
+        @Test
+        @DisplayName("Add product stock to product, should throw exception when quantity is lower than the reserved quantity")
+        void testAddProductStockToProductById_shouldThrowExceptionWhenQuantityIsLowerThanReserved() {
+            Long productId = createProductWithStock("Reserved Product", "RESERVED-SKU", 5);
+
+            productService.reserveStock(productId, 3);
+
+            assertThrows(IllegalArgumentException.class, () -> productService.addProductStockToProduct(productId, ProductStockDTO.builder().quantity(2).build()));
+
+            productService.addProductStockToProduct(productId, ProductStockDTO.builder().quantity(3).build());
+
+            assertEquals(0, productListingRepository.findById(productId).orElseThrow().getAvailableQuantity());
+        }
+
     }
 
     @Nested
@@ -684,6 +776,32 @@ class ProductServiceTest {
             assertEquals(createdProduct.getId(), foundProduct.getId());
         }
 
+        @Test
+        @DisplayName("Get product by slug, should return product with associations loaded")
+        void testGetProductBySlug_shouldReturnProductWithAssociationsLoaded() {
+
+            Product createdProduct = productService.createProduct(getMockProductCreate());
+            Category category = categoryRepository.save(getMockProductCategoryCreate());
+            Brand brand = brandRepository.save(getMockProductBrandCreate());
+
+            productService.addProductPriceToProduct(createdProduct.getId(), getMockProductPriceCreate());
+            productService.addProductStockToProduct(createdProduct.getId(), getMockProductStockCreate());
+            productService.addProductCategoryToProduct(createdProduct.getId(), category.getId());
+            productService.addProductBrandToProduct(createdProduct.getId(), brand.getId());
+
+            entityManager.flush();
+            entityManager.clear();
+
+            Product foundProduct = productService.getProductBySlug(createdProduct.getSlug());
+
+            assertTrue(Hibernate.isInitialized(foundProduct.getBrand()));
+            assertTrue(Hibernate.isInitialized(foundProduct.getProductStock()));
+            assertTrue(Hibernate.isInitialized(foundProduct.getProductPrices()));
+            assertTrue(Hibernate.isInitialized(foundProduct.getProductCategories()));
+            assertEquals(1, foundProduct.getProductPrices().size());
+            assertEquals(category.getId(), foundProduct.getProductCategories().get(0).getId());
+        }
+
         @Test
         @DisplayName("Get product by slug, should throw exception when product not found")
         void testGetProductBySlug_shouldThrowExceptionWhenProductNotFound() {
@@ -691,6 +809,69 @@ class ProductServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Get Product View by Slug")
+    class GetProductViewBySlugTest {
+
+        @Test
+        @DisplayName("Get product view by slug, should load once and serve following requests from cache")
+        void testGetProductViewBySlug_shouldServeFollowingRequestsFromCache() {
+
+            Product createdProduct = productService.createProduct(getMockProductCreate());
+            long hitCount = productViewCache.getSlugStats().hitCount();
+
+            ProductRespDTO firstView = productService.getProductViewBySlug(createdProduct.getSlug());
+            ProductRespDTO secondView = productService.getProductViewBySlug(createdProduct.getSlug());
+
+            assertEquals(createdProduct.getId(), firstView.getId());
+            assertSame(firstView, secondView);
+            assertEquals(hitCount + 1, productViewCache.getSlugStats().hitCount());
+        }
+
+        @Test
+        @DisplayName("Get product view by slug, should throw exception when product not found")
+        void testGetProductViewBySlug_shouldThrowExceptionWhenProductNotFound() {
+            assertThrows(ResourceNotFoundException.class, () -> productService.getProductViewBySlug("missing-view-slug"));
+            assertThrows(ResourceNotFoundException.class, () -> productService.getProductViewBySlug("missing-view-slug"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Product Listing")
+    class ProductListingTest {
+
+        @Test
+        @DisplayName("Product listing, should become sellable once product has base price and stock")
+        void testProductListing_shouldBecomeSellableWithBasePriceAndStock() {
+
+            Product createdProduct = productService.createProduct(getMockProductCreate());
+            assertFalse(productListingRepository.findById(createdProduct.getId()).orElseThrow().isSellable());
+
+            productService.addProductPriceToProduct(createdProduct.getId(), getMockProductPriceCreate());
+            assertFalse(productListingRepository.findById(createdProduct.getId()).orElseThrow().isSellable());
+
+            productService.addProductStockToProduct(createdProduct.getId(), getMockProductStockCreate());
+
+            ProductListing listing = productListingRepository.findById(createdProduct.getId()).orElseThrow();
+            assertTrue(listing.isSellable());
+            assertEquals(1, listing.getAvailableQuantity());
+            assertEquals(0, BigDecimal.valueOf(1.0).compareTo(listing.getBasePrice()));
+        }
+
+        @Test
+        @DisplayName("Product listing, should not be sellable after product is deleted")
+        void testProductListing_shouldNotBeSellableAfterProductIsDeleted() {
+
+            Product createdProduct = productService.createProduct(getMockProductCreate());
+            productService.addProductPriceToProduct(createdProduct.getId(), getMockProductPriceCreate());
+            productService.addProductStockToProduct(createdProduct.getId(), getMockProductStockCreate());
+
+            productService.deleteProductById(createdProduct.getId());
+
+            assertFalse(productListingRepository.findById(createdProduct.getId()).orElseThrow().isSellable());
+        }
+    }
+
     @Nested
     @DisplayName("Search Products by Term")
     class SearchProductsByTermTest {
@@ -765,6 +946,165 @@ class ProductServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Search Products with Facets")
+    class SearchProductsWithFacetsTest {
+
+        private Product createSellableProduct(String name, double price) {
+
+            ProductDTO productDTO = getMockProductCreate();
+            productDTO.setName(name);
+            productDTO.setSku(SlugUtil.makeSlug(name).toUpperCase());
+
+            Product createdProduct = productService.createProduct(productDTO);
+            productService.addProductPriceToProduct(createdProduct.getId(), ProductPriceDTO.builder().price(price).quantity(1).build());
+            productService.addProductStockToProduct(createdProduct.getId(), getMockProductStockCreate());
+
+            return createdProduct;
+        }
+
+        @Test
+        @DisplayName("Search products with facets, should count each facet without its own filter")
+        void testSearchProductsWithFacets_shouldCountEachFacetWithoutItsOwnFilter() {
+
+            Brand brand = brandRepository.save(getMockProductBrandCreate());
+            Product cheapProduct = createSellableProduct("Test Product Cheap", 10.0);
+            Product pricyProduct = createSellableProduct("Test Product Pricy", 75.0);
+            productService.addProductBrandToProduct(cheapProduct.getId(), brand.getId());
+            entityManager.flush();
+
+            ProductFacetSearchRespDTO result = productService.searchProductsWithFacets(ProductFacetSearchReqDTO.builder()
+                    .term("test product")
+                    .brands(List.of(brand.getSlug()))
+                    .build(), PageRequest.of(0, 10));
+
+            assertEquals(1, result.getProducts().getTotalElements());
+            assertEquals(cheapProduct.getId(), result.getProducts().getContent().get(0).getId());
+
+            assertEquals(1, result.getBrands().size());
+            assertEquals(brand.getSlug(), result.getBrands().get(0).getSlug());
+            assertEquals(1, result.getBrands().get(0).getCount());
+            assertTrue(result.getBrands().get(0).isSelected());
+
+            assertEquals(1, result.getPriceRanges().get(0).getCount());
+            assertEquals(0, result.getPriceRanges().get(1).getCount());
+
+            result = productService.searchProductsWithFacets(ProductFacetSearchReqDTO.builder()
+                    .term("test product")
+                    .minPrice(new BigDecimal("50"))
+                    .maxPrice(new BigDecimal("100"))
+                    .build(), PageRequest.of(0, 10));
+
+            assertEquals(1, result.getProducts().getTotalElements());
+            assertEquals(pricyProduct.getId(), result.getProducts().getContent().get(0).getId());
+            assertTrue(result.getBrands().isEmpty());
+
+            assertNull(result.getPriceRanges().get(0).getFrom());
+            assertEquals(1, result.getPriceRanges().get(0).getCount());
+            assertFalse(result.getPriceRanges().get(0).isSelected());
+            assertEquals(0, new BigDecimal("50").compareTo(result.getPriceRanges().get(1).getFrom()));
+            assertEquals(1, result.getPriceRanges().get(1).getCount());
+            assertTrue(result.getPriceRanges().get(1).isSelected());
+        }
+
+        @Test
+        @DisplayName("Search products with facets, should count the products of every subcategory in a category")
+        void testSearchProductsWithFacets_shouldRollCategoryCountsUpTheTree() {
+
+            Category parent = categoryRepository.save(getMockProductCategoryCreate());
+            Category child = getMockProductCategoryCreate();
+            child.setName("Test Child Category");
+            child.setSlug(SlugUtil.makeSlug(child.getName()));
+            child = categoryRepository.save(child);
+
+            categoryClosureRepository.saveAll(List.of(CategoryClosure.self(parent.getId()), CategoryClosure.self(child.getId()),
+                    new CategoryClosure(parent.getId(), child.getId(), 1)));
+
+            Product parentProduct = createSellableProduct("Test Product Parent", 10.0);
+            Product childProduct = createSellableProduct("Test Product Child", 10.0);
+            productService.addProductCategoryToProduct(parentProduct.getId(), parent.getId());
+            productService.addProductCategoryToProduct(childProduct.getId(), child.getId());
+            entityManager.flush();
+
+            ProductFacetSearchRespDTO result = productService.searchProductsWithFacets(ProductFacetSearchReqDTO.builder()
+                    .categories(List.of(parent.getSlug()))
+                    .build(), PageRequest.of(0, 10));
+
+            assertEquals(2, result.getProducts().getTotalElements());
+            assertEquals(2, result.getCategories().size());
+            assertEquals(parent.getSlug(), result.getCategories().get(0).getSlug());
+            assertEquals(2, result.getCategories().get(0).getCount());
+            assertTrue(result.getCategories().get(0).isSelected());
+            assertEquals(child.getSlug(), result.getCategories().get(1).getSlug());
+            assertEquals(1, result.getCategories().get(1).getCount());
+        }
+
+        @Test
+        @DisplayName("Search products with facets, should throw exception when brand not found")
+        void testSearchProductsWithFacets_shouldThrowExceptionWhenBrandNotFound() {
+            assertThrows(ResourceNotFoundException.class, () -> productService.searchProductsWithFacets(ProductFacetSearchReqDTO.builder()
+                    .brands(List.of("unknown-brand"))
+                    .build(), PageRequest.of(0, 10)));
+        }
+
+        @Test
+        @DisplayName("Search products with facets, should throw exception when price range is invalid")
+        void testSearchProductsWithFacets_shouldThrowExceptionWhenPriceRangeIsInvalid() {
+            assertThrows(IllegalArgumentException.class, () -> productService.searchProductsWithFacets(ProductFacetSearchReqDTO.builder()
+                    .minPrice(new BigDecimal("100"))
+                    .maxPrice(new BigDecimal("50"))
+                    .build(), PageRequest.of(0, 10)));
+        }
+    }
+
+    @Nested
+    @DisplayName("Search Products by Term with Cursor")
+    class SearchProductsByTermCursorTest {
+
+        private Product createSellableProduct(String name, String sku) {
+            ProductDTO productDTO = getMockProductCreate();
+            productDTO.setName(name);
+            productDTO.setSku(sku);
+
+            Product createdProduct = productService.createProduct(productDTO);
+            productService.addProductPriceToProduct(createdProduct.getId(), getMockProductPriceCreate());
+            productService.addProductStockToProduct(createdProduct.getId(), getMockProductStockCreate());
+
+            return createdProduct;
+        }
+
+        @Test
+        @DisplayName("Search products by term with cursor, should walk every page without repeating products")
+        void testSearchProductsByTermCursor_shouldWalkEveryPage() {
+            Product first = createSellableProduct("Test Product A", "TEST-SKU-A");
+            Product second = createSellableProduct("Test Product B", "TEST-SKU-B");
+            Product third = createSellableProduct("Test Product C", "TEST-SKU-C");
+
+            CursorPage<Product> firstPage = productService.searchProductsByTerm("test product", null, 2, false);
+
+            assertEquals(2, firstPage.getContent().size());
+            assertEquals(first.getId(), firstPage.getContent().get(0).getId());
+            assertEquals(second.getId(), firstPage.getContent().get(1).getId());
+            assertTrue(firstPage.isHasNext());
+            assertNotNull(firstPage.getNextCursor());
+            assertNull(firstPage.getEstimatedTotal());
+
+            CursorPage<Product> secondPage = productService.searchProductsByTerm("test product", firstPage.getNextCursor(), 2, true);
+
+            assertEquals(1, secondPage.getContent().size());
+            assertEquals(third.getId(), secondPage.getContent().get(0).getId());
+            assertFalse(secondPage.isHasNext());
+            assertNull(secondPage.getNextCursor());
+            assertEquals(3L, secondPage.getEstimatedTotal());
+        }
+
+        @Test
+        @DisplayName("Search products by term with cursor, should throw exception when cursor is invalid")
+        void testSearchProductsByTermCursor_shouldThrowExceptionWhenCursorIsInvalid() {
+            assertThrows(IllegalArgumentException.class, () -> productService.searchProductsByTerm("test", "not-a-cursor", 20, false));
+        }
+    }
+
     @Nested
     @DisplayName("Add Product Category to Product by Id")
     class AddProductCategoryToByIdTest {
@@ -861,5 +1201,313 @@ class ProductServiceTest {
 
     }
 
+    @Nested
+    @DisplayName("Reserve Product Stock")
+    class ReserveStockTest {
+
+        @Test
+        @DisplayName("Reserve stock, should reserve quantity and update the listing")
+        void testReserveStock_shouldReserveQuantityAndUpdateListing() {
+            Long productId = createProductWithStock("Reserved Product", "RESERVED-SKU", 5);
+
+            productService.reserveStock(productId, 3);
+            entityManager.clear();
+
+            assertEquals(3, productRepository.findWithViewById(productId).orElseThrow().getProductStock().getReservedQuantity());
+            assertEquals(2, productListingRepository.findById(productId).orElseThrow().getAvailableQuantity());
+            assertTrue(productListingRepository.findById(productId).orElseThrow().isSellable());
+        }
+
+        @Test
+        @DisplayName("Reserve stock, should throw exception when available stock is not enough")
+        void testReserveStock_shouldThrowExceptionWhenStockIsNotEnough() {
+            Long productId = createProductWithStock("Reserved Product", "RESERVED-SKU", 2);
+
+            assertThrows(InsufficientStockException.class, () -> productService.reserveStock(productId, 3));
+            assertThrows(ResourceNotFoundException.class, () -> productService.reserveStock(productId + 1000, 1));
+        }
+
+        @Test
+        @DisplayName("Release stock, should release reserved quantity and not more than it")
+        void testReleaseStock_shouldReleaseReservedQuantity() {
+            Long productId = createProductWithStock("Reserved Product", "RESERVED-SKU", 5);
+
+            productService.reserveStock(productId, 5);
+            productService.releaseStock(productId, 2);
+            entityManager.clear();
+
+            assertEquals(3, productRepository.findWithViewById(productId).orElseThrow().getProductStock().getReservedQuantity());
+            assertEquals(2, productListingRepository.findById(productId).orElseThrow().getAvailableQuantity());
+            assertThrows(IllegalArgumentException.class, () -> productService.releaseStock(productId, 4));
+        }
+
+    }
+
+    @Nested
+    @DisplayName("Product Page Queries")
+    class ProductPageQueriesTest {
+
+        private Statistics statistics;
+        private boolean statisticsEnabled;
+
+        @BeforeEach
+        void setUp() {
+            statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statisticsEnabled = statistics.isStatisticsEnabled();
+            statistics.setStatisticsEnabled(true);
+        }
+
+        @AfterEach
+        void tearDown() {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+
+        // Every product with its own brand and category, so no association is shared across the page
+        private void createPagedProducts(int count) {
+            for (int i = 0; i < count; i++) {
+                Long productId = createProductWithStock("Paged Product " + i, "PAGED-SKU-" + i, 10);
+
+                Category category = categoryRepository.save(Category.builder()
+                        .name("Paged Category " + i)
+                        .description("Paged Category Description")
+                        .slug("paged-category-" + i)
+                        .status(Status.ACTIVE)
+                        .build());
+
+                Brand brand = brandRepository.save(Brand.builder()
+                        .name("Paged Brand " + i)
+                        .description("Paged Brand Description")
+                        .slug("paged-brand-" + i)
+                        .status(Status.ACTIVE)
+                        .build());
+
+                productService.addProductCategoryToProduct(productId, category.getId());
+                productService.addProductBrandToProduct(productId, brand.getId());
+            }
+        }
+
+        // Statements to load a page and build the response of every product on it
+        private long statementsForPage(int size) {
+
+            entityManager.flush();
+            entityManager.clear();
+            statistics.clear();
+
+            Page<Product> page = productService.searchProductsByTerm("paged product", PageRequest.of(0, size));
+            page.getContent().forEach(ProductRespDTO::new);
+
+            assertEquals(size, page.getContent().size());
+
+            return statistics.getPrepareStatementCount();
+        }
+
+        @Test
+        @DisplayName("Search products by term, should load a page in a number of queries that does not grow with its size")
+        void testSearchProductsByTerm_shouldNotGrowQueriesWithPageSize() {
+
+            createPagedProducts(25);
+
+            long smallPage = statementsForPage(5);
+
+            assertEquals(smallPage, statementsForPage(20));
+        }
+    }
+
+    @Nested
+    @DisplayName("Product View after Stock Reservations")
+    class ProductViewStockTest {
+
+        // Views are evicted after commit, so these tests commit
+
+        @AfterEach
+        void tearDown() {
+            deleteCommitted();
+        }
+
+        @Test
+        @Transactional(propagation = Propagation.NOT_SUPPORTED)
+        @DisplayName("Reserve stock, should keep the cached view until the product sells out or comes back in stock")
+        void testReserveStock_shouldEvictViewOnlyWhenAvailabilityCrossesZero() {
+            Long productId = createProductWithStock("Viewed Product", "VIEWED-SKU", 5);
+            String slug = productRepository.findWithViewById(productId).orElseThrow().getSlug();
+
+            ProductRespDTO view = productService.getProductViewBySlug(slug);
+
+            productService.reserveStock(productId, 3);
+
+            assertSame(view, productService.getProductViewBySlug(slug));
+
+            productService.reserveStock(productId, 2);
+
+            ProductRespDTO soldOutView = productService.getProductViewBySlug(slug);
+
+            assertNotSame(view, soldOutView);
+            assertEquals(0, soldOutView.getProductStock().getAvailable());
+
+            productService.releaseStock(productId, 1);
+
+            assertEquals(1, productService.getProductViewBySlug(slug).getProductStock().getAvailable());
+        }
+    }
+
+    @Nested
+    @DisplayName("Reserve Product Stock Concurrently")
+    class ReserveStockConcurrencyTest {
+
+        // These tests commit, each reservation runs in its own transaction as it does in production
+
+        @AfterEach
+        void tearDown() {
+            deleteCommitted();
+        }
+
+        @Test
+        @Transactional(propagation = Propagation.NOT_SUPPORTED)
+        @DisplayName("Reserve stock, should never reserve more than the stock under concurrent reservations")
+        void testReserveStock_shouldNotOversellUnderConcurrency() throws Exception {
+            int stock = 100;
+            int threads = 32;
+            int attempts = 10;
+            Long productId = createProductWithStock("Concurrent Product", "CONCURRENT-SKU", stock);
+
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger reserved = new AtomicInteger();
+            AtomicInteger rejected = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < attempts; i++) {
+                        try {
+                            productService.reserveStock(productId, 1);
+                            reserved.incrementAndGet();
+                        } catch (InsufficientStockException e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+
+            try {
+                for (Future<?> future : futures) {
+                    future.get(1, TimeUnit.MINUTES);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertEquals(stock, reserved.get());
+            assertEquals(threads * attempts - stock, rejected.get());
+            assertEquals(stock, productRepository.findWithViewById(productId).orElseThrow().getProductStock().getReservedQuantity());
+            assertEquals(0, productListingRepository.findById(productId).orElseThrow().getAvailableQuantity());
+            assertFalse(productListingRepository.findById(productId).orElseThrow().isSellable());
+        }
+
+        @Test
+        @Transactional(propagation = Propagation.NOT_SUPPORTED)
+        @DisplayName("Reserve stock, should never reserve more than the stock in hot stock mode and give unsold units back")
+        void testReserveStock_shouldNotOversellInHotStockMode() throws Exception {
+            int stock = 50;
+            int threads = 16;
+            int attempts = 10;
+            Long productId = createProductWithStock("Hot Product", "HOT-SKU", stock);
+
+            productService.setProductStockHot(productId, true);
+
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            AtomicInteger reserved = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < attempts; i++) {
+                        try {
+                            productService.reserveStock(productId, 1);
+                            reserved.incrementAndGet();
+                        } catch (InsufficientStockException e) {
+                            // sold out
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            try {
+                for (Future<?> future : futures) {
+                    future.get(1, TimeUnit.MINUTES);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            // Units escrowed but not leased yet are not for sale, so less than the stock may be reserved, never more
+            assertTrue(reserved.get() > 0);
+            assertTrue(reserved.get() <= stock);
+
+            productService.releaseStock(productId, 5);
+            productService.setProductStockHot(productId, false);
+
+            assertEquals(reserved.get() - 5, productRepository.findWithViewById(productId).orElseThrow().getProductStock().getReservedQuantity());
+        }
+
+        @Test
+        @Transactional(propagation = Propagation.NOT_SUPPORTED)
+        @DisplayName("Reserve stock, should keep the listing of a hot product in step through reconciles and stock changes")
+        void testReserveStock_shouldKeepListingInStepInHotStockMode() throws Exception {
+            Long productId = createProductWithStock("Hot Product", "HOT-SKU", 50);
+
+            productService.setProductStockHot(productId, true);
+
+            // The whole stock is escrowed by the first refill, the reservation goes through once it is leased
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+
+            while (true) {
+                try {
+                    productService.reserveStock(productId, 3);
+                    break;
+                } catch (InsufficientStockException e) {
+                    assertTrue(System.currentTimeMillis() < deadline);
+                    Thread.sleep(10);
+                }
+            }
+
+            hotStockCounter.reconcile();
+
+            assertEquals(47, productListingRepository.findById(productId).orElseThrow().getAvailableQuantity());
+
+            productService.addProductStockToProduct(productId, ProductStockDTO.builder().quantity(60).build());
+
+            assertEquals(57, productListingRepository.findById(productId).orElseThrow().getAvailableQuantity());
+
+            hotStockCounter.reconcile();
+
+            assertEquals(57, productListingRepository.findById(productId).orElseThrow().getAvailableQuantity());
+
+            productService.setProductStockHot(productId, false);
+
+            assertEquals(3, productRepository.findWithViewById(productId).orElseThrow().getProductStock().getReservedQuantity());
+            assertEquals(57, productListingRepository.findById(productId).orElseThrow().getAvailableQuantity());
+        }
+
+        @Test
+        @Transactional(propagation = Propagation.NOT_SUPPORTED)
+        @DisplayName("Reserve stock, should reserve nothing when one product of the batch has not enough stock")
+        void testReserveStock_shouldReserveNothingWhenBatchDoesNotFit() {
+            Long firstId = createProductWithStock("First Product", "FIRST-SKU", 5);
+            Long secondId = createProductWithStock("Second Product", "SECOND-SKU", 1);
+
+            assertThrows(InsufficientStockException.class, () -> productService.reserveStock(Map.of(firstId, 2, secondId, 2)));
+
+            assertEquals(0, productRepository.findWithViewById(firstId).orElseThrow().getProductStock().getReservedQuantity());
+            assertEquals(5, productListingRepository.findById(firstId).orElseThrow().getAvailableQuantity());
+        }
+
+    }
+
 
 }
@@ -0,0 +1,92 @@
+package com.tota.eccom.domain.product.model;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Compares the precompiled ProductPriceTable against the linear scan Product.getProductPriceByQuantity used to do,
+    pricing a batch of cart items the way CartService.sumCartItems does on every cart update.
+
+    Not picked up by surefire, run the main method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductPriceLookupBenchmark {
+
+    private static final int CART_ITEMS = 64;
+
+    @Param({"1", "5", "20"})
+    int tiers;
+
+    Product product;
+    int[] quantities;
+
+    @Setup
+    public void setUp() {
+
+        List<ProductPrice> prices = new ArrayList<>();
+
+        for (int i = 0; i < tiers; i++) {
+            prices.add(ProductPrice.builder()
+                    .price(BigDecimal.valueOf(100L - i))
+                    .quantity(i == 0 ? 1 : i * 6)
+                    .build());
+        }
+
+        product = new Product();
+        product.setProductPrices(prices);
+
+        Random random = new Random(42);
+        quantities = new int[CART_ITEMS];
+
+        for (int i = 0; i < CART_ITEMS; i++) {
+            quantities[i] = 1 + random.nextInt(tiers * 6);
+        }
+    }
+
+    @Benchmark
+    public void linearScan(Blackhole blackhole) {
+        for (int quantity : quantities) {
+            blackhole.consume(linearScan(product.getProductPrices(), quantity));
+        }
+    }
+
+    @Benchmark
+    public void priceTable(Blackhole blackhole) {
+        for (int quantity : quantities) {
+            blackhole.consume(product.getProductPriceByQuantity(quantity));
+        }
+    }
+
+    // Previous implementation: exact quantity match, falling back to the quantity 1 price
+    private static ProductPrice linearScan(List<ProductPrice> productPrices, Integer quantity) {
+        return productPrices.stream()
+                .filter(p -> p.getQuantity().equals(quantity))
+                .findFirst()
+                .or(() ->
+                        productPrices
+                                .stream()
+                                .filter(p -> p.getQuantity().equals(1))
+                                .findFirst())
+                .orElse(null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProductPriceLookupBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
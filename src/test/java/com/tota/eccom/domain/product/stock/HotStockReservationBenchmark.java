@@ -0,0 +1,98 @@
+package com.tota.eccom.domain.product.stock;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Compares reserving one unit of a single hot product with the conditional update ProductStockRepository.reserve
+    runs on its product_stock row against the striped counters of HotStockCounter, and against a single stripe to
+    show what striping buys under contention. The row lives in an in-memory H2 database, so the numbers leave out the
+    network round trip and only show the cost of queueing on the row.
+
+    Not picked up by surefire, run the main method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class HotStockReservationBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:hot_stock_benchmark;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+    private static final int UNITS = Integer.MAX_VALUE / 2;
+
+    StripedStock stripedStock;
+    StripedStock singleStripe;
+
+    @State(Scope.Thread)
+    public static class RowLock {
+
+        Connection connection;
+        PreparedStatement reserve;
+
+        @Setup(Level.Trial)
+        public void setUp() throws SQLException {
+            connection = DriverManager.getConnection(URL);
+            reserve = connection.prepareStatement("UPDATE product_stock SET reserved_quantity = reserved_quantity + 1" +
+                    " WHERE id = 1 AND quantity - reserved_quantity >= 1");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            connection.close();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUpTable() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS product_stock (id BIGINT PRIMARY KEY, quantity INT, reserved_quantity INT)");
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() throws SQLException {
+
+        try (Connection connection = DriverManager.getConnection(URL); Statement statement = connection.createStatement()) {
+            statement.execute("MERGE INTO product_stock KEY (id) VALUES (1, " + UNITS + ", 0)");
+        }
+
+        stripedStock = new StripedStock(16);
+        stripedStock.spread(UNITS);
+
+        singleStripe = new StripedStock(1);
+        singleStripe.spread(UNITS);
+    }
+
+    @Benchmark
+    public int rowLockUpdate(RowLock rowLock) throws SQLException {
+        return rowLock.reserve.executeUpdate();
+    }
+
+    @Benchmark
+    public boolean stripedStock() {
+        return stripedStock.tryTake(1);
+    }
+
+    @Benchmark
+    public boolean singleStripe() {
+        return singleStripe.tryTake(1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HotStockReservationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,99 @@
+package com.tota.eccom.domain.product.stock;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedStockTest {
+
+    StripedStock stripedStock;
+
+    @BeforeEach
+    void setUp() {
+        stripedStock = new StripedStock(8);
+    }
+
+
+    @Nested
+    @DisplayName("Take")
+    class TakeTest {
+
+        @Test
+        @DisplayName("Take, should take from other stripes when the own one runs dry")
+        void testTryTake_shouldTakeFromOtherStripes() {
+            stripedStock.spread(8);
+
+            assertTrue(stripedStock.tryTake(5));
+            assertEquals(3, stripedStock.available());
+        }
+
+        @Test
+        @DisplayName("Take, should take nothing when there are not enough units")
+        void testTryTake_shouldTakeNothingWhenNotEnough() {
+            stripedStock.spread(4);
+
+            assertFalse(stripedStock.tryTake(5));
+            assertEquals(4, stripedStock.available());
+        }
+
+        @Test
+        @DisplayName("Take, should never take more than the spread units from concurrent threads")
+        void testTryTake_shouldNotOversellConcurrently() throws Exception {
+            int units = 1000;
+            int threads = 16;
+            stripedStock.spread(units);
+
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            AtomicInteger taken = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        if (stripedStock.tryTake(1)) {
+                            taken.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            try {
+                for (Future<?> future : futures) {
+                    future.get(1, TimeUnit.MINUTES);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertEquals(units, taken.get());
+            assertEquals(0, stripedStock.available());
+        }
+    }
+
+    @Nested
+    @DisplayName("Drain")
+    class DrainTest {
+
+        @Test
+        @DisplayName("Drain, should return the units left and empty every stripe")
+        void testDrain_shouldReturnUnitsLeft() {
+            stripedStock.spread(10);
+            stripedStock.tryTake(3);
+            stripedStock.add(2);
+
+            assertEquals(9, stripedStock.drain());
+            assertEquals(0, stripedStock.available());
+            assertFalse(stripedStock.tryTake(1));
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.tota.eccom.domain.product.suggest;
+
+import com.tota.eccom.adapters.dto.product.response.SuggestionRespDTO;
+import com.tota.eccom.domain.brand.model.Brand;
+import com.tota.eccom.domain.product.model.ProductListing;
+import com.tota.eccom.domain.product.model.enums.SuggestionType;
+import com.tota.eccom.util.enums.Status;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSuggestIndexTest {
+
+    ProductSuggestIndex productSuggestIndex;
+
+    @BeforeEach
+    void setUp() {
+        productSuggestIndex = new ProductSuggestIndex();
+    }
+
+    private ProductListing getMockListing(Long id, String name, boolean sellable) {
+        return ProductListing.builder()
+                .productId(id)
+                .name(name)
+                .slug(name.toLowerCase().replace(' ', '-'))
+                .sellable(sellable)
+                .build();
+    }
+
+    private List<Long> suggestIds(String prefix) {
+        return productSuggestIndex.suggest(prefix, 10).stream().map(SuggestionRespDTO::getId).toList();
+    }
+
+
+    @Nested
+    @DisplayName("Suggest")
+    class SuggestTest {
+
+        @Test
+        @DisplayName("Suggest, should match any word start ignoring case and accents")
+        void testSuggest_shouldMatchAnyWordStartIgnoringCaseAndAccents() {
+
+            productSuggestIndex.putProducts(List.of(
+                    getMockListing(1L, "Camiseta Básica Algodão", true),
+                    getMockListing(2L, "Bermuda Jeans", true)));
+
+            assertEquals(List.of(1L), suggestIds("cami"));
+            assertEquals(List.of(1L), suggestIds("BAS"));
+            assertEquals(List.of(1L), suggestIds("algodao"));
+            assertEquals(List.of(2L), suggestIds("jea"));
+            assertTrue(suggestIds("shorts").isEmpty());
+        }
+
+        @Test
+        @DisplayName("Suggest, should return nothing for prefixes shorter than the minimum")
+        void testSuggest_shouldReturnNothingForShortPrefixes() {
+
+            productSuggestIndex.putProduct(getMockListing(1L, "Camiseta", true));
+
+            assertTrue(suggestIds("c").isEmpty());
+            assertTrue(suggestIds(" ").isEmpty());
+        }
+
+        @Test
+        @DisplayName("Suggest, should rank most popular entries first and respect the limit")
+        void testSuggest_shouldRankMostPopularFirst() {
+
+            productSuggestIndex.putProducts(List.of(
+                    getMockListing(1L, "Camiseta Azul", true),
+                    getMockListing(2L, "Camiseta Vermelha", true),
+                    getMockListing(3L, "Camiseta Verde", true)));
+
+            productSuggestIndex.recordHit(SuggestionType.PRODUCT, 3L);
+            productSuggestIndex.recordHit(SuggestionType.PRODUCT, 3L);
+            productSuggestIndex.recordHit(SuggestionType.PRODUCT, 2L);
+
+            assertEquals(List.of(3L, 2L, 1L), suggestIds("cam"));
+            assertEquals(1, productSuggestIndex.suggest("cam", 1).size());
+        }
+
+        @Test
+        @DisplayName("Suggest, should include brands weighted by product count")
+        void testSuggest_shouldIncludeBrandsWeightedByProductCount() {
+
+            productSuggestIndex.putProduct(getMockListing(1L, "Camiseta Nike", true));
+            productSuggestIndex.putBrands(List.of(Brand.builder().id(10L).name("Nike").slug("nike").status(Status.ACTIVE).build()),
+                    Map.of(10L, 5L));
+
+            List<SuggestionRespDTO> suggestions = productSuggestIndex.suggest("nik", 10);
+
+            assertEquals(2, suggestions.size());
+            assertEquals(SuggestionType.BRAND, suggestions.get(0).getType());
+            assertEquals("nike", suggestions.get(0).getSlug());
+            assertEquals(SuggestionType.PRODUCT, suggestions.get(1).getType());
+        }
+    }
+
+    @Nested
+    @DisplayName("Incremental Updates")
+    class IncrementalUpdatesTest {
+
+        @Test
+        @DisplayName("Put product, should replace the previous name and keep its popularity")
+        void testPutProduct_shouldReplacePreviousNameAndKeepPopularity() {
+
+            productSuggestIndex.putProducts(List.of(
+                    getMockListing(1L, "Camiseta Azul", true),
+                    getMockListing(2L, "Camiseta Verde", true)));
+            productSuggestIndex.recordHit(SuggestionType.PRODUCT, 1L);
+
+            productSuggestIndex.putProduct(getMockListing(1L, "Camiseta Marinho", true));
+
+            assertTrue(suggestIds("azul").isEmpty());
+            assertEquals(List.of(1L), suggestIds("mar"));
+            assertEquals(List.of(1L, 2L), suggestIds("cam"));
+            assertEquals(2, productSuggestIndex.size());
+        }
+
+        @Test
+        @DisplayName("Put product, should drop products that are no longer sellable")
+        void testPutProduct_shouldDropProductsNoLongerSellable() {
+
+            productSuggestIndex.putProduct(getMockListing(1L, "Camiseta Azul", true));
+            productSuggestIndex.putProduct(getMockListing(1L, "Camiseta Azul", false));
+
+            assertTrue(suggestIds("cam").isEmpty());
+            assertEquals(0, productSuggestIndex.size());
+        }
+
+        @Test
+        @DisplayName("Put brand, should drop deleted brands")
+        void testPutBrand_shouldDropDeletedBrands() {
+
+            Brand brand = Brand.builder().id(10L).name("Nike").slug("nike").status(Status.ACTIVE).build();
+            productSuggestIndex.putBrand(brand, 0L);
+
+            brand.setStatus(Status.DELETED);
+            productSuggestIndex.putBrand(brand, 0L);
+
+            assertTrue(suggestIds("nike").isEmpty());
+        }
+    }
+}
@@ -7,20 +7,35 @@ import com.tota.eccom.adapters.dto.user.response.UserLoginRespDTO;
 import com.tota.eccom.util.enums.Status;
 import com.tota.eccom.domain.user.model.Role;
 import com.tota.eccom.domain.user.model.User;
+import com.tota.eccom.domain.user.password.PasswordHasher;
 import com.tota.eccom.domain.user.repository.RoleRepository;
 import com.tota.eccom.domain.user.repository.UserRepository;
+import com.tota.eccom.domain.user.revocation.TokenRevocationStore;
 import com.tota.eccom.exceptions.user.UserEmailExistsException;
 import com.tota.eccom.exceptions.user.UserNotFoundException;
-import com.tota.eccom.util.InvalidJwtTokenUtil;
+import com.tota.eccom.security.JwtRequestFilter;
+import com.tota.eccom.security.JwtUserDetailsService;
+import com.tota.eccom.security.PrincipalContext;
+import com.tota.eccom.security.TokenVersionCache;
 import com.tota.eccom.util.JwtTokenUtil;
 import com.tota.eccom.util.SecurityUtil;
 import io.jsonwebtoken.ExpiredJwtException;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.*;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.util.List;
 import java.util.Optional;
@@ -32,7 +47,8 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.Mockito.when;
 
 @DataJpaTest
-@Import({UserService.class, JwtTokenUtil.class, SecurityUtil.class})
+@TestPropertySource(properties = "PASSWORD_HASH_COST=4")
+@Import({UserService.class, TokenRevocationStore.class, PasswordHasher.class, PrincipalContext.class, JwtUserDetailsService.class, JwtTokenUtil.class, SecurityUtil.class})
 class UserServiceTest {
 
     @Autowired
@@ -50,13 +66,21 @@ class UserServiceTest {
     @MockBean
     private SecurityUtil securityUtil;
 
-    @MockBean
-    private InvalidJwtTokenUtil invalidJwtTokenUtil;
+    @Autowired
+    private TokenRevocationStore tokenRevocationStore;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JwtUserDetailsService jwtUserDetailsService;
 
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        // Ids come from the real principal, none of these tests authenticates from token claims
+        when(securityUtil.getCurrentUserId()).thenCallRealMethod();
         jwtTokenUtil.setSecret("myRasfasafas1fsfasf13afase13alSe123crasfasfeta13sfasfJwasftasfSasecfasf133131ret");
         jwtTokenUtil.setRefreshSecret("myRasfasafas1fsfasf13afase13alSe123crasfasfeta13sfasfJwasftasfSasecfasf133131ret");
         jwtTokenUtil.setJwtTokenValidity(4 * 60 * 60);
@@ -352,6 +376,111 @@ class UserServiceTest {
 
     }
 
+    @Nested
+    @DisplayName("Logged User Per Request")
+    class LoggedUserPerRequestTest {
+
+        private Statistics statistics;
+        private boolean statisticsEnabled;
+
+        @BeforeEach
+        void setUp() {
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+            statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statisticsEnabled = statistics.isStatisticsEnabled();
+            statistics.setStatisticsEnabled(true);
+        }
+
+        @AfterEach
+        void tearDown() {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+            RequestContextHolder.resetRequestAttributes();
+            SecurityContextHolder.clearContext();
+        }
+
+        @Test
+        @DisplayName("Logged user per request, should look the user up once per request")
+        void testLoggedUserPerRequest_shouldLookUpUserOnce() {
+
+            User savedUser = userDomain.createUser(mockUserCreateDTO());
+
+            when(securityUtil.getCurrentUsername()).thenReturn(savedUser.getEmail());
+
+            userRepository.flush();
+            statistics.clear();
+
+            User foundUser = userDomain.getUserLogged();
+            long lookups = statistics.getPrepareStatementCount();
+
+            assertEquals(1, lookups);
+            assertEquals(foundUser, userDomain.getUserLogged());
+            assertEquals(savedUser.getId(), userDomain.getUserLoggedId());
+            assertEquals(lookups, statistics.getPrepareStatementCount());
+        }
+
+        @Test
+        @DisplayName("Logged user per request, should reuse the user the filter loaded to authenticate the request")
+        void testLoggedUserPerRequest_shouldReuseUserLoadedByFilter() throws Exception {
+
+            User savedUser = userDomain.createUser(mockUserCreateDTO());
+
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.addHeader("Authorization", "Bearer " + jwtTokenUtil.generateToken(savedUser));
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+            when(securityUtil.getCurrentUsername()).thenReturn(savedUser.getEmail());
+
+            JwtRequestFilter filter = new JwtRequestFilter(jwtUserDetailsService, jwtTokenUtil,
+                    new TokenVersionCache(userRepository, 30, 100), tokenRevocationStore, "database");
+
+            userRepository.flush();
+            statistics.clear();
+
+            filter.doFilter(request, new MockHttpServletResponse(), (filteredRequest, filteredResponse) -> {
+                assertEquals(savedUser.getId(), userDomain.getUserLogged().getId());
+                assertEquals(savedUser.getId(), userDomain.getUserLoggedId());
+            });
+
+            assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+            assertEquals(1, statistics.getPrepareStatementCount());
+        }
+
+        @Test
+        @DisplayName("Logged user per request, should look the user up again on the next request")
+        void testLoggedUserPerRequest_shouldNotShareUserAcrossRequests() {
+
+            User savedUser = userDomain.createUser(mockUserCreateDTO());
+
+            when(securityUtil.getCurrentUsername()).thenReturn(savedUser.getEmail());
+
+            userDomain.getUserLogged();
+
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+            statistics.clear();
+
+            userDomain.getUserLogged();
+
+            assertEquals(1, statistics.getPrepareStatementCount());
+        }
+
+        @Test
+        @DisplayName("Logged user per request, should not look the user up when the id comes from the token claims")
+        void testLoggedUserPerRequest_shouldNotLookUpUserWithClaims() {
+
+            User savedUser = userDomain.createUser(mockUserCreateDTO());
+
+            when(securityUtil.getCurrentUsername()).thenReturn(savedUser.getEmail());
+            when(securityUtil.getCurrentUserId()).thenReturn(savedUser.getId());
+
+            userRepository.flush();
+            statistics.clear();
+
+            assertEquals(savedUser.getId(), userDomain.getUserLoggedId());
+            assertEquals(0, statistics.getPrepareStatementCount());
+        }
+
+    }
+
     @Nested
     @DisplayName("Delete Logged User")
     class DeleteLoggedUserTest {
@@ -445,6 +574,26 @@ class UserServiceTest {
             assertNotNull(loginRespDTO.getRefreshToken());
         }
 
+        @Test
+        @DisplayName("Login user, should rehash a password stored with another cost")
+        void testLoginUser_shouldRehashPasswordWithOtherCost() {
+
+            User user = userDomain.createUser(mockUserCreateDTO());
+            user.setPassword(new BCryptPasswordEncoder(5).encode(mockUserCreateDTO().getPassword()));
+            userRepository.save(user);
+
+            UserLoginDTO loginDTO = new UserLoginDTO();
+            loginDTO.setEmail(mockUserCreateDTO().getEmail());
+            loginDTO.setPassword(mockUserCreateDTO().getPassword());
+
+            userDomain.loginUser(loginDTO);
+
+            String hash = userRepository.findById(user.getId()).orElseThrow().getPassword();
+
+            assertTrue(hash.startsWith("$2a$04$"));
+            assertTrue(new BCryptPasswordEncoder().matches(mockUserCreateDTO().getPassword(), hash));
+        }
+
         @Test
         @DisplayName("Login user, should throw exception when user not found")
         void testLoginUser_shouldThrowExceptionWhenUserNotFound() {
@@ -493,7 +642,7 @@ class UserServiceTest {
 
             userDomain.logoutUser();
 
-            assertTrue(InvalidJwtTokenUtil.isTokenInvalid(token));
+            assertTrue(tokenRevocationStore.isRevoked(token));
         }
 
 
@@ -0,0 +1,151 @@
+package com.tota.eccom.domain.user.password;
+
+import com.tota.eccom.exceptions.user.PasswordHashingUnavailableException;
+import org.junit.jupiter.api.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    PasswordHasher passwordHasher;
+
+    @BeforeEach
+    void setUp() {
+        passwordHasher = new PasswordHasher(1, 1, 5000, 4, 250);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHasher.shutdown();
+    }
+
+
+    @Nested
+    @DisplayName("Hash")
+    class HashTest {
+
+        @Test
+        @DisplayName("Hash, should produce a hash of the configured cost that matches the password")
+        void testHash_shouldMatchPassword() {
+            String hash = passwordHasher.hash("v*cb592K6shz@5gr");
+
+            assertTrue(hash.startsWith("$2a$04$"));
+            assertTrue(passwordHasher.matches("v*cb592K6shz@5gr", hash));
+            assertFalse(passwordHasher.matches("another-password", hash));
+            assertEquals(1, passwordHasher.getStats().getHashes());
+            assertEquals(2, passwordHasher.getStats().getVerifications());
+        }
+
+        @Test
+        @DisplayName("Hash, should fail right away when the queue is full")
+        void testHash_shouldRejectWhenSaturated() throws Exception {
+            CountDownLatch running = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            ExecutorService callers = Executors.newFixedThreadPool(2);
+
+            try {
+                callers.submit(() -> passwordHasher.execute(() -> {
+                    running.countDown();
+                    release.await();
+                    return true;
+                }));
+                running.await();
+
+                callers.submit(() -> passwordHasher.execute(() -> true));
+
+                while (passwordHasher.getStats().getQueueDepth() == 0) {
+                    Thread.onSpinWait();
+                }
+
+                assertThrows(PasswordHashingUnavailableException.class, () -> passwordHasher.hash("v*cb592K6shz@5gr"));
+                assertEquals(1, passwordHasher.getStats().getRejected());
+            } finally {
+                release.countDown();
+                callers.shutdown();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Expected wait")
+    class ExpectedWaitTest {
+
+        @Test
+        @DisplayName("Hash, should fail right away when the work queued ahead would take longer than the timeout")
+        void testHash_shouldRejectWhenQueueWouldOutlastTimeout() throws Exception {
+            PasswordHasher slowHasher = new PasswordHasher(1, 8, 200, 4, 250);
+            CountDownLatch running = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            ExecutorService callers = Executors.newFixedThreadPool(3);
+
+            try {
+                slowHasher.execute(() -> {
+                    Thread.sleep(150);
+                    return true;
+                });
+
+                callers.submit(() -> slowHasher.execute(() -> {
+                    running.countDown();
+                    release.await();
+                    return true;
+                }));
+                running.await();
+
+                callers.submit(() -> slowHasher.execute(() -> true));
+
+                while (slowHasher.getStats().getQueueDepth() < 1) {
+                    Thread.onSpinWait();
+                }
+
+                callers.submit(() -> slowHasher.execute(() -> true));
+
+                while (slowHasher.getStats().getQueueDepth() < 2) {
+                    Thread.onSpinWait();
+                }
+
+                assertThrows(PasswordHashingUnavailableException.class, () -> slowHasher.hash("v*cb592K6shz@5gr"));
+                assertEquals(1, slowHasher.getStats().getRejected());
+                assertEquals(2, slowHasher.getStats().getQueueDepth());
+            } finally {
+                release.countDown();
+                callers.shutdown();
+                slowHasher.shutdown();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Needs rehash")
+    class NeedsRehashTest {
+
+        @Test
+        @DisplayName("Needs rehash, should be true only for hashes of another cost")
+        void testNeedsRehash_shouldCompareCost() {
+            assertFalse(passwordHasher.needsRehash(new BCryptPasswordEncoder(4).encode("password")));
+            assertTrue(passwordHasher.needsRehash(new BCryptPasswordEncoder(5).encode("password")));
+            assertTrue(passwordHasher.needsRehash("not-a-bcrypt-hash"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Calibrate")
+    class CalibrateTest {
+
+        @Test
+        @DisplayName("Calibrate, should never pick a cost below the minimum")
+        void testCalibrate_shouldKeepMinimumCost() {
+            PasswordHasher calibrated = new PasswordHasher(1, 1, 5000, 0, 1);
+
+            try {
+                assertEquals(10, calibrated.getCost());
+            } finally {
+                calibrated.shutdown();
+            }
+        }
+    }
+}
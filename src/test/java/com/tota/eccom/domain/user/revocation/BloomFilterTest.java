@@ -0,0 +1,51 @@
+package com.tota.eccom.domain.user.revocation;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    BloomFilter bloomFilter;
+
+    @BeforeEach
+    void setUp() {
+        bloomFilter = new BloomFilter(10000, 0.01);
+    }
+
+
+    @Nested
+    @DisplayName("Might contain")
+    class MightContainTest {
+
+        @Test
+        @DisplayName("Might contain, should never miss an added key")
+        void testMightContain_shouldNeverMissAddedKey() {
+            for (int i = 0; i < 10000; i++) {
+                bloomFilter.add("token-" + i);
+            }
+
+            for (int i = 0; i < 10000; i++) {
+                assertTrue(bloomFilter.mightContain("token-" + i));
+            }
+        }
+
+        @Test
+        @DisplayName("Might contain, should rule out most keys never added")
+        void testMightContain_shouldRuleOutMostOtherKeys() {
+            for (int i = 0; i < 10000; i++) {
+                bloomFilter.add("token-" + i);
+            }
+
+            int falsePositives = 0;
+
+            for (int i = 0; i < 10000; i++) {
+                if (bloomFilter.mightContain("other-" + i)) {
+                    falsePositives++;
+                }
+            }
+
+            assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+        }
+    }
+}
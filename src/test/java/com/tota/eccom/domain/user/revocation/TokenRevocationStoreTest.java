@@ -0,0 +1,136 @@
+package com.tota.eccom.domain.user.revocation;
+
+import com.tota.eccom.domain.user.model.RevokedToken;
+import com.tota.eccom.domain.user.model.User;
+import com.tota.eccom.domain.user.repository.RevokedTokenRepository;
+import com.tota.eccom.util.JwtTokenUtil;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Date;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({TokenRevocationStore.class, JwtTokenUtil.class})
+class TokenRevocationStoreTest {
+
+    private static final String SECRET = "myRasfasafas1fsfasf13afase13alSe123crasfasfeta13sfasfJwasftasfSasecfasf133131ret";
+
+    @Autowired
+    TokenRevocationStore tokenRevocationStore;
+
+    @Autowired
+    RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    JwtTokenUtil jwtTokenUtil;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+
+    @BeforeEach
+    void setUp() {
+        jwtTokenUtil.setSecret(SECRET);
+        jwtTokenUtil.setRefreshSecret(SECRET);
+        jwtTokenUtil.setJwtTokenValidity(60 * 60 * 1000);
+    }
+
+
+    private String setupToken() {
+        return jwtTokenUtil.generateToken(User.builder()
+                .id(1L)
+                .email("testuser@example.com")
+                .roles(new HashSet<>())
+                .build());
+    }
+
+
+    @Nested
+    @DisplayName("Revoke")
+    class RevokeTest {
+
+        @Test
+        @DisplayName("Revoke, should reject the revoked token only")
+        void testRevoke_shouldRejectRevokedTokenOnly() {
+            String token = setupToken();
+            String otherToken = setupToken();
+
+            tokenRevocationStore.revoke(token);
+
+            assertTrue(tokenRevocationStore.isRevoked(token));
+            assertFalse(tokenRevocationStore.isRevoked(otherToken));
+            assertEquals(1, revokedTokenRepository.count());
+        }
+
+        @Test
+        @DisplayName("Revoke, should keep revoked tokens across restarts")
+        void testRevoke_shouldSurviveRestart() {
+            String token = setupToken();
+
+            tokenRevocationStore.revoke(token);
+
+            TokenRevocationStore restarted = new TokenRevocationStore(revokedTokenRepository, jwtTokenUtil, transactionManager, 1000, 10000);
+            restarted.load();
+
+            assertTrue(restarted.isRevoked(token));
+        }
+
+        @Test
+        @DisplayName("Revoke, should ignore a token that is no longer valid")
+        void testRevoke_shouldIgnoreInvalidToken() {
+            // A store of its own, the shared one keeps what the other tests revoked in memory
+            TokenRevocationStore store = new TokenRevocationStore(revokedTokenRepository, jwtTokenUtil, transactionManager, 1000, 10000);
+
+            store.revoke("not-a-token");
+
+            assertEquals(0, revokedTokenRepository.count());
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Sync")
+    class SyncTest {
+
+        @Test
+        @DisplayName("Sync, should pick up revocations made by other instances")
+        void testSync_shouldPickUpOtherRevocations() {
+            String token = setupToken();
+
+            tokenRevocationStore.load();
+
+            TokenRevocationStore other = new TokenRevocationStore(revokedTokenRepository, jwtTokenUtil, transactionManager, 1000, 10000);
+            other.revoke(token);
+
+            assertFalse(tokenRevocationStore.isRevoked(token));
+
+            tokenRevocationStore.sync();
+
+            assertTrue(tokenRevocationStore.isRevoked(token));
+        }
+
+        @Test
+        @DisplayName("Sync, should purge revocations of expired tokens")
+        void testSync_shouldPurgeExpired() {
+            revokedTokenRepository.save(RevokedToken.builder()
+                    .tokenId("expired")
+                    .expiresAt(new Date(System.currentTimeMillis() - 1000))
+                    .revokedAt(new Date(System.currentTimeMillis() - 2000))
+                    .build());
+
+            TokenRevocationStore store = new TokenRevocationStore(revokedTokenRepository, jwtTokenUtil, transactionManager, 1000, 10000);
+
+            store.revoke(setupToken());
+            store.sync();
+
+            assertEquals(1, revokedTokenRepository.count());
+            assertEquals(1, store.size());
+        }
+    }
+}
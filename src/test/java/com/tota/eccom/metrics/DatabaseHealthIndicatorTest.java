@@ -0,0 +1,72 @@
+package com.tota.eccom.metrics;
+
+import org.junit.jupiter.api.*;
+import org.springframework.boot.actuate.health.Status;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class DatabaseHealthIndicatorTest {
+
+    DataSource dataSource;
+    Connection connection;
+    AtomicLong clock;
+    DatabaseHealthIndicator healthIndicator;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = mock(DataSource.class);
+        connection = mock(Connection.class);
+        clock = new AtomicLong();
+
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.isValid(anyInt())).thenReturn(true);
+
+        healthIndicator = new DatabaseHealthIndicator(dataSource, 5000, 2, clock::get);
+    }
+
+
+    @Nested
+    @DisplayName("Health")
+    class HealthTest {
+
+        @Test
+        @DisplayName("Health, should answer from the last check within the cache time")
+        void testHealth_shouldCacheCheck() throws SQLException {
+            assertEquals(Status.UP, healthIndicator.health().getStatus());
+
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(4));
+            assertEquals(Status.UP, healthIndicator.health().getStatus());
+            verify(dataSource, times(1)).getConnection();
+
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+            assertEquals(Status.UP, healthIndicator.health().getStatus());
+            verify(dataSource, times(2)).getConnection();
+        }
+
+        @Test
+        @DisplayName("Health, should be down when no connection can be borrowed")
+        void testHealth_shouldBeDownWhenDatabaseUnreachable() throws SQLException {
+            when(dataSource.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+            assertEquals(Status.DOWN, healthIndicator.health().getStatus());
+            assertEquals("Connection refused", healthIndicator.health().getDetails().get("error"));
+        }
+
+        @Test
+        @DisplayName("Health, should be down when the connection is not valid")
+        void testHealth_shouldBeDownWhenConnectionInvalid() throws SQLException {
+            when(connection.isValid(anyInt())).thenReturn(false);
+
+            assertEquals(Status.DOWN, healthIndicator.health().getStatus());
+            verify(connection).close();
+        }
+    }
+}
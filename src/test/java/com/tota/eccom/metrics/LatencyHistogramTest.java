@@ -0,0 +1,74 @@
+package com.tota.eccom.metrics;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    LatencyHistogram histogram;
+
+    @BeforeEach
+    void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+
+    @Nested
+    @DisplayName("Bucket")
+    class BucketTest {
+
+        @Test
+        @DisplayName("Bucket, should keep every value within 1/32 of itself")
+        void testBucket_shouldKeepRelativeError() {
+            for (long micros = 1; micros < (1L << 32); micros = micros * 3 / 2 + 1) {
+                long highest = LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(micros));
+
+                assertTrue(highest >= micros);
+                assertTrue(highest - micros <= micros / 32, "value " + micros + " reported as " + highest);
+            }
+        }
+
+        @Test
+        @DisplayName("Bucket, should be exact below 32 microseconds")
+        void testBucket_shouldBeExactForSmallValues() {
+            for (long micros = 0; micros < 32; micros++) {
+                assertEquals(micros, LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(micros)));
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Percentile")
+    class PercentileTest {
+
+        @Test
+        @DisplayName("Percentile, should report the latency of the given rank")
+        void testPercentile_shouldReportRank() {
+            for (int millis = 1; millis <= 1000; millis++) {
+                histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+            }
+
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+            assertEquals(1000, snapshot.count());
+            assertEquals(500_500D, snapshot.meanMicros(), 1D);
+            assertEquals(1_000_000, snapshot.maxMicros());
+            assertEquals(500_000, snapshot.valueAtPercentile(50), 500_000 / 32D);
+            assertEquals(990_000, snapshot.valueAtPercentile(99), 990_000 / 32D);
+            assertEquals(1_000_000, snapshot.valueAtPercentile(100));
+        }
+
+        @Test
+        @DisplayName("Percentile, should be zero when nothing was recorded")
+        void testPercentile_shouldBeZeroWhenEmpty() {
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+            assertEquals(0, snapshot.count());
+            assertEquals(0, snapshot.valueAtPercentile(99));
+            assertEquals(0D, snapshot.meanMicros());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.tota.eccom.metrics;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MpscRingBufferTest {
+
+    @Nested
+    @DisplayName("Offer")
+    class OfferTest {
+
+        @Test
+        @DisplayName("Offer, should reject elements when the buffer is full")
+        void testOffer_shouldRejectWhenFull() {
+            MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+
+            for (int i = 0; i < 4; i++) {
+                assertTrue(buffer.offer(i));
+            }
+
+            assertFalse(buffer.offer(4));
+            assertEquals(0, buffer.poll());
+            assertTrue(buffer.offer(4));
+            assertEquals(4, buffer.size());
+        }
+
+        @Test
+        @DisplayName("Offer, should round the capacity up to a power of two")
+        void testOffer_shouldRoundCapacity() {
+            assertEquals(8, new MpscRingBuffer<>(5).capacity());
+            assertEquals(8192, new MpscRingBuffer<>(8192).capacity());
+        }
+    }
+
+    @Nested
+    @DisplayName("Poll")
+    class PollTest {
+
+        @Test
+        @DisplayName("Poll, should return elements in order and null when empty")
+        void testPoll_shouldReturnInOrder() {
+            MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(8);
+
+            for (int round = 0; round < 3; round++) {
+                for (int i = 0; i < 8; i++) {
+                    buffer.offer(round * 8 + i);
+                }
+                for (int i = 0; i < 8; i++) {
+                    assertEquals(round * 8 + i, buffer.poll());
+                }
+            }
+
+            assertNull(buffer.poll());
+        }
+
+        @Test
+        @DisplayName("Poll, should see every element offered by concurrent producers exactly once")
+        void testPoll_shouldSeeEveryElementOnce() throws Exception {
+            MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(64);
+            ExecutorService producers = Executors.newFixedThreadPool(4);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            int perProducer = 10_000;
+
+            try {
+                for (int p = 0; p < 4; p++) {
+                    int first = p * perProducer;
+                    futures.add(producers.submit(() -> {
+                        start.await();
+                        for (int i = first; i < first + perProducer; i++) {
+                            // Yields rather than spins, so the consumer gets the CPU on a single core runner too
+                            while (!buffer.offer(i)) {
+                                Thread.yield();
+                            }
+                        }
+                        return null;
+                    }));
+                }
+
+                start.countDown();
+
+                Set<Integer> seen = new HashSet<>();
+
+                // Bounded by the elements rather than the clock: stops once every element was seen, or once every
+                // producer is done and nothing is left, so a lost element fails the count instead of hanging
+                while (seen.size() < 4 * perProducer) {
+                    Integer element = buffer.poll();
+                    if (element != null) {
+                        assertTrue(seen.add(element));
+                    } else if (futures.stream().allMatch(Future::isDone) && buffer.size() == 0) {
+                        break;
+                    } else {
+                        Thread.yield();
+                    }
+                }
+
+                for (Future<?> future : futures) {
+                    future.get(1, TimeUnit.MINUTES);
+                }
+
+                assertEquals(4 * perProducer, seen.size());
+                assertNull(buffer.poll());
+            } finally {
+                producers.shutdownNow();
+            }
+        }
+    }
+}
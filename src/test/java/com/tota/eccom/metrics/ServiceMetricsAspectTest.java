@@ -0,0 +1,69 @@
+package com.tota.eccom.metrics;
+
+import com.tota.eccom.domain.brand.IBrandService;
+import com.tota.eccom.domain.brand.model.Brand;
+import com.tota.eccom.exceptions.generic.ResourceNotFoundException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ServiceMetricsAspectTest {
+
+    SimpleMeterRegistry meterRegistry;
+    IBrandService brandService;
+    IBrandService timedBrandService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        brandService = mock(IBrandService.class);
+
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(brandService);
+        proxyFactory.addAspect(new ServiceMetricsAspect(meterRegistry));
+        timedBrandService = proxyFactory.getProxy();
+    }
+
+
+    @Nested
+    @DisplayName("Time")
+    class TimeTest {
+
+        @Test
+        @DisplayName("Time, should time every service call by method")
+        void testTime_shouldTimeServiceCalls() {
+            when(brandService.getBrandById(1L)).thenReturn(new Brand());
+
+            timedBrandService.getBrandById(1L);
+            timedBrandService.getBrandById(1L);
+
+            Timer timer = meterRegistry.find(ServiceMetricsAspect.TIMER_NAME)
+                    .tag("method", "getBrandById")
+                    .tag("exception", "none")
+                    .timer();
+
+            assertNotNull(timer);
+            assertEquals(2, timer.count());
+        }
+
+        @Test
+        @DisplayName("Time, should tag the exception thrown by the call")
+        void testTime_shouldTagException() {
+            when(brandService.getBrandById(1L)).thenThrow(new ResourceNotFoundException("Brand not found"));
+
+            assertThrows(ResourceNotFoundException.class, () -> timedBrandService.getBrandById(1L));
+
+            Timer timer = meterRegistry.find(ServiceMetricsAspect.TIMER_NAME)
+                    .tag("method", "getBrandById")
+                    .tag("exception", "ResourceNotFoundException")
+                    .timer();
+
+            assertNotNull(timer);
+            assertEquals(1, timer.count());
+        }
+    }
+}
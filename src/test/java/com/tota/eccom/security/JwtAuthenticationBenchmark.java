@@ -0,0 +1,152 @@
+package com.tota.eccom.security;
+
+import com.tota.eccom.domain.user.model.Role;
+import com.tota.eccom.domain.user.model.User;
+import com.tota.eccom.domain.user.revocation.TokenRevocationStore;
+import com.tota.eccom.util.JwtTokenUtil;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.io.IOException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Authenticated requests per second through JwtRequestFilter, loading the user and its roles on every request
+    (database mode) against authenticating from the token claims (claims mode). The users live in an in-memory H2
+    database, so the numbers leave out the network round trip and the connection pool, the gap on a real database is
+    wider.
+
+    Not picked up by surefire, run the main method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class JwtAuthenticationBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:jwt_authentication_benchmark;DB_CLOSE_DELAY=-1";
+    private static final String SECRET = "myRasfasafas1fsfasf13afase13alSe123crasfasfeta13sfasfJwasftasfSasecfasf133131ret";
+
+    JwtRequestFilter databaseMode;
+    JwtRequestFilter claimsMode;
+    String token;
+
+    // One connection per thread, the way a pool would hand them out
+    private static final ThreadLocal<PreparedStatement> FIND_USER = ThreadLocal.withInitial(() -> {
+        try {
+            return DriverManager.getConnection(URL).prepareStatement("SELECT u.email, u.password, r.name FROM users u" +
+                    " LEFT JOIN user_roles ur ON ur.user_id = u.id LEFT JOIN roles r ON r.id = ur.role_id WHERE u.email = ?");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+
+        try (Connection connection = DriverManager.getConnection(URL); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS users (id BIGINT PRIMARY KEY, email VARCHAR(255) UNIQUE, password VARCHAR(255))");
+            statement.execute("CREATE TABLE IF NOT EXISTS roles (id BIGINT PRIMARY KEY, name VARCHAR(255))");
+            statement.execute("CREATE TABLE IF NOT EXISTS user_roles (user_id BIGINT, role_id BIGINT, PRIMARY KEY (user_id, role_id))");
+            statement.execute("MERGE INTO users KEY (id) VALUES (1, 'testuser@example.com', 'password')");
+            statement.execute("MERGE INTO roles KEY (id) VALUES (1, 'USER')");
+            statement.execute("MERGE INTO user_roles KEY (user_id, role_id) VALUES (1, 1)");
+        }
+
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil();
+        jwtTokenUtil.setSecret(SECRET);
+        jwtTokenUtil.setRefreshSecret(SECRET);
+        jwtTokenUtil.setJwtTokenValidity(TimeUnit.HOURS.toMillis(1));
+
+        token = "Bearer " + jwtTokenUtil.generateToken(User.builder()
+                .id(1L)
+                .email("testuser@example.com")
+                .roles(new HashSet<>(Set.of(Role.builder().name("USER").build())))
+                .build());
+
+        TokenVersionCache tokenVersionCache = new TokenVersionCache(userId -> 0, 30, 100);
+
+        // Lookups only, nothing is revoked so the table is never reached
+        TokenRevocationStore tokenRevocationStore = new TokenRevocationStore(null, jwtTokenUtil, null, 100000, 10000);
+
+        databaseMode = new JwtRequestFilter(JwtAuthenticationBenchmark::loadUser, jwtTokenUtil, tokenVersionCache, tokenRevocationStore, "database");
+        claimsMode = new JwtRequestFilter(JwtAuthenticationBenchmark::loadUser, jwtTokenUtil, tokenVersionCache, tokenRevocationStore, "claims");
+    }
+
+    @Benchmark
+    public Object databaseMode() throws ServletException, IOException {
+        return authenticate(databaseMode);
+    }
+
+    @Benchmark
+    public Object claimsMode() throws ServletException, IOException {
+        return authenticate(claimsMode);
+    }
+
+    private Object authenticate(JwtRequestFilter filter) throws ServletException, IOException {
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", token);
+
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    // What JwtUserDetailsService costs: the user by email and its roles
+    private static UserDetails loadUser(String username) {
+
+        try {
+            PreparedStatement findUser = FIND_USER.get();
+            findUser.setString(1, username);
+
+            String password = null;
+            List<String> roles = new ArrayList<>();
+
+            try (ResultSet rs = findUser.executeQuery()) {
+                while (rs.next()) {
+                    password = rs.getString(2);
+                    roles.add(rs.getString(3));
+                }
+            }
+
+            if (password == null) {
+                throw new UsernameNotFoundException("User not found");
+            }
+
+            return org.springframework.security.core.userdetails.User.builder()
+                    .username(username)
+                    .password(password)
+                    .roles(roles.toArray(String[]::new))
+                    .build();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtAuthenticationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
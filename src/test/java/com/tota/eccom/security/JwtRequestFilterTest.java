@@ -0,0 +1,148 @@
+package com.tota.eccom.security;
+
+import com.tota.eccom.domain.user.model.Role;
+import com.tota.eccom.domain.user.model.User;
+import com.tota.eccom.domain.user.revocation.TokenRevocationStore;
+import com.tota.eccom.util.JwtTokenUtil;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwtRequestFilterTest {
+
+    private static final String SECRET = "myRasfasafas1fsfasf13afase13alSe123crasfasfeta13sfasfJwasftasfSasecfasf133131ret";
+
+    JwtTokenUtil jwtTokenUtil;
+    Map<Long, Integer> tokenVersions;
+    TokenVersionCache tokenVersionCache;
+    TokenRevocationStore tokenRevocationStore;
+    int userLoads;
+
+    UserDetailsService userDetailsService = username -> {
+        userLoads++;
+        return org.springframework.security.core.userdetails.User.builder()
+                .username(username)
+                .password("password")
+                .roles("USER")
+                .build();
+    };
+
+    @BeforeEach
+    void setUp() {
+        jwtTokenUtil = new JwtTokenUtil();
+        jwtTokenUtil.setSecret(SECRET);
+        jwtTokenUtil.setRefreshSecret(SECRET);
+        jwtTokenUtil.setJwtTokenValidity(60 * 60 * 1000);
+        jwtTokenUtil.setJwtRefreshTokenValidity(60 * 60 * 1000);
+
+        tokenVersions = new HashMap<>();
+        tokenVersionCache = new TokenVersionCache(userId -> tokenVersions.getOrDefault(userId, -1), 30, 100);
+        tokenRevocationStore = mock(TokenRevocationStore.class);
+        userLoads = 0;
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+
+    private String setupToken() {
+        User user = User.builder()
+                .id(1L)
+                .email("testuser@example.com")
+                .roles(new HashSet<>(Set.of(Role.builder().name("ADMIN").build())))
+                .tokenVersion(3)
+                .build();
+
+        tokenVersions.put(user.getId(), user.getTokenVersion());
+
+        return jwtTokenUtil.generateToken(user);
+    }
+
+    private Authentication authenticate(String authMode, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+
+        new JwtRequestFilter(userDetailsService, jwtTokenUtil, tokenVersionCache, tokenRevocationStore, authMode)
+                .doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+
+    @Nested
+    @DisplayName("Claims mode")
+    class ClaimsModeTest {
+
+        @Test
+        @DisplayName("Claims mode, should authenticate from the token claims without loading the user")
+        void testClaimsMode_shouldAuthenticateFromClaims() throws Exception {
+            Authentication authentication = authenticate("claims", setupToken());
+
+            assertNotNull(authentication);
+            assertEquals(0, userLoads);
+
+            JwtPrincipal principal = assertInstanceOf(JwtPrincipal.class, authentication.getPrincipal());
+
+            assertEquals(1L, principal.getUserId());
+            assertEquals("testuser@example.com", principal.getUsername());
+            assertEquals(Set.of("ROLE_ADMIN"), authentication.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .collect(Collectors.toSet()));
+        }
+
+        @Test
+        @DisplayName("Claims mode, should reject a token issued before the token version changed")
+        void testClaimsMode_shouldRejectOutdatedTokenVersion() throws Exception {
+            String token = setupToken();
+
+            tokenVersions.put(1L, 4);
+            tokenVersionCache.invalidate(1L);
+
+            assertNull(authenticate("claims", token));
+            assertEquals(0, userLoads);
+        }
+    }
+
+    @Nested
+    @DisplayName("Database mode")
+    class DatabaseModeTest {
+
+        @Test
+        @DisplayName("Database mode, should load the user of the token")
+        void testDatabaseMode_shouldLoadUser() throws Exception {
+            Authentication authentication = authenticate("database", setupToken());
+
+            assertNotNull(authentication);
+            assertEquals(1, userLoads);
+            assertEquals("testuser@example.com", authentication.getName());
+        }
+
+        @Test
+        @DisplayName("Database mode, should not authenticate a revoked token")
+        void testDatabaseMode_shouldRejectRevokedToken() throws Exception {
+            when(tokenRevocationStore.isRevoked(any(Claims.class))).thenReturn(true);
+
+            assertNull(authenticate("database", setupToken()));
+            assertEquals(0, userLoads);
+        }
+    }
+}